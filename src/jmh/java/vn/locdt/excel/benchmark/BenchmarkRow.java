@@ -0,0 +1,63 @@
+package vn.locdt.excel.benchmark;
+
+import java.time.LocalDate;
+
+/**
+ * Entity mapped from a row written by {@link WorkbookGenerator}.
+ */
+public class BenchmarkRow {
+    private int id;
+    private double amount;
+    private String category;
+    private LocalDate date;
+    private boolean active;
+    private Double total;
+
+    public int getId() {
+        return this.id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public double getAmount() {
+        return this.amount;
+    }
+
+    public void setAmount(double amount) {
+        this.amount = amount;
+    }
+
+    public String getCategory() {
+        return this.category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public LocalDate getDate() {
+        return this.date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public boolean isActive() {
+        return this.active;
+    }
+
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+
+    public Double getTotal() {
+        return this.total;
+    }
+
+    public void setTotal(Double total) {
+        this.total = total;
+    }
+}
@@ -0,0 +1,28 @@
+package vn.locdt.excel.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Run the benchmarks with the GC profiler, so that allocation rates are reported next to the throughput.
+ * The arguments are regular expressions selecting the benchmarks to run, all of them are run by default.
+ */
+public final class BenchmarkRunner {
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder options = new OptionsBuilder();
+        if (args.length == 0) {
+            options.include(BenchmarkRunner.class.getPackage().getName() + ".*");
+        }
+        for (String pattern : args) {
+            options.include(pattern);
+        }
+        Options opts = options.addProfiler(GCProfiler.class).build();
+        new Runner(opts).run();
+    }
+}
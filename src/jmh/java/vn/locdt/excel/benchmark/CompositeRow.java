@@ -0,0 +1,46 @@
+package vn.locdt.excel.benchmark;
+
+/**
+ * Entity mapped from individual cells, with a field built from several cells.
+ */
+public class CompositeRow {
+    private Integer id;
+    private Detail detail;
+
+    public Integer getId() {
+        return this.id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public Detail getDetail() {
+        return this.detail;
+    }
+
+    public void setDetail(Detail detail) {
+        this.detail = detail;
+    }
+
+    public static class Detail {
+        private Double amount;
+        private String category;
+
+        public Double getAmount() {
+            return this.amount;
+        }
+
+        public void setAmount(Double amount) {
+            this.amount = amount;
+        }
+
+        public String getCategory() {
+            return this.category;
+        }
+
+        public void setCategory(String category) {
+            this.category = category;
+        }
+    }
+}
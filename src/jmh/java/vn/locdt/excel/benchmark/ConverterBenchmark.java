@@ -0,0 +1,119 @@
+package vn.locdt.excel.benchmark;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import vn.locdt.excel.reader.converter.DefaultCellDataConverter;
+import vn.locdt.excel.reader.exception.CellConverterException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link DefaultCellDataConverter} for each supported type, on cells of a workbook loaded in memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConverterBenchmark {
+    private final DefaultCellDataConverter<Integer> integerConverter = new DefaultCellDataConverter<>(Integer.class);
+    private final DefaultCellDataConverter<Integer> intConverter = new DefaultCellDataConverter<>(int.class);
+    private final DefaultCellDataConverter<Double> doubleConverter = new DefaultCellDataConverter<>(Double.class);
+    private final DefaultCellDataConverter<BigDecimal> bigDecimalConverter = new DefaultCellDataConverter<>(BigDecimal.class);
+    private final DefaultCellDataConverter<String> stringConverter = new DefaultCellDataConverter<>(String.class);
+    private final DefaultCellDataConverter<LocalDate> localDateConverter = new DefaultCellDataConverter<>(LocalDate.class);
+    private final DefaultCellDataConverter<Boolean> booleanConverter = new DefaultCellDataConverter<>(Boolean.class);
+
+    private Workbook wb;
+    private Cell numericCell;
+    private Cell stringCell;
+    private Cell dateCell;
+    private Cell booleanCell;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.wb = new XSSFWorkbook();
+        Row row = this.wb.createSheet().createRow(0);
+        this.numericCell = row.createCell(0);
+        this.numericCell.setCellValue(12345);
+        this.stringCell = row.createCell(1);
+        this.stringCell.setCellValue("category-42");
+        this.dateCell = row.createCell(2);
+        this.dateCell.setCellValue(new Date());
+        CellStyle dateStyle = this.wb.createCellStyle();
+        dateStyle.setDataFormat(this.wb.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+        this.dateCell.setCellStyle(dateStyle);
+        this.booleanCell = row.createCell(3);
+        this.booleanCell.setCellValue(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.wb.close();
+    }
+
+    @Benchmark
+    public Integer convertInteger() throws CellConverterException {
+        return this.integerConverter.convert(this.numericCell);
+    }
+
+    @Benchmark
+    public int convertPrimitiveInt() throws CellConverterException {
+        return this.intConverter.convertToInt(this.numericCell);
+    }
+
+    @Benchmark
+    public Double convertDouble() throws CellConverterException {
+        return this.doubleConverter.convert(this.numericCell);
+    }
+
+    @Benchmark
+    public double convertPrimitiveDouble() throws CellConverterException {
+        return this.doubleConverter.convertToDouble(this.numericCell);
+    }
+
+    @Benchmark
+    public BigDecimal convertBigDecimal() throws CellConverterException {
+        return this.bigDecimalConverter.convert(this.numericCell);
+    }
+
+    @Benchmark
+    public String convertString() throws CellConverterException {
+        return this.stringConverter.convert(this.stringCell);
+    }
+
+    @Benchmark
+    public LocalDate convertLocalDate() throws CellConverterException {
+        return this.localDateConverter.convert(this.dateCell);
+    }
+
+    @Benchmark
+    public Boolean convertBoolean() throws CellConverterException {
+        return this.booleanConverter.convert(this.booleanCell);
+    }
+
+    @Benchmark
+    public Integer convertVarargs() throws CellConverterException {
+        return this.integerConverter.convert(new Cell[]{this.numericCell});
+    }
+}
@@ -0,0 +1,130 @@
+package vn.locdt.excel.benchmark;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import vn.locdt.excel.reader.ExcelReader;
+import vn.locdt.excel.reader.ExcelReaderBuilder;
+import vn.locdt.excel.reader.ReferenceInfo;
+import vn.locdt.excel.reader.exception.CellConverterException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the reading entry points over generated workbooks.
+ * <p>
+ * Workbooks are generated once per trial. The loaded {@link Workbook} is not part of the measurement of the usermodel benchmarks,
+ * while streaming benchmarks measure the whole pass over the file, opening included.
+ * Loading the biggest workbooks in memory needs the large heap given to the forks.
+ * Streaming mode reads {@code .xlsx} files only: run {@code streamRows} with the default format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class ReaderBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    @Param({"xlsx"})
+    private String format;
+
+    @Param({"0.1"})
+    private double formulaDensity;
+
+    @Param({"100"})
+    private int categoryCardinality;
+
+    private Path file;
+    private Workbook wb;
+    private ExcelReader<BenchmarkRow> rowReader;
+    private ExcelReader<CompositeRow> compositeReader;
+    private int rowNum;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.file = Files.createTempFile("excel-reader-benchmark", "." + this.format);
+        WorkbookGenerator generator = new WorkbookGenerator()
+                .rows(this.rows)
+                .formulaDensity(this.formulaDensity)
+                .categoryCardinality(this.categoryCardinality);
+        if ("xls".equals(this.format)) {
+            generator.writeXls(this.file);
+        } else {
+            generator.writeXlsx(this.file);
+        }
+
+        this.wb = WorkbookFactory.create(this.file.toFile(), null, true);
+        this.rowReader = mapRow(ExcelReaderBuilder.mapTo(BenchmarkRow.class).wb(this.wb).sheet(0)).build();
+        this.compositeReader = ExcelReaderBuilder.mapTo(CompositeRow.class)
+                .wb(this.wb)
+                .sheet(0)
+                .mapReference("A2", "id", Integer.class)
+                .mapReference(Arrays.asList(
+                        ReferenceInfo.of("B2", "amount", Double.class),
+                        ReferenceInfo.of("C2", "category", String.class)
+                ), "detail", CompositeRow.Detail.class)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.wb.close();
+        Files.deleteIfExists(this.file);
+    }
+
+    @Benchmark
+    public BenchmarkRow readSingleRow() throws CellConverterException {
+        // walk the rows so that the same cells do not stay in the CPU caches
+        this.rowNum = this.rowNum % this.rows + 1;
+        return this.rowReader.readRow(this.rowNum);
+    }
+
+    @Benchmark
+    public List<BenchmarkRow> readRowRange() throws CellConverterException {
+        return this.rowReader.readRow(1, this.rows);
+    }
+
+    @Benchmark
+    public CompositeRow readComposite() throws CellConverterException {
+        return this.compositeReader.read();
+    }
+
+    @Benchmark
+    public void streamRows(Blackhole blackhole) throws IOException {
+        try (ExcelReader<BenchmarkRow> reader = mapRow(ExcelReaderBuilder.mapTo(BenchmarkRow.class).stream(this.file).sheet(0)).build()) {
+            reader.rows(1, this.rows).forEach(blackhole::consume);
+        }
+    }
+
+    private static ExcelReaderBuilder<BenchmarkRow> mapRow(ExcelReaderBuilder<BenchmarkRow> builder) {
+        return builder
+                .mapReference(WorkbookGenerator.ID_COL, "id", int.class)
+                .mapReference(WorkbookGenerator.AMOUNT_COL, "amount", double.class)
+                .mapReference(WorkbookGenerator.CATEGORY_COL, "category", String.class)
+                .mapReference(WorkbookGenerator.DATE_COL, "date", LocalDate.class)
+                .mapReference(WorkbookGenerator.ACTIVE_COL, "active", boolean.class)
+                .mapReference(WorkbookGenerator.TOTAL_COL, "total", Double.class);
+    }
+}
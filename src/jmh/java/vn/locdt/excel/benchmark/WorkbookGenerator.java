@@ -0,0 +1,164 @@
+package vn.locdt.excel.benchmark;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Calendar;
+import java.util.Random;
+
+/**
+ * Generate synthetic workbooks for the benchmarks.
+ * <p>
+ * The first row is a header, the following rows have the columns:
+ * {@code id} (int), {@code amount} (double), {@code category} (string), {@code date} (date), {@code active} (boolean)
+ * and {@code total} (double, written as the formula {@code amount * 2} for a part of the rows).
+ * Values are drawn from a seeded random, so a given configuration always produces the same file.
+ */
+public final class WorkbookGenerator {
+    public static final int ID_COL = 0;
+    public static final int AMOUNT_COL = 1;
+    public static final int CATEGORY_COL = 2;
+    public static final int DATE_COL = 3;
+    public static final int ACTIVE_COL = 4;
+    public static final int TOTAL_COL = 5;
+
+    private static final String[] HEADERS = {"id", "amount", "category", "date", "active", "total"};
+
+    private int rows = 10_000;
+    private int extraColumns = 0;
+    private double formulaDensity = 0.1;
+    private int categoryCardinality = 100;
+    private long seed = 42;
+
+    /**
+     * @param rows number of data rows, the header row excluded
+     * @return this generator, to allow method chaining
+     */
+    public WorkbookGenerator rows(int rows) {
+        this.rows = rows;
+        return this;
+    }
+
+    /**
+     * @param extraColumns number of numeric columns added after the mapped ones, which the readers have to skip
+     * @return this generator, to allow method chaining
+     */
+    public WorkbookGenerator extraColumns(int extraColumns) {
+        this.extraColumns = extraColumns;
+        return this;
+    }
+
+    /**
+     * @param formulaDensity part of the rows, between 0 and 1, whose {@code total} cell is a formula
+     * @return this generator, to allow method chaining
+     */
+    public WorkbookGenerator formulaDensity(double formulaDensity) {
+        this.formulaDensity = formulaDensity;
+        return this;
+    }
+
+    /**
+     * @param categoryCardinality number of distinct values of the {@code category} column,
+     *                            which is also the number of shared strings used by the data rows
+     * @return this generator, to allow method chaining
+     */
+    public WorkbookGenerator categoryCardinality(int categoryCardinality) {
+        this.categoryCardinality = categoryCardinality;
+        return this;
+    }
+
+    public WorkbookGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Write a {@code .xlsx} workbook. Rows are flushed to disk while written, so big files can be generated with a small heap.
+     *
+     * @param path the file to write
+     * @throws IOException throws if the file can not be written
+     */
+    public void writeXlsx(Path path) throws IOException {
+        SXSSFWorkbook wb = new SXSSFWorkbook(1000);
+        try {
+            this.write(wb, path);
+        } finally {
+            wb.dispose();
+        }
+    }
+
+    /**
+     * Write a {@code .xls} workbook, which is built in memory.
+     *
+     * @param path the file to write
+     * @throws IOException              throws if the file can not be written
+     * @throws IllegalArgumentException throws if the rows do not fit in the 65536 rows of the format
+     */
+    public void writeXls(Path path) throws IOException {
+        if (this.rows + 1 > SpreadsheetVersion.EXCEL97.getMaxRows()) {
+            throw new IllegalArgumentException(String.format("%d rows do not fit in a .xls sheet", this.rows));
+        }
+        try (HSSFWorkbook wb = new HSSFWorkbook()) {
+            this.write(wb, path);
+        }
+    }
+
+    private void write(Workbook wb, Path path) throws IOException {
+        Sheet sheet = wb.createSheet("data");
+        CellStyle dateStyle = wb.createCellStyle();
+        dateStyle.setDataFormat(wb.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+
+        Row header = sheet.createRow(0);
+        for (int col = 0; col < HEADERS.length; col++) {
+            header.createCell(col).setCellValue(HEADERS[col]);
+        }
+        for (int col = 0; col < this.extraColumns; col++) {
+            header.createCell(HEADERS.length + col).setCellValue("extra" + col);
+        }
+
+        // formulas are evaluated while their row is in memory, the results are cached in the file for streaming mode
+        FormulaEvaluator evaluator = wb.getCreationHelper().createFormulaEvaluator();
+        Random random = new Random(this.seed);
+        Calendar calendar = Calendar.getInstance();
+        for (int rowNum = 1; rowNum <= this.rows; rowNum++) {
+            Row row = sheet.createRow(rowNum);
+            double amount = Math.round(random.nextDouble() * 100_000) / 100.0;
+            row.createCell(ID_COL).setCellValue(rowNum);
+            row.createCell(AMOUNT_COL).setCellValue(amount);
+            row.createCell(CATEGORY_COL).setCellValue("category-" + random.nextInt(this.categoryCardinality));
+
+            calendar.clear();
+            calendar.set(2000 + random.nextInt(20), random.nextInt(12), 1 + random.nextInt(28));
+            row.createCell(DATE_COL).setCellValue(calendar.getTime());
+            row.getCell(DATE_COL).setCellStyle(dateStyle);
+
+            row.createCell(ACTIVE_COL).setCellValue(random.nextBoolean());
+            if (random.nextDouble() < this.formulaDensity) {
+                String amountRef = new CellReference(rowNum, AMOUNT_COL).formatAsString();
+                row.createCell(TOTAL_COL).setCellFormula(amountRef + "*2");
+                evaluator.evaluateFormulaCell(row.getCell(TOTAL_COL));
+            } else {
+                row.createCell(TOTAL_COL).setCellValue(amount * 2);
+            }
+
+            for (int col = 0; col < this.extraColumns; col++) {
+                row.createCell(HEADERS.length + col).setCellValue(random.nextInt(1000));
+            }
+        }
+
+        try (OutputStream out = Files.newOutputStream(path)) {
+            wb.write(out);
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package vn.locdt.excel.reader;
+
+import org.apache.commons.lang3.ClassUtils;
+import org.apache.poi.ss.usermodel.Cell;
+import vn.locdt.excel.reader.MappingPlan.FieldSlot;
+import vn.locdt.excel.reader.converter.CellDataConverter;
+import vn.locdt.excel.reader.converter.DoubleCellDataConverter;
+import vn.locdt.excel.reader.converter.IntCellDataConverter;
+import vn.locdt.excel.reader.converter.LongCellDataConverter;
+import vn.locdt.excel.reader.exception.CellConverterException;
+import vn.locdt.excel.reader.exception.ExcelMappingException;
+import vn.locdt.excel.utils.ExcelUtils;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Columnar result of {@link ExcelReader#readColumns(int, int)}: the values of each mapped field are stored in one array,
+ * indexed by the position of the row in the batch, instead of one entity per row.
+ * <ul>
+ * <li>{@code int}/{@code Integer} fields are read into {@code int[]}</li>
+ * <li>{@code long}/{@code Long} fields are read into {@code long[]}</li>
+ * <li>{@code double}/{@code Double}/{@code float}/{@code Float} fields are read into {@code double[]}</li>
+ * <li>{@code String} fields are dictionary encoded: an {@code int[]} of codes indexing an array of distinct values</li>
+ * </ul>
+ * Blank cells are marked in the null bitmap of their column, their slot in the value array is left to 0.
+ */
+public final class ColumnBatch {
+    private final int size;
+    private final Map<String, Column> columns;
+
+    private ColumnBatch(int size, Map<String, Column> columns) {
+        this.size = size;
+        this.columns = columns;
+    }
+
+    /**
+     * @return number of rows in the batch
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return names of the mapped fields, in declaration order
+     */
+    public Set<String> getFieldNames() {
+        return Collections.unmodifiableSet(this.columns.keySet());
+    }
+
+    /**
+     * @param fieldName name of a field mapped to an {@code int} or {@code Integer}
+     * @return values of the column, of length {@link ColumnBatch#size()}
+     * @throws IllegalArgumentException throws if the field is not mapped or is not an int column
+     */
+    public int[] getInts(String fieldName) {
+        return (int[]) this.getColumn(fieldName, ColumnType.INT).values;
+    }
+
+    /**
+     * @param fieldName name of a field mapped to a {@code long} or {@code Long}
+     * @return values of the column, of length {@link ColumnBatch#size()}
+     * @throws IllegalArgumentException throws if the field is not mapped or is not a long column
+     */
+    public long[] getLongs(String fieldName) {
+        return (long[]) this.getColumn(fieldName, ColumnType.LONG).values;
+    }
+
+    /**
+     * @param fieldName name of a field mapped to a {@code double}, {@code float} or their wrappers
+     * @return values of the column, of length {@link ColumnBatch#size()}
+     * @throws IllegalArgumentException throws if the field is not mapped or is not a double column
+     */
+    public double[] getDoubles(String fieldName) {
+        return (double[]) this.getColumn(fieldName, ColumnType.DOUBLE).values;
+    }
+
+    /**
+     * @param fieldName name of a field mapped to a {@code String}
+     * @return dictionary codes of the column, of length {@link ColumnBatch#size()}, -1 for blank cells
+     * @throws IllegalArgumentException throws if the field is not mapped or is not a string column
+     */
+    public int[] getStringCodes(String fieldName) {
+        return (int[]) this.getColumn(fieldName, ColumnType.STRING).values;
+    }
+
+    /**
+     * @param fieldName name of a field mapped to a {@code String}
+     * @return distinct values of the column, indexed by {@link ColumnBatch#getStringCodes(String)}
+     * @throws IllegalArgumentException throws if the field is not mapped or is not a string column
+     */
+    public String[] getDictionary(String fieldName) {
+        return this.getColumn(fieldName, ColumnType.STRING).dictionary;
+    }
+
+    /**
+     * Decode one value of a string column.
+     *
+     * @param fieldName name of a field mapped to a {@code String}
+     * @param index     position of the row in the batch
+     * @return the value, null for blank cells
+     * @throws IllegalArgumentException throws if the field is not mapped or is not a string column
+     */
+    public String getString(String fieldName, int index) {
+        Column column = this.getColumn(fieldName, ColumnType.STRING);
+        int code = ((int[]) column.values)[index];
+        return code < 0 ? null : column.dictionary[code];
+    }
+
+    /**
+     * @param fieldName name of a mapped field
+     * @return bitmap of the blank cells of the column, indexed by position of the row in the batch
+     * @throws IllegalArgumentException throws if the field is not mapped
+     */
+    public BitSet getNulls(String fieldName) {
+        return this.getColumn(fieldName, null).nulls;
+    }
+
+    /**
+     * @param fieldName name of a mapped field
+     * @param index     position of the row in the batch
+     * @return true if the cell is blank
+     * @throws IllegalArgumentException throws if the field is not mapped
+     */
+    public boolean isNull(String fieldName, int index) {
+        return this.getColumn(fieldName, null).nulls.get(index);
+    }
+
+    private Column getColumn(String fieldName, ColumnType expectedType) {
+        Column column = this.columns.get(fieldName);
+        if (column == null) {
+            throw new IllegalArgumentException("Field '" + fieldName + "' is not mapped");
+        }
+        if (expectedType != null && column.type != expectedType) {
+            throw new IllegalArgumentException(String.format("Field '%s' is a %s column, not %s", fieldName, column.type, expectedType));
+        }
+        return column;
+    }
+
+    private enum ColumnType {
+        INT, LONG, DOUBLE, STRING
+    }
+
+    private static final class Column {
+        private final ColumnType type;
+        private final Object values;
+        private final String[] dictionary;
+        private final BitSet nulls;
+
+        private Column(ColumnType type, Object values, String[] dictionary, BitSet nulls) {
+            this.type = type;
+            this.values = values;
+            this.dictionary = dictionary;
+            this.nulls = nulls;
+        }
+    }
+
+    /**
+     * Accumulate the converted cells of a range of rows into growing arrays, one column per slot of the mapping plan.
+     */
+    static final class Builder {
+        private static final int INITIAL_CAPACITY = 64;
+
+        private final FieldSlot[] slots;
+        private final ColumnBuilder[] builders;
+        private int size;
+
+        /**
+         * @param slots compiled slots of a plan with column references
+         * @throws ExcelMappingException throws if a field can not be stored in a column
+         */
+        Builder(FieldSlot[] slots) {
+            this.slots = slots;
+            this.builders = new ColumnBuilder[slots.length];
+            for (int i = 0; i < slots.length; i++) {
+                this.builders[i] = createColumnBuilder(slots[i]);
+            }
+        }
+
+        /**
+         * Convert and store a cell of the current row.
+         *
+         * @param slotIndex index of the slot of the cell
+         * @param cell      the cell, may be null
+         * @throws CellConverterException throws if the value of the cell can not be converted
+         */
+        void append(int slotIndex, Cell cell) throws CellConverterException {
+            ColumnBuilder builder = this.builders[slotIndex];
+            builder.ensureCapacity(this.size + 1);
+            if (ExcelUtils.isBlank(cell)) {
+                builder.nulls.set(this.size);
+                builder.setNull(this.size);
+            } else {
+                builder.set(this.size, cell);
+            }
+        }
+
+        /**
+         * Store a null value for a cell of the current row which could not be converted.
+         *
+         * @param slotIndex index of the slot of the cell
+         */
+        void appendNull(int slotIndex) {
+            ColumnBuilder builder = this.builders[slotIndex];
+            builder.ensureCapacity(this.size + 1);
+            builder.nulls.set(this.size);
+            builder.setNull(this.size);
+        }
+
+        /**
+         * Complete the current row, all slots must have been appended.
+         */
+        void endRow() {
+            this.size++;
+        }
+
+        ColumnBatch build() {
+            Map<String, Column> columns = new LinkedHashMap<>();
+            for (int i = 0; i < this.slots.length; i++) {
+                columns.put(this.slots[i].getFieldName(), this.builders[i].build(this.size));
+            }
+            return new ColumnBatch(this.size, columns);
+        }
+
+        private static ColumnBuilder createColumnBuilder(FieldSlot slot) {
+            CellDataConverter<?> converter = slot.getConverter();
+            Class<?> type = ClassUtils.primitiveToWrapper(converter.getConvertedType());
+            if (slot.getColumns().length == 1) {
+                if (Integer.class.equals(type)) {
+                    return new IntColumnBuilder(converter);
+                } else if (Long.class.equals(type)) {
+                    return new LongColumnBuilder(converter);
+                } else if (Double.class.equals(type) || Float.class.equals(type)) {
+                    return new DoubleColumnBuilder(converter);
+                } else if (String.class.equals(type)) {
+                    return new StringColumnBuilder(converter);
+                }
+            }
+
+            String mes = "Field '%s' of type %s can not be read as a column: only single cell int, long, double and String fields are supported";
+            throw new ExcelMappingException(String.format(mes, slot.getFieldName(), type.getSimpleName()));
+        }
+    }
+
+    private abstract static class ColumnBuilder {
+        final CellDataConverter<?> converter;
+        final BitSet nulls = new BitSet();
+        int capacity;
+
+        ColumnBuilder(CellDataConverter<?> converter) {
+            this.converter = converter;
+        }
+
+        void ensureCapacity(int minCapacity) {
+            if (minCapacity > this.capacity) {
+                this.capacity = Math.max(minCapacity, this.capacity == 0 ? Builder.INITIAL_CAPACITY : this.capacity * 2);
+                this.grow(this.capacity);
+            }
+        }
+
+        void setNull(int index) {
+        }
+
+        abstract void grow(int newCapacity);
+
+        abstract void set(int index, Cell cell) throws CellConverterException;
+
+        abstract Column build(int size);
+    }
+
+    private static final class IntColumnBuilder extends ColumnBuilder {
+        private int[] values = new int[0];
+
+        IntColumnBuilder(CellDataConverter<?> converter) {
+            super(converter);
+        }
+
+        @Override
+        void grow(int newCapacity) {
+            this.values = Arrays.copyOf(this.values, newCapacity);
+        }
+
+        @Override
+        void set(int index, Cell cell) throws CellConverterException {
+            if (this.converter instanceof IntCellDataConverter) {
+                this.values[index] = ((IntCellDataConverter) this.converter).convertToInt(cell);
+            } else {
+                Object value = this.converter.convert(cell);
+                if (value != null) {
+                    this.values[index] = ((Number) value).intValue();
+                } else {
+                    this.nulls.set(index);
+                }
+            }
+        }
+
+        @Override
+        Column build(int size) {
+            return new Column(ColumnType.INT, Arrays.copyOf(this.values, size), null, this.nulls);
+        }
+    }
+
+    private static final class LongColumnBuilder extends ColumnBuilder {
+        private long[] values = new long[0];
+
+        LongColumnBuilder(CellDataConverter<?> converter) {
+            super(converter);
+        }
+
+        @Override
+        void grow(int newCapacity) {
+            this.values = Arrays.copyOf(this.values, newCapacity);
+        }
+
+        @Override
+        void set(int index, Cell cell) throws CellConverterException {
+            if (this.converter instanceof LongCellDataConverter) {
+                this.values[index] = ((LongCellDataConverter) this.converter).convertToLong(cell);
+            } else {
+                Object value = this.converter.convert(cell);
+                if (value != null) {
+                    this.values[index] = ((Number) value).longValue();
+                } else {
+                    this.nulls.set(index);
+                }
+            }
+        }
+
+        @Override
+        Column build(int size) {
+            return new Column(ColumnType.LONG, Arrays.copyOf(this.values, size), null, this.nulls);
+        }
+    }
+
+    private static final class DoubleColumnBuilder extends ColumnBuilder {
+        private double[] values = new double[0];
+
+        DoubleColumnBuilder(CellDataConverter<?> converter) {
+            super(converter);
+        }
+
+        @Override
+        void grow(int newCapacity) {
+            this.values = Arrays.copyOf(this.values, newCapacity);
+        }
+
+        @Override
+        void set(int index, Cell cell) throws CellConverterException {
+            if (this.converter instanceof DoubleCellDataConverter) {
+                this.values[index] = ((DoubleCellDataConverter) this.converter).convertToDouble(cell);
+            } else {
+                Object value = this.converter.convert(cell);
+                if (value != null) {
+                    this.values[index] = ((Number) value).doubleValue();
+                } else {
+                    this.nulls.set(index);
+                }
+            }
+        }
+
+        @Override
+        Column build(int size) {
+            return new Column(ColumnType.DOUBLE, Arrays.copyOf(this.values, size), null, this.nulls);
+        }
+    }
+
+    private static final class StringColumnBuilder extends ColumnBuilder {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private int[] values = new int[0];
+
+        StringColumnBuilder(CellDataConverter<?> converter) {
+            super(converter);
+        }
+
+        @Override
+        void grow(int newCapacity) {
+            this.values = Arrays.copyOf(this.values, newCapacity);
+        }
+
+        @Override
+        void setNull(int index) {
+            this.values[index] = -1;
+        }
+
+        @Override
+        void set(int index, Cell cell) throws CellConverterException {
+            Object value = this.converter.convert(cell);
+            if (value == null) {
+                this.nulls.set(index);
+                this.values[index] = -1;
+                return;
+            }
+
+            Integer code = this.codes.get(value);
+            if (code == null) {
+                code = this.codes.size();
+                this.codes.put((String) value, code);
+            }
+            this.values[index] = code;
+        }
+
+        @Override
+        Column build(int size) {
+            String[] dictionary = new String[this.codes.size()];
+            this.codes.forEach((value, code) -> dictionary[code] = value);
+            return new Column(ColumnType.STRING, Arrays.copyOf(this.values, size), dictionary, this.nulls);
+        }
+    }
+}
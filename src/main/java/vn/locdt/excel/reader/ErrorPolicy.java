@@ -0,0 +1,65 @@
+package vn.locdt.excel.reader;
+
+import org.apache.poi.ss.usermodel.Cell;
+import vn.locdt.excel.reader.exception.CellConverterException;
+import vn.locdt.excel.reader.exception.ExcelReadException;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * How a reader handles conversion failures: thrown (strict, the default) or recorded into an error sink (lenient).
+ * A lenient policy counts the errors of all the reads of its reader and stops reading above its limit.
+ */
+final class ErrorPolicy {
+    private final Consumer<ReadError> errorSink;
+    private final int maxErrors;
+    private final AtomicInteger errorCount = new AtomicInteger();
+
+    private ErrorPolicy(Consumer<ReadError> errorSink, int maxErrors) {
+        this.errorSink = errorSink;
+        this.maxErrors = maxErrors;
+    }
+
+    static ErrorPolicy strict() {
+        return new ErrorPolicy(null, 0);
+    }
+
+    static ErrorPolicy lenient(Consumer<ReadError> errorSink, int maxErrors) {
+        return new ErrorPolicy(errorSink, maxErrors);
+    }
+
+    boolean isLenient() {
+        return this.errorSink != null;
+    }
+
+    /**
+     * Record a conversion failure of a field, decorated with its entity class and field name.
+     *
+     * @param e the failure
+     * @throws ExcelReadException throws if the number of errors exceeds the limit
+     */
+    void report(CellConverterException e) {
+        int count = this.errorCount.incrementAndGet();
+        if (count > this.maxErrors) {
+            throw new ExcelReadException(String.format("Too many conversion errors, reading stopped after %d errors", this.maxErrors), e);
+        }
+
+        List<Cell> cells = e.getCells();
+        Cell cell = cells.isEmpty() ? null : cells.get(0);
+        List<Object> rawValues = e.getCellValues();
+        ReadError error = new ReadError(
+                cell != null ? cell.getRowIndex() : -1,
+                cell != null ? cell.getColumnIndex() : -1,
+                e.getFieldName(),
+                rawValues.size() == 1 ? rawValues.get(0) : rawValues,
+                e.getFieldType(),
+                e.getCause() != null ? e.getCause().getMessage() : null);
+
+        // sinks may not be thread-safe, pipelined and multi-sheet readers report from several threads
+        synchronized (this) {
+            this.errorSink.accept(error);
+        }
+    }
+}
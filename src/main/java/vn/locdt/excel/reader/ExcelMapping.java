@@ -0,0 +1,247 @@
+package vn.locdt.excel.reader;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import vn.locdt.excel.reader.converter.ConverterRegistry;
+import vn.locdt.excel.reader.exception.ExcelMappingException;
+import vn.locdt.excel.reader.stream.SheetRowIterator;
+import vn.locdt.excel.reader.stream.SnapshotCache;
+import vn.locdt.excel.reader.stream.StreamingWorkbook;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Immutable mapping of an entity class, built once by {@link ExcelReaderBuilder#buildMapping()} and bound to a sheet per read:
+ * {@code mapping.on(sheet).readRow(...)}. Fields, references and converters are resolved when the mapping is built,
+ * so binding it does not scan the entity class again. A mapping can be cached and shared between threads,
+ * each thread binding its own reader.
+ * <p>
+ * Mappings by header are resolved against the header row of each bound sheet.
+ *
+ * @param <E> type of entity
+ */
+public final class ExcelMapping<E> {
+    private final Class<E> clazz;
+    private final List<FieldInfo<?>> fieldInfos;
+    private final int headerRow;
+    private final int stringCacheSize;
+    private final Set<String> canonicalizedFields;
+    private final boolean generateRowMapper;
+    private final boolean byConstructor;
+    private final FormulaEvaluation formulaEvaluation;
+    private final Consumer<ReadError> errorSink;
+    private final int maxErrors;
+    private final ReadListener listener;
+    // null when fields are mapped by header, the plan then depends on the sheet
+    private final MappingPlan plan;
+
+    // copy the mapping declared in the builder, which may still be modified afterwards
+    ExcelMapping(ExcelReaderBuilder<E> builder) {
+        Validate.notNull(builder.getClazz(), "Entity class must be not null");
+        Validate.notEmpty(builder.getFieldInfos(), "Mapped fields must be not empty");
+
+        this.clazz = builder.getClazz();
+        this.fieldInfos = Collections.unmodifiableList(resolveConverters(builder.getFieldInfos(), builder.getConverters()));
+        this.headerRow = builder.getHeaderRow();
+        this.stringCacheSize = builder.getStringCacheSize();
+        this.canonicalizedFields = Collections.unmodifiableSet(new HashSet<>(builder.getCanonicalizedFields()));
+        this.generateRowMapper = builder.isGenerateRowMapper();
+        this.byConstructor = builder.isByConstructor();
+        this.formulaEvaluation = builder.getFormulaEvaluation();
+        this.errorSink = builder.getErrorSink();
+        this.maxErrors = builder.getMaxErrors();
+        this.listener = builder.getListener();
+        this.plan = HeaderIndex.hasHeaderMapping(this.fieldInfos) ? null : this.compilePlan(null, null, -1);
+    }
+
+    // converters are resolved once per field, readers bound to the mapping share them
+    private static List<FieldInfo<?>> resolveConverters(List<FieldInfo<?>> fieldInfos, ConverterRegistry converters) {
+        List<FieldInfo<?>> resolved = new ArrayList<>(fieldInfos.size());
+        for (FieldInfo<?> fieldInfo : fieldInfos) {
+            resolved.add(fieldInfo.resolveConverter(converters));
+        }
+        return resolved;
+    }
+
+    /**
+     * Bind the mapping to a loaded sheet.
+     *
+     * @param sheet the mapped sheet
+     * @return a reader of the sheet, not thread-safe
+     * @throws ExcelMappingException throws if mapped headers can not be found in the sheet
+     */
+    public ExcelReader<E> on(Sheet sheet) {
+        Validate.notNull(sheet, "Sheet must be not null");
+        return this.reader(sheet, null, -1, 0);
+    }
+
+    /**
+     * Bind the mapping to the first non-hidden sheet of a loaded workbook.
+     *
+     * @param wb the mapped workbook
+     * @return a reader of the sheet, not thread-safe
+     * @throws ExcelMappingException throws if mapped headers can not be found in the sheet
+     */
+    public ExcelReader<E> on(Workbook wb) {
+        Validate.notNull(wb, "Workbook must be not null");
+        return this.on(wb.getSheetAt(firstVisibleSheet(wb.getNumberOfSheets(), wb::isSheetHidden)));
+    }
+
+    /**
+     * Bind the mapping to the first non-hidden sheet of an excel file read in streaming mode,
+     * see {@link ExcelReaderBuilder#stream(Path)}.
+     *
+     * @param path the excel file
+     * @return a reader of the sheet, which owns the opened file and must be closed after use
+     * @throws IOException           throws if the file can not be opened
+     * @throws ExcelMappingException throws if mapped headers can not be found in the sheet
+     */
+    public ExcelReader<E> stream(Path path) throws IOException {
+        Validate.notNull(path, "Path must be not null");
+        long start = System.nanoTime();
+        return this.stream(StreamingWorkbook.open(path), System.nanoTime() - start);
+    }
+
+    /**
+     * Like {@link ExcelMapping#stream(Path)} but reads the sheets from the snapshots of a cache when the same content
+     * was read before, see {@link ExcelReaderBuilder#stream(Path, SnapshotCache)}.
+     *
+     * @param path  the excel file
+     * @param cache the snapshot cache
+     * @return a reader of the sheet, which owns the opened file and must be closed after use
+     * @throws IOException           throws if the file can not be hashed or opened
+     * @throws ExcelMappingException throws if mapped headers can not be found in the sheet
+     */
+    public ExcelReader<E> stream(Path path, SnapshotCache cache) throws IOException {
+        Validate.notNull(path, "Path must be not null");
+        Validate.notNull(cache, "Snapshot cache must be not null");
+        long start = System.nanoTime();
+        return this.stream(cache.open(path), System.nanoTime() - start);
+    }
+
+    /**
+     * Like {@link ExcelMapping#stream(Path)} but reads the excel content from a stream,
+     * spooled to a temporary file which is deleted when the reader is closed.
+     *
+     * @param in the excel content, not closed by this method
+     * @return a reader of the sheet, which owns the opened file and must be closed after use
+     * @throws IOException           throws if the content can not be spooled or opened
+     * @throws ExcelMappingException throws if mapped headers can not be found in the sheet
+     */
+    public ExcelReader<E> stream(InputStream in) throws IOException {
+        Validate.notNull(in, "InputStream must be not null");
+        long start = System.nanoTime();
+        return this.stream(StreamingWorkbook.open(in), System.nanoTime() - start);
+    }
+
+    public Class<E> getMappedClass() {
+        return this.clazz;
+    }
+
+    // the opened workbook is closed if the reader can not be created
+    private ExcelReader<E> stream(StreamingWorkbook streamingWb, long openNanos) throws IOException {
+        try {
+            return this.reader(null, streamingWb, firstVisibleSheet(streamingWb.getNumberOfSheets(), streamingWb::isSheetHidden), openNanos);
+        } catch (RuntimeException e) {
+            streamingWb.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Create a reader of a loaded sheet, or of the sheet at sheetIndex of a streaming workbook.
+     *
+     * @param sheet       the loaded sheet, or null in streaming mode
+     * @param streamingWb the streaming workbook, or null for a loaded sheet
+     * @param sheetIndex  the sheet's index in the streaming workbook
+     * @param openNanos   time spent opening the streaming workbook, reported to the listener
+     * @return the reader
+     */
+    ExcelReader<E> reader(Sheet sheet, StreamingWorkbook streamingWb, int sheetIndex, long openNanos) {
+        if (streamingWb != null) {
+            Validate.isTrue(this.formulaEvaluation == null || this.formulaEvaluation == FormulaEvaluation.CACHED,
+                    "Streaming mode only reads cached formula results");
+            Validate.isTrue(sheetIndex >= 0 && sheetIndex < streamingWb.getNumberOfSheets(), "Sheet index (%d) is out of range", sheetIndex);
+            if (this.listener != null) {
+                this.listener.onWorkbookOpened(openNanos);
+            }
+        }
+        return new ExcelReader<>(this.clazz, this.compilePlan(sheet, streamingWb, sheetIndex), sheet, streamingWb, sheetIndex,
+                this.getFormulaEvaluation(), this.newErrorPolicy(), this.listener);
+    }
+
+    /**
+     * Compile the mapping for a sheet, reading its header row first if fields are mapped by header.
+     *
+     * @param sheet       the loaded sheet, or null in streaming mode
+     * @param streamingWb the streaming workbook, or null for a loaded sheet
+     * @param sheetIndex  the sheet's index in the streaming workbook
+     * @return the compiled plan
+     * @throws ExcelMappingException throws if a mapped field does not exist, references do not match the declared attributes
+     *                               or mapped headers can not be found
+     */
+    MappingPlan compilePlan(Sheet sheet, StreamingWorkbook streamingWb, int sheetIndex) {
+        if (this.plan != null) {
+            return this.plan;
+        }
+
+        List<FieldInfo<?>> resolvedFieldInfos = this.fieldInfos;
+        if (HeaderIndex.hasHeaderMapping(this.fieldInfos)) {
+            Row row = sheet != null ? sheet.getRow(this.headerRow) : readRow(streamingWb, sheetIndex, this.headerRow);
+            resolvedFieldInfos = HeaderIndex.of(this.headerRow, row).resolve(this.fieldInfos);
+        }
+        MappingPlan compiled = MappingPlan.compile(this.clazz, resolvedFieldInfos, this.stringCacheSize, this.canonicalizedFields,
+                this.byConstructor);
+        return this.generateRowMapper ? compiled.withGeneratedRowMapper(this.clazz) : compiled;
+    }
+
+    FormulaEvaluation getFormulaEvaluation() {
+        return this.formulaEvaluation != null ? this.formulaEvaluation : FormulaEvaluation.LAZY;
+    }
+
+    // a new policy per reader, so that errors are counted per reader
+    ErrorPolicy newErrorPolicy() {
+        return this.errorSink != null ? ErrorPolicy.lenient(this.errorSink, this.maxErrors) : ErrorPolicy.strict();
+    }
+
+    ReadListener getListener() {
+        return this.listener;
+    }
+
+    /**
+     * @param numberOfSheets number of sheets of the workbook
+     * @param hidden         visibility of the sheets by index
+     * @return index of the first non-hidden sheet
+     */
+    static int firstVisibleSheet(int numberOfSheets, IntPredicate hidden) {
+        int sheetIndex = 0;
+        while (sheetIndex < numberOfSheets - 1 && hidden.test(sheetIndex)) {
+            sheetIndex++;
+        }
+        return sheetIndex;
+    }
+
+    // read a single row of a streamed sheet, stopping the parse there
+    private static Row readRow(StreamingWorkbook streamingWb, int sheetIndex, int rowNum) {
+        try (SheetRowIterator rows = streamingWb.openRows(sheetIndex)) {
+            while (rows.hasNext()) {
+                Row row = rows.next();
+                if (row.getRowNum() >= rowNum) {
+                    return row.getRowNum() == rowNum ? row : null;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -1,47 +1,112 @@
 package vn.locdt.excel.reader;
 
+import org.apache.commons.lang3.Validate;
 import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.util.CellReference;
+import vn.locdt.excel.reader.MappingPlan.FieldSlot;
+import vn.locdt.excel.reader.MappingPlan.SlotKind;
+import vn.locdt.excel.reader.converter.BooleanCellDataConverter;
 import vn.locdt.excel.reader.converter.CellDataConverter;
+import vn.locdt.excel.reader.converter.DoubleCellDataConverter;
+import vn.locdt.excel.reader.converter.IntCellDataConverter;
+import vn.locdt.excel.reader.converter.LongCellDataConverter;
 import vn.locdt.excel.reader.exception.CellConverterException;
 import vn.locdt.excel.reader.exception.ExcelMappingException;
+import vn.locdt.excel.reader.exception.ExcelReadException;
+import vn.locdt.excel.reader.exception.UncheckedCellConverterException;
+import vn.locdt.excel.reader.stream.RowCheckpoint;
+import vn.locdt.excel.reader.stream.RowIndex;
+import vn.locdt.excel.reader.stream.SheetRowIterator;
+import vn.locdt.excel.reader.stream.StreamingWorkbook;
+import vn.locdt.excel.utils.ExcelUtils;
 import vn.locdt.excel.utils.ReflectionUtils;
 
-import java.lang.reflect.Field;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
- * Utility class that allow reading, mapping and converting data in excel file to java object
+ * Utility class that allow reading, mapping and converting data in excel file to java object.
+ * A reader built in streaming mode owns the opened file and must be closed after use.
  *
  * @param <E>
  */
-public class ExcelReader<E> {
+public class ExcelReader<E> implements Closeable {
+    private static final IntFunction<Row> NO_ROW = rowNum -> null;
+    // rows per task handed to the workers, and tasks buffered ahead of the consumer in pipelined reading
+    private static final int PIPELINE_CHUNK_SIZE = 256;
+    private static final int PIPELINE_CAPACITY = 16;
+
     private Class<E> clazz;
-    private Map<String, Field> mapOfNameAndFields;
+    private Supplier<E> instantiator;
+    private MappingPlan plan;
     private Sheet sheet;
-    private List<FieldInfo<?>> fieldInfos;
+    private StreamingWorkbook streamingWb;
+    private int sheetIndex;
+    private FormulaEvaluator evaluator;
+    private ErrorPolicy errorPolicy;
+    private ReadListener listener;
+    // reused by the rows mapped on the caller's thread when entities are created by constructor, null otherwise
+    private Object[] arguments;
+    // canonicalizers of the String fields, indexed like the slots of the plan, shared by the workers of this reader only
+    private final StringCanonicalizer[] canonicalizers;
+    // in streaming mode: index of the sheet, and position after the last row returned by a sequential read
+    private RowIndex rowIndex;
+    private int resumeRow = -1;
+    private int resumeSeekRow = -1;
+    private long resumeOffset = -1;
+
+    // read a loaded sheet if not null, otherwise the sheet at sheetIndex of the streaming workbook; listener may be null
+    ExcelReader(Class<E> clazz, MappingPlan plan, Sheet sheet, StreamingWorkbook streamingWb, int sheetIndex,
+                FormulaEvaluation formulaEvaluation, ErrorPolicy errorPolicy, ReadListener listener) {
+        this.clazz = clazz;
+        this.errorPolicy = errorPolicy;
+        this.listener = listener;
+        this.instantiator = ReflectionUtils.getInstantiator(this.clazz);
+        this.plan = plan;
+        this.arguments = plan.isConstructorMapping() ? plan.newArguments() : null;
+        this.canonicalizers = plan.newCanonicalizers();
+        this.sheet = sheet;
+        this.streamingWb = streamingWb;
+        this.sheetIndex = sheetIndex;
 
-    ExcelReader(ExcelReaderBuilder<E> builder) {
-        this.clazz = builder.getClazz();
-        this.mapOfNameAndFields = ReflectionUtils.getMapOfFieldNameAndField(this.clazz);
-        this.sheet = builder.getSheet();
-        this.fieldInfos = builder.getFieldInfos();
+        if (this.sheet != null && formulaEvaluation != FormulaEvaluation.CACHED) {
+            FormulaEvaluator formulaEvaluator = this.sheet.getWorkbook().getCreationHelper().createFormulaEvaluator();
+            if (formulaEvaluation == FormulaEvaluation.EAGER) {
+                // refresh all cached results once, cells are then read like with the CACHED policy
+                formulaEvaluator.evaluateAll();
+            } else {
+                this.evaluator = formulaEvaluator;
+            }
+        }
     }
 
     /**
      * Map a row to an entity. This method requires to declare COLUMN references in reader.
      *
      * @param rowNum row number need to map
-     * @return mapped entity
+     * @return mapped entity, null in lenient mode if the row has conversion errors
      * @throws ExcelMappingException  throws if reading cell's value process has errors
      * @throws CellConverterException throw after reading cell process, if converting process has errors
      */
     public E readRow(int rowNum) throws CellConverterException {
-        if (!this.isColumnReference()) {
+        if (!this.plan.isColumnReference()) {
             throw new ExcelMappingException("Mapping entity with row requires column reference");
         }
 
@@ -53,20 +118,233 @@ public class ExcelReader<E> {
      *
      * @param fromRow start row to map
      * @param toRow   end row to map
-     * @return list of mapped entities
+     * @return list of mapped entities, without the rows having conversion errors in lenient mode
      * @throws ExcelMappingException  throws if reading cell's value process has errors
      * @throws CellConverterException throw after reading cell process, if converting process has errors
      */
     public List<E> readRow(int fromRow, int toRow) throws CellConverterException {
         List<E> entities = new ArrayList<>();
-        if (!this.isColumnReference()) {
+        try (RowIterator rows = this.rowIterator(fromRow, toRow, false)) {
+            while (rows.hasNext()) {
+                entities.add(rows.next());
+            }
+        } catch (UncheckedCellConverterException e) {
+            throw e.getCause();
+        }
+        return entities;
+    }
+
+    /**
+     * Map the rows from fromRow until the end of the data, without knowing the last row: the rows physically present
+     * in the sheet are read until the stop condition is met or the last row is reached. Absent rows and rows whose mapped cells
+     * are all blank are skipped, no entity is created for them. The result is pre-sized from the dimension of the sheet.
+     * This method requires to declare COLUMN references in reader.
+     *
+     * @param fromRow       start row to map
+     * @param stopCondition end of the data, see {@link StopCondition#blankRows(int)} and {@link StopCondition#sentinel(int, String)}
+     * @return list of mapped entities, without the rows having conversion errors in lenient mode
+     * @throws ExcelMappingException  throws if reading cell's value process has errors
+     * @throws CellConverterException throw after reading cell process, if converting process has errors
+     */
+    public List<E> readToEnd(int fromRow, StopCondition stopCondition) throws CellConverterException {
+        if (!this.plan.isColumnReference()) {
             throw new ExcelMappingException("Mapping entity with row requires column reference");
         }
+        Validate.notNull(stopCondition, "Stop condition must be not null");
 
-        for (int rowNum = fromRow; rowNum <= toRow; rowNum++) {
-            entities.add(this.readRow(null, rowNum));
+        if (this.streamingWb == null) {
+            int expectedRows = Math.min(this.sheet.getPhysicalNumberOfRows(), this.sheet.getLastRowNum() - fromRow + 1);
+            return this.readToEnd(this.sheet.rowIterator(), fromRow, stopCondition, () -> expectedRows);
         }
-        return entities;
+
+        SheetRowIterator rows = this.openRows(fromRow);
+        try {
+            return this.readToEnd(rows, fromRow, stopCondition, () -> rows.getDimensionLastRow() - fromRow + 1);
+        } finally {
+            this.closeRows(rows);
+        }
+    }
+
+    /**
+     * Read a range of rows into columns instead of entities: each mapped field is read into one primitive
+     * or dictionary encoded array, see {@link ColumnBatch}. No entity is created.
+     * This method requires to declare COLUMN references in reader, of int, long, double or String fields.
+     *
+     * @param fromRow start row to read
+     * @param toRow   end row to read
+     * @return the columns of the rows, rows absent from the sheet are read as blank cells
+     * @throws ExcelMappingException  throws if a mapped field can not be read as a column
+     * @throws CellConverterException throw after reading cell process, if converting process has errors
+     */
+    public ColumnBatch readColumns(int fromRow, int toRow) throws CellConverterException {
+        return this.readColumns(this.rowIterator(fromRow, toRow, false));
+    }
+
+    /**
+     * Like {@link ExcelReader#readColumns(int, int)} but this method reads all rows of the sheet,
+     * from the first row to the last row.
+     *
+     * @return the columns of the rows
+     * @throws ExcelMappingException  throws if a mapped field can not be read as a column
+     * @throws CellConverterException throw after reading cell process, if converting process has errors
+     */
+    public ColumnBatch readColumns() throws CellConverterException {
+        return this.readColumns(this.rowIterator(0, Integer.MAX_VALUE, true));
+    }
+
+    /**
+     * Lazily map all rows of the sheet, from the first row to the last row.
+     * Each row is read and mapped only when the stream consumes it, so short-circuiting operations like
+     * {@code limit} or {@code findFirst} stop reading the sheet.
+     * In streaming mode the stream holds the sheet open: close it when it is not fully consumed.
+     * This method requires to declare COLUMN references in reader.
+     *
+     * @return stream of mapped entities
+     * @throws ExcelMappingException            throws if reading cell's value process has errors
+     * @throws UncheckedCellConverterException throws while consuming the stream, if converting process has errors
+     */
+    public Stream<E> rows() {
+        return this.stream(this.rowIterator(0, Integer.MAX_VALUE, true));
+    }
+
+    /**
+     * Like {@link ExcelReader#rows()} but this method maps a range of rows, like {@link ExcelReader#readRow(int, int)}.
+     *
+     * @param fromRow start row to map
+     * @param toRow   end row to map
+     * @return stream of mapped entities
+     * @throws ExcelMappingException            throws if reading cell's value process has errors
+     * @throws UncheckedCellConverterException throws while consuming the stream, if converting process has errors
+     */
+    public Stream<E> rows(int fromRow, int toRow) {
+        return this.stream(this.rowIterator(fromRow, toRow, false));
+    }
+
+    /**
+     * Iterator version of {@link ExcelReader#rows()}. In streaming mode, the sheet is released
+     * when the iterator is exhausted or when the reader is closed.
+     *
+     * @return iterator over mapped entities
+     * @throws ExcelMappingException            throws if reading cell's value process has errors
+     * @throws UncheckedCellConverterException throws while iterating, if converting process has errors
+     */
+    public Iterator<E> iterator() {
+        return this.rowIterator(0, Integer.MAX_VALUE, true);
+    }
+
+    /**
+     * Iterator version of {@link ExcelReader#rows(int, int)}.
+     *
+     * @param fromRow start row to map
+     * @param toRow   end row to map
+     * @return iterator over mapped entities
+     * @throws ExcelMappingException            throws if reading cell's value process has errors
+     * @throws UncheckedCellConverterException throws while iterating, if converting process has errors
+     */
+    public Iterator<E> iterator(int fromRow, int toRow) {
+        return this.rowIterator(fromRow, toRow, false);
+    }
+
+    /**
+     * Like {@link ExcelReader#rows()} but parsing, converting and consuming rows run in parallel:
+     * a dedicated thread parses the sheet into chunks of rows, the workers convert the chunks to entities,
+     * and the stream returns them in sheet order. When the consumer is slower, a bounded number of chunks
+     * is buffered and the parser waits. Converters must be thread-safe.
+     * This method requires streaming mode and COLUMN references. Close the stream when it is not fully consumed:
+     * closing waits for the parser to stop, so the reader can be closed right after.
+     * Each call starts its own daemon parser thread, which ends with the stream.
+     *
+     * @param workers executor running the converters, not shut down by the reader
+     * @return stream of mapped entities
+     * @throws IllegalStateException            throws if the reader is not in streaming mode
+     * @throws ExcelMappingException            throws if reading cell's value process has errors
+     * @throws UncheckedCellConverterException throws while consuming the stream, if converting process has errors
+     */
+    public Stream<E> pipelinedRows(ExecutorService workers) {
+        return this.pipelinedRows(this.rowIterator(0, Integer.MAX_VALUE, true), workers);
+    }
+
+    /**
+     * Like {@link ExcelReader#pipelinedRows(ExecutorService)} but this method maps a range of rows,
+     * like {@link ExcelReader#rows(int, int)}.
+     *
+     * @param fromRow start row to map
+     * @param toRow   end row to map
+     * @param workers executor running the converters, not shut down by the reader
+     * @return stream of mapped entities
+     * @throws IllegalStateException            throws if the reader is not in streaming mode
+     * @throws ExcelMappingException            throws if reading cell's value process has errors
+     * @throws UncheckedCellConverterException throws while consuming the stream, if converting process has errors
+     */
+    public Stream<E> pipelinedRows(int fromRow, int toRow, ExecutorService workers) {
+        return this.pipelinedRows(this.rowIterator(fromRow, toRow, false), workers);
+    }
+
+    /**
+     * Map all rows of the sheet, from the first row to the last row, and hand them to the consumer by batches.
+     * The same list is filled again once the consumer returns: the consumer must copy the entities it keeps,
+     * but the memory used does not depend on the size of the sheet. Reading waits while the consumer runs.
+     * This method requires to declare COLUMN references in reader.
+     *
+     * @param batchSize number of entities per batch, the last batch may be smaller
+     * @param consumer  receives each batch, for example a JDBC batch insert
+     * @throws IllegalArgumentException throws if the batch size is not positive
+     * @throws ExcelMappingException    throws if reading cell's value process has errors
+     * @throws CellConverterException   throw after reading cell process, if converting process has errors
+     */
+    public void readInBatches(int batchSize, Consumer<List<E>> consumer) throws CellConverterException {
+        this.readInBatches(this.rowIterator(0, Integer.MAX_VALUE, true), batchSize, consumer);
+    }
+
+    /**
+     * Like {@link ExcelReader#readInBatches(int, Consumer)} but this method maps a range of rows,
+     * like {@link ExcelReader#readRow(int, int)}.
+     *
+     * @param fromRow   start row to map
+     * @param toRow     end row to map
+     * @param batchSize number of entities per batch, the last batch may be smaller
+     * @param consumer  receives each batch
+     * @throws IllegalArgumentException throws if the batch size is not positive
+     * @throws ExcelMappingException    throws if reading cell's value process has errors
+     * @throws CellConverterException   throw after reading cell process, if converting process has errors
+     */
+    public void readInBatches(int fromRow, int toRow, int batchSize, Consumer<List<E>> consumer) throws CellConverterException {
+        this.readInBatches(this.rowIterator(fromRow, toRow, false), batchSize, consumer);
+    }
+
+    /**
+     * Like {@link ExcelReader#readInBatches(int, Consumer)} but the consumer runs on the executor, while the next batch
+     * is read: two lists are used in turn, so at most two batches are held in memory. Reading waits when the next batch
+     * is full before the consumer is done with the previous one. Batches are consumed one at a time, in sheet order.
+     * This method returns once the last batch is consumed, rethrowing the first failure of the consumer.
+     *
+     * @param batchSize number of entities per batch, the last batch may be smaller
+     * @param consumer  receives each batch
+     * @param executor  runs the consumer, not shut down by the reader
+     * @throws IllegalArgumentException throws if the batch size is not positive
+     * @throws ExcelMappingException    throws if reading cell's value process has errors
+     * @throws CellConverterException   throw after reading cell process, if converting process has errors
+     */
+    public void readInBatches(int batchSize, Consumer<List<E>> consumer, ExecutorService executor) throws CellConverterException {
+        this.readInBatches(this.rowIterator(0, Integer.MAX_VALUE, true), batchSize, consumer, executor);
+    }
+
+    /**
+     * Like {@link ExcelReader#readInBatches(int, Consumer, ExecutorService)} but this method maps a range of rows,
+     * like {@link ExcelReader#readRow(int, int)}.
+     *
+     * @param fromRow   start row to map
+     * @param toRow     end row to map
+     * @param batchSize number of entities per batch, the last batch may be smaller
+     * @param consumer  receives each batch
+     * @param executor  runs the consumer, not shut down by the reader
+     * @throws IllegalArgumentException throws if the batch size is not positive
+     * @throws ExcelMappingException    throws if reading cell's value process has errors
+     * @throws CellConverterException   throw after reading cell process, if converting process has errors
+     */
+    public void readInBatches(int fromRow, int toRow, int batchSize, Consumer<List<E>> consumer, ExecutorService executor)
+            throws CellConverterException {
+        this.readInBatches(this.rowIterator(fromRow, toRow, false), batchSize, consumer, executor);
     }
 
     /**
@@ -77,7 +355,7 @@ public class ExcelReader<E> {
      * @throws CellConverterException throw after reading cell process, if converting process has errors
      */
     public E read() throws CellConverterException {
-        if (this.isColumnReference()) {
+        if (this.plan.isColumnReference()) {
             throw new ExcelMappingException("Mapping entity using cells requires cell reference");
         }
 
@@ -92,7 +370,7 @@ public class ExcelReader<E> {
      * @throws CellConverterException throw after reading cell process, if converting process has errors
      */
     public void read(E entity) throws CellConverterException {
-        if (this.isColumnReference()) {
+        if (this.plan.isColumnReference()) {
             throw new ExcelMappingException("Mapping entity using cells requires cell reference");
         }
 
@@ -112,81 +390,810 @@ public class ExcelReader<E> {
      * @throws CellConverterException throw after reading cell process, if converting process has errors
      */
     public E readRow(E entity, Integer rowNum) throws CellConverterException {
-        E newEntity = entity != null ? entity : ReflectionUtils.newInstanceFromClass(this.clazz);
-        for (FieldInfo<?> info : this.fieldInfos) {
-            this.mapCellValue(newEntity, info, rowNum);
+        if (!this.plan.isColumnReference()) {
+            return this.mapEntity(entity, null, this.streamingWb != null ? this.fetchReferencedRows() : this.sheet::getRow, this.arguments);
+        }
+        if (rowNum == null) {
+            throw new ExcelMappingException("Mapping entity using cells requires cell reference");
+        }
+        return this.mapEntity(entity, this.getRow(rowNum), NO_ROW, this.arguments);
+    }
+
+    /**
+     * Release the file opened by a streaming reader. Does nothing for a reader built on a loaded workbook.
+     *
+     * @throws IOException throws if the file can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.streamingWb != null) {
+            this.streamingWb.close();
+        }
+    }
+
+    /**
+     * Index the rows of the streamed sheet: each pass over the sheet records the offset of a row every
+     * {@link RowIndex#getInterval()} rows, then reads starting at a row ({@code readRow(rowNum)}, {@code rows(fromRow, toRow)}, ...)
+     * skip the content before the closest indexed row instead of parsing the sheet from the top.
+     * The index can be saved next to the file and given again to the readers of later imports of the same file.
+     *
+     * @param index an empty index created by {@link RowIndex#create(int)}, or an index of this sheet loaded by {@link RowIndex#load(java.nio.file.Path)}
+     * @return this reader
+     * @throws IllegalStateException throws if the reader is not built in streaming mode
+     */
+    public ExcelReader<E> indexRows(RowIndex index) {
+        Validate.validState(this.streamingWb != null, "Rows can only be indexed in streaming mode");
+        Validate.notNull(index, "Row index must be not null");
+        this.rowIndex = index;
+        return this;
+    }
+
+    /**
+     * @return the index of the streamed sheet, null if rows are not indexed
+     */
+    public RowIndex getRowIndex() {
+        return this.rowIndex;
+    }
+
+    /**
+     * Take a checkpoint after the last row returned by a sequential read of the streamed sheet
+     * ({@code readRow(fromRow, toRow)}, {@code rows}, {@code iterator} or {@code readInBatches} without executor),
+     * for example after each batch is saved. If the import fails later, a reader of the same file resumes there
+     * with {@link ExcelReader#resume(RowCheckpoint)}. Rows must be indexed, see {@link ExcelReader#indexRows(RowIndex)}.
+     *
+     * @return the checkpoint, its {@link RowCheckpoint#getResumeRow()} is the first row not read yet
+     * @throws IllegalStateException throws if rows are not indexed or no row has been read
+     */
+    public RowCheckpoint checkpoint() {
+        Validate.validState(this.rowIndex != null, "Rows must be indexed to take a checkpoint");
+        Validate.validState(this.resumeRow >= 0, "No row has been read");
+        return this.rowIndex.checkpoint(this.resumeRow, this.resumeSeekRow, this.resumeOffset);
+    }
+
+    /**
+     * Prepare to resume a read at a checkpoint taken by a reader of the same sheet: reading from
+     * the returned row starts parsing at the checkpoint. Rows are indexed with an index of
+     * {@link RowIndex#DEFAULT_INTERVAL} rows if they are not indexed yet.
+     *
+     * @param checkpoint the checkpoint, see {@link RowCheckpoint#fromToken(String)}
+     * @return the first row not read yet, to start the next read from
+     * @throws IllegalStateException throws if the reader is not built in streaming mode
+     * @throws ExcelReadException    throws if the checkpoint was taken on another sheet or another version of the file
+     */
+    public int resume(RowCheckpoint checkpoint) {
+        Validate.notNull(checkpoint, "Checkpoint must be not null");
+        if (this.rowIndex == null) {
+            this.indexRows(RowIndex.create(RowIndex.DEFAULT_INTERVAL));
+        }
+        if (checkpoint.getSheetIndex() != this.sheetIndex) {
+            throw new ExcelReadException(String.format("Checkpoint of sheet %d can not be used with sheet %d",
+                    checkpoint.getSheetIndex(), this.sheetIndex));
+        }
+        this.rowIndex.resume(checkpoint);
+        return checkpoint.getResumeRow();
+    }
+
+    // start a pass over the streamed sheet, at the closest indexed row before fromRow if rows are indexed
+    private SheetRowIterator openRows(int fromRow) {
+        return this.rowIndex != null
+                ? this.streamingWb.openRows(this.sheetIndex, this.rowIndex, fromRow)
+                : this.streamingWb.openRows(this.sheetIndex);
+    }
+
+    private Row getRow(int rowNum) {
+        if (this.streamingWb == null) {
+            return this.sheet.getRow(rowNum);
         }
-        return newEntity;
+
+        SheetRowIterator rows = this.openRows(rowNum);
+        try {
+            while (rows.hasNext()) {
+                Row row = rows.next();
+                if (row.getRowNum() >= rowNum) {
+                    return row.getRowNum() == rowNum ? row : null;
+                }
+            }
+        } finally {
+            this.closeRows(rows);
+        }
+        return null;
     }
 
-    // check if the declared references in the EntityReader is referenced to column or not
-    private boolean isColumnReference() {
-        for (FieldInfo<?> info : this.fieldInfos) {
-            for (String ref : info.getReferences()) {
-                for (char ch : ref.toCharArray()) {
-                    if (Character.isDigit(ch))
-                        return false;
+    // collect, in a single pass over the streamed sheet, the rows referenced by cell references
+    private IntFunction<Row> fetchReferencedRows() {
+        int[] rowNums = this.plan.getReferencedRows();
+        Row[] fetchedRows = new Row[rowNums.length];
+        SheetRowIterator rows = this.openRows(rowNums[0]);
+        try {
+            while (rows.hasNext()) {
+                Row row = rows.next();
+                if (row.getRowNum() > rowNums[rowNums.length - 1]) {
+                    break;
+                }
+
+                int idx = Arrays.binarySearch(rowNums, row.getRowNum());
+                if (idx >= 0) {
+                    fetchedRows[idx] = row;
                 }
             }
+        } finally {
+            this.closeRows(rows);
+        }
+
+        return rowNum -> {
+            int idx = Arrays.binarySearch(rowNums, rowNum);
+            return idx >= 0 ? fetchedRows[idx] : null;
+        };
+    }
+
+    // end a pass over a streamed sheet
+    private void closeRows(SheetRowIterator rows) {
+        rows.close();
+        if (this.listener != null) {
+            this.listener.onBytesParsed(rows.getBytesParsed());
         }
-        return true;
     }
 
     /**
-     * Read cell's values and map these value to result entity.
+     * Map the physical rows from fromRow until the stop condition is met.
      *
-     * @param entity    result entity
-     * @param fieldInfo object holds the mapping information
-     * @throws ExcelMappingException  throws if reading cell's value process has errors
+     * @param rows          iterator over the rows physically present in the sheet
+     * @param fromRow       start row to map
+     * @param stopCondition end of the data
+     * @param expectedRows  upper bound of the number of rows to map, read once the first row is reached
+     * @return list of mapped entities
      * @throws CellConverterException throw after reading cell process, if converting process has errors
      */
-    private void mapCellValue(E entity, FieldInfo<?> fieldInfo, Integer rowNum) throws CellConverterException {
-        final String fieldName = fieldInfo.getFieldName();
+    private List<E> readToEnd(Iterator<Row> rows, int fromRow, StopCondition stopCondition, IntSupplier expectedRows)
+            throws CellConverterException {
+        List<E> entities = null;
+        int blankRows = 0;
+        int lastRowNum = fromRow - 1;
+        while (rows.hasNext()) {
+            Row row = rows.next();
+            if (row.getRowNum() < fromRow) {
+                continue;
+            }
+            if (entities == null) {
+                entities = new ArrayList<>(Math.max(expectedRows.getAsInt(), 10));
+            }
 
-        // find the field
-        Field expectedField = this.mapOfNameAndFields.get(fieldName);
-        if (expectedField == null) {
-            throw new ExcelMappingException(this.clazz, fieldName);
+            blankRows += row.getRowNum() - lastRowNum - 1;
+            lastRowNum = row.getRowNum();
+            if (stopCondition.isEnd(row, blankRows)) {
+                break;
+            }
+            if (this.isBlankRow(row)) {
+                blankRows++;
+                continue;
+            }
+
+            blankRows = 0;
+            E entity = this.mapEntity(null, row, NO_ROW, this.arguments);
+            if (entity != null) {
+                entities.add(entity);
+            }
         }
+        return entities != null ? entities : new ArrayList<>();
+    }
 
-        Object fieldValue = this.convertCellsToFieldValue(fieldInfo, rowNum);
-        if (fieldValue == null) {
-            return;
+    // check if all mapped cells of a row are blank
+    private boolean isBlankRow(Row row) {
+        for (FieldSlot slot : this.plan.getSlots()) {
+            for (int column : slot.getColumns()) {
+                if (!ExcelUtils.isBlank(this.getCell(row, column))) {
+                    return false;
+                }
+            }
         }
+        return true;
+    }
 
-        // check if this field is PK of entity
-        ReflectionUtils.invokeSetMethod(entity, expectedField.getName(), fieldValue);
+    private RowIterator rowIterator(int fromRow, int toRow, boolean untilLastRow) {
+        if (!this.plan.isColumnReference()) {
+            throw new ExcelMappingException("Mapping entity with row requires column reference");
+        }
+        return new RowIterator(fromRow, toRow, untilLastRow);
+    }
 
+    private ColumnBatch readColumns(RowIterator rows) throws CellConverterException {
+        FieldSlot[] slots = this.plan.getSlots();
+        try (RowIterator it = rows) {
+            ColumnBatch.Builder batch = new ColumnBatch.Builder(slots);
+            while (it.hasNextRow()) {
+                Row row = it.nextRow();
+                boolean failed = false;
+                for (int i = 0; i < slots.length; i++) {
+                    try {
+                        batch.append(i, this.getCell(row, slots[i].getColumns()[0]));
+                    } catch (CellConverterException e) {
+                        e.setEntityClass(this.clazz);
+                        e.setFieldName(slots[i].getFieldName());
+                        if (this.listener != null) {
+                            this.listener.onConversionFailure(slots[i].getFieldName());
+                        }
+                        if (!this.errorPolicy.isLenient()) {
+                            throw e;
+                        }
+                        this.errorPolicy.report(e);
+                        batch.appendNull(i);
+                        failed = true;
+                    }
+                }
+                batch.endRow();
+                if (this.listener != null) {
+                    this.listener.onRowRead(failed);
+                }
+            }
+            return batch.build();
+        }
     }
 
-    // Convert one or many cells to an object of a field of mapped entity based on mapping information
-    private Object convertCellsToFieldValue(FieldInfo<?> fieldInfo, Integer rowNum) throws CellConverterException {
-        if (fieldInfo.getReferences().size() != fieldInfo.getReferenceTypes().size()) {
-            String mes = "Can not convert to field '%s.%s': Number of references is not equal to the number of declared attributes";
-            throw new ExcelMappingException(String.format(mes, fieldInfo.getConverter().getConvertedType(), fieldInfo.getFieldName()));
+    private void readInBatches(RowIterator rows, int batchSize, Consumer<List<E>> consumer) throws CellConverterException {
+        List<E> batch = this.newBatch(rows, batchSize);
+        try (RowIterator it = rows) {
+            while (it.hasNext()) {
+                batch.add(it.next());
+                if (batch.size() == batchSize) {
+                    consumer.accept(batch);
+                    batch.clear();
+                }
+            }
+        } catch (UncheckedCellConverterException e) {
+            throw e.getCause();
         }
 
-        List<Cell> cells = new ArrayList<>();
-        CellDataConverter<?> converter = fieldInfo.getConverter();
-        int referencesSize = fieldInfo.getReferences().size();
+        if (!batch.isEmpty()) {
+            consumer.accept(batch);
+        }
+    }
+
+    // double buffering: one batch is filled while the other one is consumed
+    private void readInBatches(RowIterator rows, int batchSize, Consumer<List<E>> consumer, ExecutorService executor)
+            throws CellConverterException {
+        List<E> filling = this.newBatch(rows, batchSize);
+        List<E> consumed = new ArrayList<>(batchSize);
+        Future<?> pending = null;
+        try (RowIterator it = rows) {
+            while (it.hasNext()) {
+                filling.add(it.next());
+                if (filling.size() == batchSize) {
+                    awaitBatch(pending);
+                    List<E> full = filling;
+                    pending = executor.submit(() -> consumer.accept(full));
+                    filling = consumed;
+                    filling.clear();
+                    consumed = full;
+                }
+            }
+
+            awaitBatch(pending);
+            pending = null;
+        } catch (UncheckedCellConverterException e) {
+            throw e.getCause();
+        } finally {
+            if (pending != null) {
+                // reading failed, the consumer is not interrupted but a batch not started yet is dropped
+                pending.cancel(false);
+            }
+        }
+
+        if (!filling.isEmpty()) {
+            // the last batch is consumed on the executor too, for consumers bound to its threads
+            List<E> last = filling;
+            awaitBatch(executor.submit(() -> consumer.accept(last)));
+        }
+    }
+
+    private List<E> newBatch(RowIterator rows, int batchSize) {
+        if (batchSize <= 0) {
+            rows.close();
+            throw new IllegalArgumentException(String.format("Batch size (%d) must be positive", batchSize));
+        }
+        return new ArrayList<>(batchSize);
+    }
+
+    // wait for the consumer of the previous batch, rethrowing its failure
+    private static void awaitBatch(Future<?> batch) {
+        if (batch == null) {
+            return;
+        }
 
         try {
-            for (int i = 0; i < referencesSize; i++) {
-                CellReference cf = new CellReference(fieldInfo.getReferences().get(i) + (rowNum != null ? rowNum + 1 : ""));
-                Row row = this.sheet.getRow(cf.getRow());
-                Cell cell = row == null ? null : row.getCell(cf.getCol());
+            batch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExcelReadException("Interrupted while waiting for the batch consumer", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ExcelReadException("Batch consumer failed", cause);
+        }
+    }
+
+    private Stream<E> stream(RowIterator rows) {
+        Spliterator<E> spliterator = Spliterators.spliteratorUnknownSize(rows, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(rows::close);
+    }
+
+    private Stream<E> pipelinedRows(RowIterator rows, ExecutorService workers) {
+        if (this.streamingWb == null) {
+            rows.close();
+            // cells of a loaded workbook are backed by shared, non thread-safe structures
+            throw new IllegalStateException("Pipelined reading requires streaming mode");
+        }
+
+        PipelinedRowIterator pipeline = new PipelinedRowIterator(rows, workers);
+        Spliterator<E> spliterator = Spliterators.spliteratorUnknownSize(pipeline, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(pipeline::close);
+    }
+
+    // map a chunk of rows on a worker thread, with its own argument buffer
+    private List<E> mapChunk(List<Row> rows) throws CellConverterException {
+        List<E> entities = new ArrayList<>(rows.size());
+        Object[] chunkArguments = this.arguments != null ? this.plan.newArguments() : null;
+        for (Row row : rows) {
+            E entity = this.mapEntity(null, row, NO_ROW, chunkArguments);
+            if (entity != null) {
+                entities.add(entity);
+            }
+        }
+        return entities;
+    }
+
+    /**
+     * Read cell's values and map these value to result entity, following the compiled mapping plan.
+     *
+     * @param entity    the entity instance, a new instance is created if null
+     * @param row       the mapped row for column references, may be null if the row is empty
+     * @param rows      lookup of the rows referenced by cell references
+     * @param arguments the argument buffer when entities are created by constructor, null otherwise
+     * @return mapped entity instance, null if conversion errors were reported in lenient mode
+     * @throws ExcelMappingException  throws if an entity instance is given but entities are created by constructor
+     * @throws CellConverterException throw after reading cell process, if converting process has errors
+     */
+    private E mapEntity(E entity, Row row, IntFunction<Row> rows, Object[] arguments) throws CellConverterException {
+        if (arguments != null) {
+            if (entity != null) {
+                throw new ExcelMappingException(String.format("Can not map to an existed instance of '%s': entities are created by constructor",
+                        this.clazz.getName()));
+            }
+            return this.constructEntity(row, rows, arguments);
+        }
+
+        E newEntity = entity != null ? entity : this.instantiator.get();
+        BiConsumer<Object, Row> rowMapper = this.plan.getRowMapper();
+        if (rowMapper != null && this.listener == null) {
+            if (this.evaluator != null) {
+                this.evaluateFormulas(row);
+            }
+            try {
+                rowMapper.accept(newEntity, row);
+                return newEntity;
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                // a converter failed in the generated code: map the row again below, to decorate and report the error
+            }
+        }
+
+        return this.mapFields(newEntity, row, rows) ? newEntity : null;
+    }
 
-                if (referencesSize == 1) {
-                    return converter.convert(cell);
+    // collect the values of the row into the argument buffer, then create the entity in one constructor call
+    private E constructEntity(Row row, IntFunction<Row> rows, Object[] arguments) throws CellConverterException {
+        this.plan.resetArguments(arguments);
+        return this.mapFields(arguments, row, rows) ? this.clazz.cast(this.plan.newInstance(arguments)) : null;
+    }
+
+    /**
+     * Convert the cells of all slots and write them to the target.
+     *
+     * @param target the entity instance, or the argument buffer when entities are created by constructor
+     * @param row    the mapped row for column references, may be null if the row is empty
+     * @param rows   lookup of the rows referenced by cell references
+     * @return false if conversion errors were reported in lenient mode
+     * @throws CellConverterException throw after reading cell process, if converting process has errors
+     */
+    private boolean mapFields(Object target, Row row, IntFunction<Row> rows) throws CellConverterException {
+        boolean failed = false;
+        FieldSlot[] slots = this.plan.getSlots();
+        for (int i = 0; i < slots.length; i++) {
+            FieldSlot slot = slots[i];
+            try {
+                if (this.listener == null) {
+                    this.mapField(target, slot, this.canonicalizers[i], row, rows);
                 } else {
-                    cells.add(cell);
+                    this.mapFieldWithMetrics(target, slot, this.canonicalizers[i], row, rows);
                 }
+            } catch (CellConverterException e) {
+                if (!this.errorPolicy.isLenient()) {
+                    throw e;
+                }
+                // keep converting the other fields, so that all errors of the row are reported
+                this.errorPolicy.report(e);
+                failed = true;
+            }
+        }
+        if (this.listener != null) {
+            this.listener.onRowRead(failed);
+        }
+        return !failed;
+    }
+
+    private void mapField(Object target, FieldSlot slot, StringCanonicalizer canonicalizer, Row row, IntFunction<Row> rows)
+            throws CellConverterException {
+        if (slot.getKind() != SlotKind.OBJECT) {
+            this.writePrimitiveValue(target, slot, row, rows);
+            return;
+        }
+
+        Object fieldValue = this.convertCellsToFieldValue(slot, row, rows);
+        if (fieldValue != null && canonicalizer != null) {
+            fieldValue = canonicalizer.canonicalize((String) fieldValue);
+        }
+        if (fieldValue != null) {
+            slot.getSetter().accept(target, fieldValue);
+        }
+    }
+
+    // same as mapField, timing each step of the field for the listener
+    private void mapFieldWithMetrics(Object target, FieldSlot slot, StringCanonicalizer canonicalizer, Row row, IntFunction<Row> rows)
+            throws CellConverterException {
+        long start = System.nanoTime();
+        Cell[] cells = this.fetchCells(slot, row, rows);
+        long fetched = System.nanoTime();
+        long converted = fetched;
+        try {
+            if (slot.getKind() != SlotKind.OBJECT) {
+                this.writePrimitiveValue(target, slot, cells[0]);
+                converted = System.nanoTime();
+            } else {
+                CellDataConverter<?> converter = slot.getConverter();
+                Object fieldValue = cells.length == 1 ? converter.convert(cells[0]) : converter.convert(cells);
+                if (fieldValue != null && canonicalizer != null) {
+                    fieldValue = canonicalizer.canonicalize((String) fieldValue);
+                }
+                converted = System.nanoTime();
+                if (fieldValue != null) {
+                    slot.getSetter().accept(target, fieldValue);
+                }
+            }
+        } catch (CellConverterException e) {
+            e.setEntityClass(this.clazz);
+            e.setFieldName(slot.getFieldName());
+            this.listener.onConversionFailure(slot.getFieldName());
+            throw e;
+        }
+        this.listener.onFieldRead(slot.getFieldName(), cells.length, fetched - start, converted - fetched, System.nanoTime() - converted);
+    }
+
+    private void writePrimitiveValue(Object entity, FieldSlot slot, Row row, IntFunction<Row> rows) throws CellConverterException {
+        int rowNum = slot.getRows()[0];
+        this.writePrimitiveValue(entity, slot, getCell(rowNum < 0 ? row : rows.apply(rowNum), slot.getColumns()[0]));
+    }
+
+    // Convert a single cell and write it to a primitive field without boxing, blank cells leave the field unchanged
+    private void writePrimitiveValue(Object entity, FieldSlot slot, Cell cell) throws CellConverterException {
+        if (ExcelUtils.isBlank(cell)) {
+            return;
+        }
+
+        try {
+            switch (slot.getKind()) {
+                case INT:
+                    slot.getIntSetter().accept(entity, ((IntCellDataConverter) slot.getConverter()).convertToInt(cell));
+                    break;
+                case LONG:
+                    slot.getLongSetter().accept(entity, ((LongCellDataConverter) slot.getConverter()).convertToLong(cell));
+                    break;
+                case DOUBLE:
+                    slot.getDoubleSetter().accept(entity, ((DoubleCellDataConverter) slot.getConverter()).convertToDouble(cell));
+                    break;
+                default:
+                    // Boolean.valueOf returns cached instances
+                    slot.getSetter().accept(entity, ((BooleanCellDataConverter) slot.getConverter()).convertToBoolean(cell));
+                    break;
             }
-            return converter.convert(cells.toArray(new Cell[0]));
         } catch (CellConverterException e) {
             e.setEntityClass(this.clazz);
-            e.setFieldName(fieldInfo.getFieldName());
+            e.setFieldName(slot.getFieldName());
             throw e;
         }
     }
+
+    // Convert one or many cells to an object of a field of mapped entity based on mapping plan
+    private Object convertCellsToFieldValue(FieldSlot slot, Row row, IntFunction<Row> rows) throws CellConverterException {
+        int[] rowNums = slot.getRows();
+        int[] columns = slot.getColumns();
+
+        try {
+            if (columns.length == 1) {
+                return slot.getConverter().convert(getCell(rowNums[0] < 0 ? row : rows.apply(rowNums[0]), columns[0]));
+            }
+
+            return slot.getConverter().convert(this.fetchCells(slot, row, rows));
+        } catch (CellConverterException e) {
+            e.setEntityClass(this.clazz);
+            e.setFieldName(slot.getFieldName());
+            throw e;
+        }
+    }
+
+    // evaluate the mapped formula cells of a row before the generated mapper reads their cached results
+    private void evaluateFormulas(Row row) {
+        if (row == null) {
+            return;
+        }
+        for (FieldSlot slot : this.plan.getSlots()) {
+            this.getCell(row, slot.getColumns()[0]);
+        }
+    }
+
+    // fetch all cells of a field
+    private Cell[] fetchCells(FieldSlot slot, Row row, IntFunction<Row> rows) {
+        int[] rowNums = slot.getRows();
+        int[] columns = slot.getColumns();
+        Cell[] cells = new Cell[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            cells[i] = getCell(rowNums[i] < 0 ? row : rows.apply(rowNums[i]), columns[i]);
+        }
+        return cells;
+    }
+
+    // fetch a cell, evaluating its formula first with the LAZY policy so that converters read an up-to-date cached result
+    private Cell getCell(Row row, int column) {
+        Cell cell = row == null ? null : row.getCell(column);
+        if (this.evaluator != null && cell != null && cell.getCellType() == CellType.FORMULA) {
+            this.evaluator.evaluateFormulaCell(cell);
+        }
+        return cell;
+    }
+
+    /**
+     * Map rows on demand. Every row number of the range is mapped, rows absent from the sheet are mapped as empty rows.
+     * When reading until the last row, the range stops at the last row of the sheet.
+     */
+    private class RowIterator implements Iterator<E>, Closeable {
+        private final SheetRowIterator physicalRows;
+        private final boolean untilLastRow;
+        private final int toRow;
+        private Row physicalRow;
+        private long physicalRowOffset = -1;
+        private int rowNum;
+        private E nextEntity;
+        private int nextEntityRow;
+        private int nextSeekRow = -1;
+        private long nextSeekOffset = -1;
+        private boolean closed;
+
+        private RowIterator(int fromRow, int toRow, boolean untilLastRow) {
+            this.rowNum = fromRow;
+            if (ExcelReader.this.streamingWb != null) {
+                this.physicalRows = ExcelReader.this.openRows(fromRow);
+                this.untilLastRow = untilLastRow;
+                this.toRow = toRow;
+            } else {
+                this.physicalRows = null;
+                this.untilLastRow = false;
+                this.toRow = untilLastRow ? Math.min(toRow, ExcelReader.this.sheet.getLastRowNum()) : toRow;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            // in lenient mode, rows with conversion errors are mapped to null and skipped
+            while (this.nextEntity == null && this.hasNextRow()) {
+                try {
+                    this.nextEntityRow = this.rowNum;
+                    Row row = this.nextRow();
+                    // the current physical row is at or after the next row, a read resuming after this entity can start there
+                    this.nextSeekRow = this.physicalRow != null ? this.physicalRow.getRowNum() : -1;
+                    this.nextSeekOffset = this.physicalRowOffset;
+                    this.nextEntity = ExcelReader.this.mapEntity(null, row, NO_ROW, ExcelReader.this.arguments);
+                } catch (CellConverterException e) {
+                    throw new UncheckedCellConverterException(e);
+                }
+            }
+            return this.nextEntity != null;
+        }
+
+        @Override
+        public E next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            E entity = this.nextEntity;
+            this.nextEntity = null;
+            if (this.physicalRows != null) {
+                ExcelReader.this.resumeRow = this.nextEntityRow + 1;
+                ExcelReader.this.resumeSeekRow = this.nextSeekRow;
+                ExcelReader.this.resumeOffset = this.nextSeekOffset;
+            }
+            return entity;
+        }
+
+        // check if the range has rows left, mapped or not
+        private boolean hasNextRow() {
+            if (this.rowNum > this.toRow) {
+                this.close();
+                return false;
+            }
+            if (this.physicalRows == null) {
+                return true;
+            }
+
+            // move the streamed sheet to the first physical row at or after the current row number
+            while ((this.physicalRow == null || this.physicalRow.getRowNum() < this.rowNum) && this.physicalRows.hasNext()) {
+                this.physicalRow = this.physicalRows.next();
+                this.physicalRowOffset = this.physicalRows.getRowOffset();
+            }
+            if (this.physicalRow != null && this.physicalRow.getRowNum() < this.rowNum) {
+                this.physicalRow = null;
+            }
+            return this.physicalRow != null || !this.untilLastRow;
+        }
+
+        // advance to the next row number of the range, return its row or null if the row is absent from the sheet
+        private Row nextRow() {
+            if (!this.hasNextRow()) {
+                throw new NoSuchElementException();
+            }
+
+            Row row;
+            if (this.physicalRows == null) {
+                row = ExcelReader.this.sheet.getRow(this.rowNum);
+            } else {
+                row = this.physicalRow != null && this.physicalRow.getRowNum() == this.rowNum ? this.physicalRow : null;
+            }
+            this.rowNum++;
+            return row;
+        }
+
+        @Override
+        public void close() {
+            if (this.physicalRows != null && !this.closed) {
+                this.closed = true;
+                ExcelReader.this.closeRows(this.physicalRows);
+            }
+        }
+    }
+
+    /**
+     * Parse rows on a dedicated thread and map them by chunks on the workers. Mapped chunks are queued in sheet order
+     * as futures: the queue is bounded, so the parser waits when the consumer falls behind.
+     */
+    private class PipelinedRowIterator implements Iterator<E>, Closeable {
+        private final Future<List<E>> end = CompletableFuture.completedFuture(Collections.emptyList());
+        private final BlockingQueue<Future<List<E>>> chunks = new ArrayBlockingQueue<>(PIPELINE_CAPACITY);
+        private final RowIterator rows;
+        private final ExecutorService workers;
+        private final Thread parser;
+        private Iterator<E> chunk = Collections.emptyIterator();
+        private boolean done;
+        private volatile boolean closed;
+
+        private PipelinedRowIterator(RowIterator rows, ExecutorService workers) {
+            this.rows = rows;
+            this.workers = workers;
+            this.parser = new Thread(this::parse, "excel-reader-parser");
+            this.parser.setDaemon(true);
+            this.parser.start();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!this.chunk.hasNext() && !this.done) {
+                Future<List<E>> next = this.take();
+                if (next == this.end) {
+                    this.close();
+                } else {
+                    this.chunk = this.get(next).iterator();
+                }
+            }
+            return this.chunk.hasNext();
+        }
+
+        @Override
+        public E next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return this.chunk.next();
+        }
+
+        @Override
+        public void close() {
+            if (this.done) {
+                return;
+            }
+            this.done = true;
+            this.closed = true;
+            this.chunk = Collections.emptyIterator();
+            this.parser.interrupt();
+
+            // the parser may be blocked on a full queue: free it and drop the chunks not consumed
+            Future<List<E>> pending;
+            while ((pending = this.chunks.poll()) != null) {
+                pending.cancel(false);
+            }
+
+            // the parser closes the rows: wait for it, so that the workbook is not closed while it is still read
+            boolean interrupted = false;
+            while (this.parser.isAlive()) {
+                try {
+                    this.parser.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // parser thread body
+        private void parse() {
+            try {
+                while (!this.closed && this.rows.hasNextRow()) {
+                    List<Row> chunkRows = new ArrayList<>(PIPELINE_CHUNK_SIZE);
+                    while (chunkRows.size() < PIPELINE_CHUNK_SIZE && !this.closed && this.rows.hasNextRow()) {
+                        chunkRows.add(this.rows.nextRow());
+                    }
+                    this.chunks.put(this.workers.submit(() -> ExcelReader.this.mapChunk(chunkRows)));
+                }
+                if (!this.closed) {
+                    this.chunks.put(this.end);
+                }
+            } catch (InterruptedException e) {
+                // closed by the consumer
+            } catch (RuntimeException | Error e) {
+                CompletableFuture<List<E>> failed = new CompletableFuture<>();
+                failed.completeExceptionally(e);
+                try {
+                    this.chunks.put(failed);
+                } catch (InterruptedException closed) {
+                    // closed by the consumer, nobody waits for the failure
+                }
+            } finally {
+                this.rows.close();
+            }
+        }
+
+        private Future<List<E>> take() {
+            try {
+                return this.chunks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.close();
+                throw new ExcelReadException("Interrupted while waiting for rows", e);
+            }
+        }
+
+        // wait for a mapped chunk, rethrowing the failure of the parser or of the workers
+        private List<E> get(Future<List<E>> future) {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.close();
+                throw new ExcelReadException("Interrupted while waiting for rows", e);
+            } catch (ExecutionException e) {
+                this.close();
+                Throwable cause = e.getCause();
+                if (cause instanceof CellConverterException) {
+                    throw new UncheckedCellConverterException((CellConverterException) cause);
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new ExcelReadException("Can not map rows", cause);
+            }
+        }
+    }
 }
@@ -5,10 +5,24 @@ import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.util.CellReference;
 import vn.locdt.excel.reader.converter.CellDataConverter;
+import vn.locdt.excel.reader.converter.ConverterRegistry;
 import vn.locdt.excel.reader.converter.DefaultCellDataConverter;
+import vn.locdt.excel.reader.exception.CellConverterException;
+import vn.locdt.excel.reader.exception.ExcelMappingException;
+import vn.locdt.excel.reader.stream.SnapshotCache;
+import vn.locdt.excel.reader.stream.StreamingWorkbook;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 /**
  * Builder class for EntityReader
@@ -19,7 +33,20 @@ public class ExcelReaderBuilder<E> {
     private final Class<E> clazz;
     private Workbook wb;
     private Sheet sheet;
+    private StreamingWorkbook streamingWb;
+    private int sheetIndex = -1;
+    private FormulaEvaluation formulaEvaluation;
     private List<FieldInfo<?>> fieldInfos;
+    private int stringCacheSize;
+    private int headerRow;
+    private Consumer<ReadError> errorSink;
+    private int maxErrors;
+    private Set<String> canonicalizedFields = Collections.emptySet();
+    private ReadListener listener;
+    private boolean generateRowMapper;
+    private boolean byConstructor;
+    private ConverterRegistry converters = ConverterRegistry.global();
+    private long openNanos;
 
     // Constructor of the builder with target entity class
     private ExcelReaderBuilder(Class<E> clazz) {
@@ -49,6 +76,58 @@ public class ExcelReaderBuilder<E> {
         return this;
     }
 
+    /**
+     * Read the excel file in streaming mode instead of using a loaded workbook.
+     * Rows are parsed on demand, so the memory used by the reader does not depend on the size of the sheet.
+     * Both .xlsx and legacy .xls files are supported, the format is detected from the content of the file.
+     * The built {@link ExcelReader} owns the opened file and must be closed after use.
+     *
+     * @param path the excel file
+     * @return this builder, to allow method chaining
+     * @throws IOException throws if the file can not be opened
+     */
+    public ExcelReaderBuilder<E> stream(Path path) throws IOException {
+        Validate.notNull(path, "Path must be not null");
+        long start = System.nanoTime();
+        this.streamingWb = StreamingWorkbook.open(path);
+        this.openNanos = System.nanoTime() - start;
+        return this;
+    }
+
+    /**
+     * Like {@link ExcelReaderBuilder#stream(Path)} but reads the sheets from the snapshots of a cache when the same content
+     * was read before, without parsing the file. The snapshot of a sheet is written by the first read going through all its rows.
+     *
+     * @param path  the excel file
+     * @param cache the snapshot cache, see {@link SnapshotCache#open(Path, long)}
+     * @return this builder, to allow method chaining
+     * @throws IOException throws if the file can not be hashed or opened
+     */
+    public ExcelReaderBuilder<E> stream(Path path, SnapshotCache cache) throws IOException {
+        Validate.notNull(path, "Path must be not null");
+        Validate.notNull(cache, "Snapshot cache must be not null");
+        long start = System.nanoTime();
+        this.streamingWb = cache.open(path);
+        this.openNanos = System.nanoTime() - start;
+        return this;
+    }
+
+    /**
+     * Like {@link ExcelReaderBuilder#stream(Path)} but reads the excel content from a stream.
+     * The content is spooled to a temporary file, which is deleted when the reader is closed.
+     *
+     * @param in the excel content, not closed by this method
+     * @return this builder, to allow method chaining
+     * @throws IOException throws if the content can not be spooled or opened
+     */
+    public ExcelReaderBuilder<E> stream(InputStream in) throws IOException {
+        Validate.notNull(in, "InputStream must be not null");
+        long start = System.nanoTime();
+        this.streamingWb = StreamingWorkbook.open(in);
+        this.openNanos = System.nanoTime() - start;
+        return this;
+    }
+
     /**
      * Set the mapped excel sheet to the Builder.
      *
@@ -56,6 +135,11 @@ public class ExcelReaderBuilder<E> {
      * @return this builder, to allow method chaining
      */
     public ExcelReaderBuilder<E> sheet(int sheetNum) {
+        if (this.streamingWb != null) {
+            this.sheetIndex = sheetNum;
+            return this;
+        }
+
         Validate.notNull(this.wb, "Workbook must be not null");
         this.sheet = this.wb.getSheetAt(sheetNum);
         return this;
@@ -74,9 +158,162 @@ public class ExcelReaderBuilder<E> {
         return this;
     }
 
+    /**
+     * Set how formula cells are evaluated, {@link FormulaEvaluation#LAZY} by default.
+     * Streaming mode only supports {@link FormulaEvaluation#CACHED}.
+     *
+     * @param formulaEvaluation the formula evaluation policy
+     * @return this builder, to allow method chaining
+     */
+    public ExcelReaderBuilder<E> formulaEvaluation(FormulaEvaluation formulaEvaluation) {
+        this.formulaEvaluation = formulaEvaluation;
+        return this;
+    }
+
+    /**
+     * Record conversion errors instead of throwing {@link CellConverterException}: each cell which can not be converted
+     * is reported to the sink, and the row is skipped while reading continues with the next rows.
+     * Reading stops with an {@link vn.locdt.excel.reader.exception.ExcelReadException} when more than {@code maxErrors}
+     * errors are reported over the life of the reader.
+     *
+     * @param maxErrors maximum number of reported errors
+     * @param errorSink receives the errors, for example {@code errors::add}
+     * @return this builder, to allow method chaining
+     */
+    public ExcelReaderBuilder<E> lenient(int maxErrors, Consumer<ReadError> errorSink) {
+        Validate.isTrue(maxErrors >= 0, "Maximum number of errors must be positive");
+        Validate.notNull(errorSink, "Error sink must be not null");
+        this.maxErrors = maxErrors;
+        this.errorSink = errorSink;
+        return this;
+    }
+
+    /**
+     * Send counters and timings of the reader to a listener: rows read, cells converted, conversion failures
+     * and time spent per field, and the time to open the workbook and the bytes parsed in streaming mode.
+     * The listener must be thread-safe, see {@link ReadListener}. Without listener nothing is measured.
+     *
+     * @param listener receives the events, for example a shared {@link ReadMetrics}
+     * @return this builder, to allow method chaining
+     */
+    public ExcelReaderBuilder<E> listener(ReadListener listener) {
+        Validate.notNull(listener, "Listener must be not null");
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * Generate, when the reader is built, a class mapping a row with straight-line code: for each field,
+     * fetch the cell, convert it and call the setter, without going through the generic mapping loop.
+     * This lets the JIT compile the mapping of a row as a single method, which pays off on big sheets.
+     * Only mappings of single columns to public setters of a public class, without canonicalized fields, can be generated;
+     * other mappings and cell references keep the generic mapping. Errors are reported the same way.
+     * Readers with a {@link ExcelReaderBuilder#listener(ReadListener) listener} also use the generic mapping, which times each field:
+     * their metrics measure the generic mapping, not the generated class.
+     *
+     * @return this builder, to allow method chaining
+     */
+    public ExcelReaderBuilder<E> generateRowMapper() {
+        this.generateRowMapper = true;
+        return this;
+    }
+
+    /**
+     * Create entities in a single call of their canonical constructor, the constructor taking all fields declared
+     * by the entity class in declaration order (the canonical constructor of a record, or an all-args constructor).
+     * Converted values are collected into an argument buffer instead of being set one by one,
+     * unmapped fields and blank cells are passed as null, or as the default value of primitive parameters.
+     * Entity classes without no-arg constructor, like records and immutable classes, are created this way without calling this method.
+     * Mapping rows to an existing entity instance is not supported then.
+     *
+     * @return this builder, to allow method chaining
+     */
+    public ExcelReaderBuilder<E> instantiateByConstructor() {
+        this.byConstructor = true;
+        return this;
+    }
+
+    /**
+     * Convert the fields of a type with a converter, instead of the converter of the global registry
+     * or the default one, see {@link ConverterRegistry}. Applies to the fields mapped before and after this call.
+     *
+     * @param type      the converted type, matched exactly with the mapped data types
+     * @param converter the converter, shared by the readers of this builder
+     * @param <T>       the converted type
+     * @return this builder, to allow method chaining
+     */
+    public <T> ExcelReaderBuilder<E> converter(Class<T> type, CellDataConverter<T> converter) {
+        if (this.converters == ConverterRegistry.global()) {
+            this.converters = ConverterRegistry.create();
+        }
+        this.converters.register(type, converter);
+        return this;
+    }
+
+    /**
+     * Resolve the converters of the mapped fields with a registry, to share overrides between builders.
+     *
+     * @param converters the registry, see {@link ConverterRegistry#create()}
+     * @return this builder, to allow method chaining
+     */
+    public ExcelReaderBuilder<E> converters(ConverterRegistry converters) {
+        Validate.notNull(converters, "Converter registry must be not null");
+        this.converters = converters;
+        return this;
+    }
+
+    /**
+     * Share one instance between the equal values of String fields, instead of keeping one copy per mapped entity.
+     * Useful for columns holding a few repeated values, like statuses or currencies.
+     * Each field of each reader has its own cache of the most recently read values, bounded by {@code maxValuesPerField}
+     * (rounded down to a power of 2).
+     *
+     * @param maxValuesPerField maximum number of values cached per field, 0 to disable canonicalization
+     * @param fieldNames        names of the canonicalized fields, all single cell String fields if empty
+     * @return this builder, to allow method chaining
+     */
+    public ExcelReaderBuilder<E> canonicalizeStrings(int maxValuesPerField, String... fieldNames) {
+        Validate.isTrue(maxValuesPerField >= 0, "Cache size must be positive");
+        this.stringCacheSize = maxValuesPerField;
+        this.canonicalizedFields = new HashSet<>(Arrays.asList(fieldNames));
+        return this;
+    }
+
+    /**
+     * Set the row holding the headers used by {@link ExcelReaderBuilder#mapHeader(String, String, Class)}, the first row by default.
+     *
+     * @param rowNum the header row's index
+     * @return this builder, to allow method chaining
+     */
+    public ExcelReaderBuilder<E> headerRow(int rowNum) {
+        Validate.isTrue(rowNum >= 0, "Header row must be positive");
+        this.headerRow = rowNum;
+        return this;
+    }
+
+    /**
+     * Create a mapping info from the header of a column, name of the field and its data type.
+     * The header row is read once when the reader is built, the column holding the header is then mapped
+     * like with {@link ExcelReaderBuilder#mapReference(Integer, String, Class)}.
+     * The converter of the data type is resolved when the reader is built, {@link DefaultCellDataConverter} unless one is registered,
+     * see {@link ExcelReaderBuilder#converter(Class, CellDataConverter)}.
+     *
+     * @param header    the column's header, compared after trimming
+     * @param fieldName the name of the field need to be mapped
+     * @param dataType  expected data type of the mapped field
+     * @param <T>       expected data type of the mapped field
+     * @return this builder, to allow method chaining
+     */
+    public <T> ExcelReaderBuilder<E> mapHeader(String header, String fieldName, Class<T> dataType) {
+        Validate.notBlank(header, "Header must be not blank");
+        this.fieldInfos.add(FieldInfo.ofHeader(header, dataType, fieldName));
+        return this;
+    }
+
     /**
      * Create a mapping info from column number, name of the field and its data type.
-     * This method will use {@link DefaultCellDataConverter} as default converter.
+     * The converter of the data type is resolved when the reader is built, {@link DefaultCellDataConverter} unless one is registered,
+     * see {@link ExcelReaderBuilder#converter(Class, CellDataConverter)}.
      *
      * @param col       column's index
      * @param fieldName the name of the field need to be mapped
@@ -88,12 +325,13 @@ public class ExcelReaderBuilder<E> {
         if (col == null) {
             return this;
         }
-        return this.mapReference(new CellReference(0, col).getCellRefParts()[2], fieldName, dataType, new DefaultCellDataConverter<>(dataType));
+        return this.mapReference(new CellReference(0, col).getCellRefParts()[2], fieldName, dataType);
     }
 
     /**
      * Create a mapping info from reference position, name of the field and its data type.
-     * This method will use {@link DefaultCellDataConverter} as default converter.
+     * The converter of the data type is resolved when the reader is built, {@link DefaultCellDataConverter} unless one is registered,
+     * see {@link ExcelReaderBuilder#converter(Class, CellDataConverter)}.
      *
      * @param reference the excel reference
      * @param fieldName the name of the field need to be mapped
@@ -102,12 +340,14 @@ public class ExcelReaderBuilder<E> {
      * @return this builder, to allow method chaining
      */
     public <T> ExcelReaderBuilder<E> mapReference(String reference, String fieldName, Class<T> dataType) {
-        return this.mapReference(reference, fieldName, dataType, new DefaultCellDataConverter<>(dataType));
+        this.fieldInfos.add(new FieldInfo<>(reference, dataType, fieldName));
+        return this;
     }
 
     /**
      * Create a mapping between a list of references to an JPA Metamodel.
-     * This method will use {@link DefaultCellDataConverter} as default converter.
+     * The converter of the data type is resolved when the reader is built, {@link DefaultCellDataConverter} unless one is registered,
+     * see {@link ExcelReaderBuilder#converter(Class, CellDataConverter)}.
      *
      * @param customTypeInfo if the mapped field has custom type,
      *                       this param will describes the info of the custom type with reference, field name and its type.
@@ -123,43 +363,105 @@ public class ExcelReaderBuilder<E> {
             references.add(i.getRef());
             classes.add(i.getType());
         });
-        return this.mapReference(references, classes, fieldName, new DefaultCellDataConverter<>(fieldDataType, customTypeInfo));
-    }
-
-    // Create FieldInfo to store the mapping information simple type
-    private <T> ExcelReaderBuilder<E> mapReference(String reference, String fieldName, Class<T> dataType, CellDataConverter<T> converter) {
-        this.fieldInfos.add(new FieldInfo<>(reference, dataType, fieldName, converter));
-        return this;
-    }
-
-    // Create FieldInfo to store the mapping information
-    private <T> ExcelReaderBuilder<E> mapReference(List<String> references, List<Class<?>> referenceTypes, String fieldName, CellDataConverter<T> converter) {
-        this.fieldInfos.add(new FieldInfo<>(references, referenceTypes, fieldName, converter));
+        this.fieldInfos.add(new FieldInfo<>(references, classes, fieldName, fieldDataType, customTypeInfo));
         return this;
     }
 
     /**
      * Validate and build EntityReader from the Builder.
+     * The mapping is compiled once here: fields, references and headers are resolved, so reading rows does not need to validate them again.
      * In case caller doesn't specify the mapped sheet, builder will use the first non-hidden sheet in workbook as default.
      *
      * @return EntityReader
+     * @throws ExcelMappingException throws if a mapped field does not exist, references do not match the declared attributes
+     *                               or mapped headers can not be found
      */
     public ExcelReader<E> build() {
-        Validate.notNull(this.clazz, "Entity class must be not null");
-        Validate.notNull(this.wb, "Workbook must be not null");
-        Validate.notEmpty(this.fieldInfos, "Mapped fields must be not empty");
-
-        if (this.sheet == null) {
-            int sheetIdx = 0;
-            while (this.wb.isSheetHidden(sheetIdx)) {
-                sheetIdx++;
+        if (this.streamingWb != null) {
+            try {
+                ExcelMapping<E> mapping = new ExcelMapping<>(this);
+                this.validate();
+                int sheetIdx = this.sheetIndex >= 0
+                        ? this.sheetIndex
+                        : ExcelMapping.firstVisibleSheet(this.streamingWb.getNumberOfSheets(), this.streamingWb::isSheetHidden);
+                return mapping.reader(null, this.streamingWb, sheetIdx, this.openNanos);
+            } catch (RuntimeException e) {
+                throw this.closeStreamingWb(e);
             }
+        }
+
+        ExcelMapping<E> mapping = new ExcelMapping<>(this);
+        this.validate();
 
-            this.sheet = this.wb.getSheetAt(sheetIdx);
+        if (this.sheet == null) {
+            this.sheet = this.wb.getSheetAt(ExcelMapping.firstVisibleSheet(this.wb.getNumberOfSheets(), this.wb::isSheetHidden));
         }
 
         Validate.notNull(this.sheet, "Sheet must be not null");
-        return new ExcelReader<>(this);
+        return mapping.reader(this.sheet, null, -1, 0);
+    }
+
+    /**
+     * Validate and build an immutable mapping, which can be cached and bound to any sheet later,
+     * see {@link ExcelMapping#on(Sheet)}. Only the mapping is kept: the workbook, sheet or file set on this builder are ignored.
+     *
+     * @return ExcelMapping
+     * @throws ExcelMappingException throws if a mapped field does not exist or references do not match the declared attributes
+     */
+    public ExcelMapping<E> buildMapping() {
+        return new ExcelMapping<>(this);
+    }
+
+    /**
+     * Validate and build a reader mapping many sheets of the workbook concurrently, on the common {@link ForkJoinPool}.
+     *
+     * @return MultiSheetReader
+     * @throws ExcelMappingException throws if a mapped field does not exist or references do not match the declared attributes
+     * @see ExcelReaderBuilder#buildMultiSheet(ForkJoinPool)
+     */
+    public MultiSheetReader<E> buildMultiSheet() {
+        return this.buildMultiSheet(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Validate and build a reader mapping many sheets of the workbook concurrently.
+     * The sheet declared by {@link ExcelReaderBuilder#sheet(int)} is ignored, sheets are selected when reading.
+     * Mapped headers are resolved for each sheet when it is read.
+     *
+     * @param pool the pool running the sheets' mapping
+     * @return MultiSheetReader
+     * @throws ExcelMappingException throws if a mapped field does not exist or references do not match the declared attributes
+     */
+    public MultiSheetReader<E> buildMultiSheet(ForkJoinPool pool) {
+        try {
+            Validate.notNull(pool, "ForkJoinPool must be not null");
+            ExcelMapping<E> mapping = new ExcelMapping<>(this);
+            this.validate();
+            return new MultiSheetReader<>(mapping, this.wb, this.streamingWb, this.openNanos, pool);
+        } catch (RuntimeException e) {
+            throw this.streamingWb != null ? this.closeStreamingWb(e) : e;
+        }
+    }
+
+    // the opened file is closed when no reader takes its ownership
+    private RuntimeException closeStreamingWb(RuntimeException e) {
+        try {
+            this.streamingWb.close();
+        } catch (IOException closeException) {
+            e.addSuppressed(closeException);
+        }
+        return e;
+    }
+
+    // validate the source of the readers, the mapping itself is validated by ExcelMapping
+    private void validate() {
+        if (this.streamingWb != null) {
+            Validate.isTrue(this.wb == null, "Workbook and streaming mode can not be used together");
+            Validate.isTrue(this.formulaEvaluation == null || this.formulaEvaluation == FormulaEvaluation.CACHED,
+                    "Streaming mode only reads cached formula results");
+        } else {
+            Validate.notNull(this.wb, "Workbook must be not null");
+        }
     }
 
     /* getters & setters */
@@ -167,8 +469,45 @@ public class ExcelReaderBuilder<E> {
         return this.clazz;
     }
 
-    Sheet getSheet() {
-        return this.sheet;
+    // null if not set
+    FormulaEvaluation getFormulaEvaluation() {
+        return this.formulaEvaluation;
+    }
+
+    Consumer<ReadError> getErrorSink() {
+        return this.errorSink;
+    }
+
+    int getMaxErrors() {
+        return this.maxErrors;
+    }
+
+    ReadListener getListener() {
+        return this.listener;
+    }
+
+    int getHeaderRow() {
+        return this.headerRow;
+    }
+
+    int getStringCacheSize() {
+        return this.stringCacheSize;
+    }
+
+    Set<String> getCanonicalizedFields() {
+        return this.canonicalizedFields;
+    }
+
+    boolean isGenerateRowMapper() {
+        return this.generateRowMapper;
+    }
+
+    boolean isByConstructor() {
+        return this.byConstructor;
+    }
+
+    ConverterRegistry getConverters() {
+        return this.converters;
     }
 
     List<FieldInfo<?>> getFieldInfos() {
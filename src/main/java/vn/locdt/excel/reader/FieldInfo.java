@@ -1,6 +1,8 @@
 package vn.locdt.excel.reader;
 
 import vn.locdt.excel.reader.converter.CellDataConverter;
+import vn.locdt.excel.reader.converter.ConverterRegistry;
+import vn.locdt.excel.reader.exception.ExcelMappingException;
 
 import java.util.Collections;
 import java.util.List;
@@ -14,20 +16,62 @@ class FieldInfo<T> {
     private List<String> references;
     private List<Class<?>> referenceTypes;
     private String fieldName;
+    private Class<T> fieldType;
+    // attributes of a composite field, null for fields mapped to one cell
+    private List<ReferenceInfo> attributes;
+    // resolved when the mapping is built, see FieldInfo#resolveConverter
     private CellDataConverter<T> converter;
+    private String header;
 
-    FieldInfo(List<String> references, List<Class<?>> referenceTypes, String fieldName, CellDataConverter<T> converter) {
+    private FieldInfo(List<String> references, List<Class<?>> referenceTypes, String fieldName, Class<T> fieldType,
+                      List<ReferenceInfo> attributes, CellDataConverter<T> converter, String header) {
         this.references = references;
         this.referenceTypes = referenceTypes;
         this.fieldName = fieldName;
+        this.fieldType = fieldType;
+        this.attributes = attributes;
         this.converter = converter;
+        this.header = header;
     }
 
-    FieldInfo(String reference, Class<T> referenceType, String fieldName, CellDataConverter<T> converter) {
-        this.references = Collections.singletonList(reference);
-        this.referenceTypes = Collections.singletonList(referenceType);
-        this.fieldName = fieldName;
-        this.converter = converter;
+    FieldInfo(List<String> references, List<Class<?>> referenceTypes, String fieldName, Class<T> fieldType, List<ReferenceInfo> attributes) {
+        this(references, referenceTypes, fieldName, fieldType, attributes, null, null);
+    }
+
+    FieldInfo(String reference, Class<T> referenceType, String fieldName) {
+        this(Collections.singletonList(reference), Collections.singletonList(referenceType), fieldName, referenceType, null, null, null);
+    }
+
+    // Create a mapping to the column whose header is given, its reference is resolved when the reader is built
+    static <T> FieldInfo<T> ofHeader(String header, Class<T> referenceType, String fieldName) {
+        return new FieldInfo<>(Collections.emptyList(), Collections.singletonList(referenceType), fieldName, referenceType, null, null, header);
+    }
+
+    /**
+     * @param columnReference the letters of the column holding the header
+     * @return a copy of this header mapping, referencing the column
+     */
+    FieldInfo<T> resolve(String columnReference) {
+        return new FieldInfo<>(Collections.singletonList(columnReference), this.referenceTypes, this.fieldName, this.fieldType,
+                this.attributes, this.converter, null);
+    }
+
+    /**
+     * @param registry the converters of the mapping
+     * @return a copy of this mapping, converted by the converter registered for the field's type or by the default one
+     * @throws ExcelMappingException throws if the field's type has no converter
+     */
+    FieldInfo<T> resolveConverter(ConverterRegistry registry) {
+        CellDataConverter<T> resolved = this.attributes != null ? registry.resolve(this.fieldType, this.attributes)
+                : registry.resolve(this.fieldType);
+        return new FieldInfo<>(this.references, this.referenceTypes, this.fieldName, this.fieldType, this.attributes, resolved, this.header);
+    }
+
+    /**
+     * @return the mapped header, null if the mapping uses references
+     */
+    String getHeader() {
+        return this.header;
     }
 
     public List<String> getReferences() {
@@ -0,0 +1,21 @@
+package vn.locdt.excel.reader;
+
+/**
+ * Policy applied by {@link ExcelReader} to formula cells of a loaded workbook.
+ * Streaming readers always use {@link FormulaEvaluation#CACHED}.
+ */
+public enum FormulaEvaluation {
+    /**
+     * Never evaluate formulas, use the results cached in the file by the application that saved it.
+     */
+    CACHED,
+    /**
+     * Evaluate a formula cell only when it is mapped. The evaluator is shared by the reader and memoizes
+     * evaluated cells, so cells referenced by many formulas are only evaluated once.
+     */
+    LAZY,
+    /**
+     * Evaluate all formulas of the workbook once when the reader is built, then use the refreshed cached results.
+     */
+    EAGER
+}
@@ -0,0 +1,89 @@
+package vn.locdt.excel.reader;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.util.CellReference;
+import vn.locdt.excel.reader.exception.ExcelMappingException;
+import vn.locdt.excel.utils.ExcelUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of the header row of a sheet: header name to column index, built by scanning the row once.
+ * Header mappings are resolved to column references through it before the mapping plan is compiled,
+ * so rows are then read by column index like any column mapping.
+ */
+final class HeaderIndex {
+    private final int rowNum;
+    private final Map<String, Integer> columns = new HashMap<>();
+    private final Set<String> duplicates = new LinkedHashSet<>();
+
+    private HeaderIndex(int rowNum, Row row) {
+        this.rowNum = rowNum;
+        if (row == null) {
+            return;
+        }
+
+        for (Cell cell : row) {
+            String header = ExcelUtils.formatCellValue(cell).trim();
+            if (!header.isEmpty() && this.columns.putIfAbsent(header, cell.getColumnIndex()) != null) {
+                this.duplicates.add(header);
+            }
+        }
+    }
+
+    /**
+     * @param rowNum index of the header row
+     * @param row    the header row, null if the row is empty
+     * @return the index of the row's headers, trimmed
+     */
+    static HeaderIndex of(int rowNum, Row row) {
+        return new HeaderIndex(rowNum, row);
+    }
+
+    /**
+     * @param fieldInfos mapping information declared in builder
+     * @return true if a field is mapped by header
+     */
+    static boolean hasHeaderMapping(List<FieldInfo<?>> fieldInfos) {
+        return fieldInfos.stream().anyMatch(info -> info.getHeader() != null);
+    }
+
+    /**
+     * Replace header mappings by references to the columns of their headers.
+     * All headers are checked before reporting: the exception lists every missing and ambiguous header at once.
+     *
+     * @param fieldInfos mapping information declared in builder
+     * @return mapping information with column references only
+     * @throws ExcelMappingException throws if a mapped header is missing or appears in several columns
+     */
+    List<FieldInfo<?>> resolve(List<FieldInfo<?>> fieldInfos) {
+        List<FieldInfo<?>> resolved = new ArrayList<>(fieldInfos.size());
+        List<String> missing = new ArrayList<>();
+        List<String> ambiguous = new ArrayList<>();
+
+        for (FieldInfo<?> fieldInfo : fieldInfos) {
+            String header = fieldInfo.getHeader();
+            if (header == null) {
+                resolved.add(fieldInfo);
+            } else if (this.duplicates.contains(header.trim())) {
+                ambiguous.add(header);
+            } else if (!this.columns.containsKey(header.trim())) {
+                missing.add(header);
+            } else {
+                resolved.add(fieldInfo.resolve(CellReference.convertNumToColString(this.columns.get(header.trim()))));
+            }
+        }
+
+        if (!missing.isEmpty() || !ambiguous.isEmpty()) {
+            String mes = "Can not resolve headers of row %d: missing headers %s, headers found in several columns %s";
+            throw new ExcelMappingException(String.format(mes, this.rowNum, missing, ambiguous));
+        }
+        return resolved;
+    }
+}
@@ -0,0 +1,362 @@
+package vn.locdt.excel.reader;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.util.CellReference;
+import vn.locdt.excel.reader.converter.BooleanCellDataConverter;
+import vn.locdt.excel.reader.converter.CellDataConverter;
+import vn.locdt.excel.reader.converter.DoubleCellDataConverter;
+import vn.locdt.excel.reader.converter.IntCellDataConverter;
+import vn.locdt.excel.reader.converter.LongCellDataConverter;
+import vn.locdt.excel.reader.exception.ExcelMappingException;
+import vn.locdt.excel.utils.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Immutable, compiled form of the list of {@link FieldInfo}: all references are resolved to int indexes
+ * and validated once, so that mapping a row does not need any string parsing or validation.
+ * <p>
+ * Entities are either created by their no-arg constructor then written field by field, or, for records and immutable classes,
+ * created by their canonical constructor: slots then write to an argument buffer, see {@link MappingPlan#isConstructorMapping()}.
+ */
+final class MappingPlan {
+    private final boolean columnReference;
+    private final FieldSlot[] slots;
+    private final int[] referencedRows;
+    private final BiConsumer<Object, Row> rowMapper;
+    // null when entities are created by their no-arg constructor
+    private final Function<Object[], ?> constructor;
+    private final Object[] defaultArguments;
+
+    private MappingPlan(boolean columnReference, FieldSlot[] slots, int[] referencedRows, BiConsumer<Object, Row> rowMapper,
+                        Function<Object[], ?> constructor, Object[] defaultArguments) {
+        this.columnReference = columnReference;
+        this.slots = slots;
+        this.referencedRows = referencedRows;
+        this.rowMapper = rowMapper;
+        this.constructor = constructor;
+        this.defaultArguments = defaultArguments;
+    }
+
+    /**
+     * Resolve the mapped fields and references of the entity class.
+     *
+     * @param clazz      the entity class
+     * @param fieldInfos mapping information declared in builder
+     * @return the compiled plan
+     * @throws ExcelMappingException throws if a field does not exist or references do not match the declared attributes
+     */
+    static MappingPlan compile(Class<?> clazz, List<FieldInfo<?>> fieldInfos) {
+        return compile(clazz, fieldInfos, 0, Collections.emptySet(), false);
+    }
+
+    /**
+     * Like {@link MappingPlan#compile(Class, List)}, with canonicalized string fields.
+     * Entities are created by their canonical constructor if requested, or if the class has no no-arg constructor
+     * but a canonical constructor, see {@link ReflectionUtils#getCanonicalComponents(Class)}.
+     *
+     * @param clazz                the entity class
+     * @param fieldInfos           mapping information declared in builder
+     * @param stringCacheSize      maximum number of values cached per canonicalized field, 0 to disable canonicalization
+     * @param canonicalizedFields  names of the canonicalized fields, empty for all single cell String fields
+     * @param byConstructor        create entities by their canonical constructor even if they have a no-arg constructor
+     * @return the compiled plan
+     * @throws ExcelMappingException throws if a field does not exist, references do not match the declared attributes,
+     *                               a canonicalized field is not a single cell String field or entities can not be created by constructor
+     */
+    static MappingPlan compile(Class<?> clazz, List<FieldInfo<?>> fieldInfos, int stringCacheSize, Set<String> canonicalizedFields,
+                               boolean byConstructor) {
+        Map<String, Field> mapOfNameAndFields = ReflectionUtils.getMapOfFieldNameAndField(clazz);
+        boolean columnReference = isColumnReference(fieldInfos);
+        FieldSlot[] slots = new FieldSlot[fieldInfos.size()];
+        TreeSet<Integer> referencedRows = new TreeSet<>();
+        List<String> components = byConstructor || !ReflectionUtils.hasNoArgConstructor(clazz)
+                ? ReflectionUtils.getCanonicalComponents(clazz) : null;
+        if (byConstructor && components == null) {
+            throw new ExcelMappingException(String.format("Can not create '%s' by constructor: no constructor taking all its fields in declaration order",
+                    clazz.getName()));
+        }
+
+        for (int i = 0; i < slots.length; i++) {
+            FieldInfo<?> fieldInfo = fieldInfos.get(i);
+            Field field = mapOfNameAndFields.get(fieldInfo.getFieldName());
+            if (field == null) {
+                throw new ExcelMappingException(clazz, fieldInfo.getFieldName());
+            }
+
+            List<String> references = fieldInfo.getReferences();
+            if (references.size() != fieldInfo.getReferenceTypes().size()) {
+                String mes = "Can not convert to field '%s.%s': Number of references is not equal to the number of declared attributes";
+                throw new ExcelMappingException(String.format(mes, fieldInfo.getConverter().getConvertedType(), fieldInfo.getFieldName()));
+            }
+
+            int[] rows = new int[references.size()];
+            int[] columns = new int[references.size()];
+            for (int j = 0; j < references.size(); j++) {
+                if (columnReference) {
+                    rows[j] = -1;
+                    columns[j] = CellReference.convertColStringToIndex(references.get(j));
+                } else {
+                    CellReference cf = new CellReference(references.get(j));
+                    rows[j] = cf.getRow();
+                    columns[j] = cf.getCol();
+                    referencedRows.add(rows[j]);
+                }
+            }
+            slots[i] = components != null ? createArgumentSlot(clazz, field, components, fieldInfo.getConverter(), rows, columns)
+                    : createSlot(clazz, field, fieldInfo.getConverter(), rows, columns);
+            if (stringCacheSize > 0 && (canonicalizedFields.isEmpty() || canonicalizedFields.contains(field.getName()))) {
+                if (String.class.equals(fieldInfo.getConverter().getConvertedType()) && columns.length == 1) {
+                    slots[i].stringCacheSize = stringCacheSize;
+                } else if (!canonicalizedFields.isEmpty()) {
+                    throw new ExcelMappingException(String.format("Can not canonicalize field '%s': only single cell String fields can be canonicalized", field.getName()));
+                }
+            }
+        }
+
+        for (String canonicalizedField : canonicalizedFields) {
+            if (fieldInfos.stream().noneMatch(info -> info.getFieldName().equals(canonicalizedField))) {
+                throw new ExcelMappingException(String.format("Can not canonicalize field '%s': the field is not mapped", canonicalizedField));
+            }
+        }
+
+        int[] rows = referencedRows.stream().mapToInt(Integer::intValue).toArray();
+        if (components == null) {
+            return new MappingPlan(columnReference, slots, rows, null, null, null);
+        }
+        return new MappingPlan(columnReference, slots, rows, null, ReflectionUtils.getCanonicalInstantiator(clazz), defaultArguments(clazz, components));
+    }
+
+    /**
+     * Generate a row mapper class for this plan, see {@link RowMapperGenerator}.
+     *
+     * @param clazz the entity class
+     * @return a plan with the same slots and the generated mapper, or this plan if the mapping can not be generated
+     */
+    MappingPlan withGeneratedRowMapper(Class<?> clazz) {
+        BiConsumer<Object, Row> generated = this.constructor == null ? RowMapperGenerator.generate(clazz, this) : null;
+        return generated != null
+                ? new MappingPlan(this.columnReference, this.slots, this.referencedRows, generated, null, null)
+                : this;
+    }
+
+    // in constructor mapping, the value of a field is stored in the argument buffer at the index of its component
+    private static FieldSlot createArgumentSlot(Class<?> clazz, Field field, List<String> components, CellDataConverter<?> converter,
+                                                int[] rows, int[] columns) {
+        int index = components.indexOf(field.getName());
+        if (index < 0) {
+            String mes = "Can not map field '%s.%s' by constructor: it is not a parameter of the canonical constructor";
+            throw new ExcelMappingException(String.format(mes, clazz.getName(), field.getName()));
+        }
+        return new FieldSlot(field, (arguments, value) -> ((Object[]) arguments)[index] = value, converter, rows, columns);
+    }
+
+    // arguments of the fields left unmapped or blank: null, or the default value of primitive parameters
+    private static Object[] defaultArguments(Class<?> clazz, List<String> components) {
+        Object[] arguments = new Object[components.size()];
+        for (int i = 0; i < arguments.length; i++) {
+            arguments[i] = ReflectionUtils.getDefaultValue(ReflectionUtils.getFieldType(clazz, components.get(i)));
+        }
+        return arguments;
+    }
+
+    // use the unboxed path when a single cell is written to a primitive property by a converter supporting its type
+    private static FieldSlot createSlot(Class<?> clazz, Field field, CellDataConverter<?> converter, int[] rows, int[] columns) {
+        String name = field.getName();
+        Class<?> type = columns.length == 1 ? ReflectionUtils.getWritableType(clazz, name) : null;
+        FieldSlot slot = new FieldSlot(field, ReflectionUtils.getSetter(clazz, name), converter, rows, columns);
+
+        if (int.class.equals(type) && converter instanceof IntCellDataConverter) {
+            slot.kind = SlotKind.INT;
+            slot.intSetter = ReflectionUtils.getIntSetter(clazz, name);
+        } else if (long.class.equals(type) && converter instanceof LongCellDataConverter) {
+            slot.kind = SlotKind.LONG;
+            slot.longSetter = ReflectionUtils.getLongSetter(clazz, name);
+        } else if (double.class.equals(type) && converter instanceof DoubleCellDataConverter) {
+            slot.kind = SlotKind.DOUBLE;
+            slot.doubleSetter = ReflectionUtils.getDoubleSetter(clazz, name);
+        } else if (boolean.class.equals(type) && converter instanceof BooleanCellDataConverter) {
+            slot.kind = SlotKind.BOOLEAN;
+        }
+        return slot;
+    }
+
+    // check if the declared references are referenced to column or not
+    private static boolean isColumnReference(List<FieldInfo<?>> fieldInfos) {
+        for (FieldInfo<?> info : fieldInfos) {
+            for (String ref : info.getReferences()) {
+                for (char ch : ref.toCharArray()) {
+                    if (Character.isDigit(ch))
+                        return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if all references are column references, false if they are cell references
+     */
+    boolean isColumnReference() {
+        return this.columnReference;
+    }
+
+    FieldSlot[] getSlots() {
+        return this.slots;
+    }
+
+    /**
+     * @return sorted row indexes referenced by cell references, empty for column references
+     */
+    int[] getReferencedRows() {
+        return this.referencedRows;
+    }
+
+    /**
+     * @return true if entities are created by their canonical constructor: slots write to the argument buffer
+     * given by {@link MappingPlan#newArguments()} instead of an entity, which is then created by {@link MappingPlan#newInstance(Object[])}
+     */
+    boolean isConstructorMapping() {
+        return this.constructor != null;
+    }
+
+    /**
+     * Canonicalizers are created per reader: sharing them between the readers of a cached mapping would keep
+     * the values of earlier files and make concurrent readers share the same tables.
+     *
+     * @return a new canonicalizer for each canonicalized slot, indexed like the slots, null for the other slots
+     */
+    StringCanonicalizer[] newCanonicalizers() {
+        StringCanonicalizer[] canonicalizers = new StringCanonicalizer[this.slots.length];
+        for (int i = 0; i < this.slots.length; i++) {
+            if (this.slots[i].isCanonicalized()) {
+                canonicalizers[i] = new StringCanonicalizer(this.slots[i].stringCacheSize);
+            }
+        }
+        return canonicalizers;
+    }
+
+    /**
+     * @return a new argument buffer, filled with the default arguments
+     */
+    Object[] newArguments() {
+        return this.defaultArguments.clone();
+    }
+
+    /**
+     * Fill a reused argument buffer with the default arguments, before mapping a new row.
+     *
+     * @param arguments the argument buffer
+     */
+    void resetArguments(Object[] arguments) {
+        System.arraycopy(this.defaultArguments, 0, arguments, 0, arguments.length);
+    }
+
+    /**
+     * Create an entity in a single call of its canonical constructor.
+     *
+     * @param arguments the argument buffer, which can be reused once this method returns
+     * @return the entity
+     */
+    Object newInstance(Object[] arguments) {
+        return this.constructor.apply(arguments);
+    }
+
+    /**
+     * @return the generated mapper writing all slots of a row to an entity, null if not generated
+     */
+    BiConsumer<Object, Row> getRowMapper() {
+        return this.rowMapper;
+    }
+
+    /**
+     * How the value of a slot is converted and written: boxed through {@link CellDataConverter},
+     * or unboxed through one of the primitive converter interfaces.
+     */
+    enum SlotKind {
+        OBJECT, INT, LONG, DOUBLE, BOOLEAN
+    }
+
+    /**
+     * Compiled mapping of one field: the cells to read and the converter to apply.
+     * For column references, row indexes are -1 and the cells are read from the mapped row.
+     */
+    static final class FieldSlot {
+        private final Field field;
+        private final BiConsumer<Object, Object> setter;
+        private final CellDataConverter<?> converter;
+        private final int[] rows;
+        private final int[] columns;
+        private SlotKind kind = SlotKind.OBJECT;
+        private ObjIntConsumer<Object> intSetter;
+        private ObjLongConsumer<Object> longSetter;
+        private ObjDoubleConsumer<Object> doubleSetter;
+        // maximum number of values cached for a canonicalized String field, 0 for other fields
+        private int stringCacheSize;
+
+        private FieldSlot(Field field, BiConsumer<Object, Object> setter, CellDataConverter<?> converter, int[] rows, int[] columns) {
+            this.field = field;
+            this.setter = setter;
+            this.converter = converter;
+            this.rows = rows;
+            this.columns = columns;
+        }
+
+        Field getField() {
+            return this.field;
+        }
+
+        String getFieldName() {
+            return this.field.getName();
+        }
+
+        BiConsumer<Object, Object> getSetter() {
+            return this.setter;
+        }
+
+        CellDataConverter<?> getConverter() {
+            return this.converter;
+        }
+
+        int[] getRows() {
+            return this.rows;
+        }
+
+        int[] getColumns() {
+            return this.columns;
+        }
+
+        SlotKind getKind() {
+            return this.kind;
+        }
+
+        ObjIntConsumer<Object> getIntSetter() {
+            return this.intSetter;
+        }
+
+        ObjLongConsumer<Object> getLongSetter() {
+            return this.longSetter;
+        }
+
+        ObjDoubleConsumer<Object> getDoubleSetter() {
+            return this.doubleSetter;
+        }
+
+        /**
+         * @return true if the values of this String field are canonicalized, see {@link MappingPlan#newCanonicalizers()}
+         */
+        boolean isCanonicalized() {
+            return this.stringCacheSize > 0;
+        }
+    }
+}
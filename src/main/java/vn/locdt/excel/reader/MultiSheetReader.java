@@ -0,0 +1,249 @@
+package vn.locdt.excel.reader;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import vn.locdt.excel.reader.exception.CellConverterException;
+import vn.locdt.excel.reader.exception.ExcelReadException;
+import vn.locdt.excel.reader.exception.UncheckedCellConverterException;
+import vn.locdt.excel.reader.stream.StreamingWorkbook;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Map many sheets of a workbook with the same mapping, each sheet being read by its own {@link ExcelReader}.
+ * <p>
+ * In streaming mode sheets are read concurrently on the pool: each task parses its sheet through its own
+ * package opened by {@link StreamingWorkbook#reopen()}, so no POI object is shared between threads.
+ * POI workbooks loaded in memory are not thread-safe, even for reading: their sheets are read one by one on the caller thread.
+ * A multi-sheet reader built in streaming mode owns the opened file and must be closed after use.
+ *
+ * @param <E> type of entity
+ */
+public class MultiSheetReader<E> implements Closeable {
+    private final Class<E> clazz;
+    private final ExcelMapping<E> mapping;
+    private final Workbook wb;
+    private final StreamingWorkbook streamingWb;
+    private final FormulaEvaluation formulaEvaluation;
+    private final ErrorPolicy errorPolicy;
+    private final ReadListener listener;
+    private final ForkJoinPool pool;
+
+    // read the loaded workbook if not null, otherwise the streaming workbook
+    MultiSheetReader(ExcelMapping<E> mapping, Workbook wb, StreamingWorkbook streamingWb, long openNanos, ForkJoinPool pool) {
+        this.clazz = mapping.getMappedClass();
+        this.mapping = mapping;
+        this.wb = wb;
+        this.streamingWb = streamingWb;
+        this.pool = pool;
+        this.errorPolicy = mapping.newErrorPolicy();
+        this.listener = mapping.getListener();
+        if (this.listener != null && this.streamingWb != null) {
+            this.listener.onWorkbookOpened(openNanos);
+        }
+
+        if (this.wb != null && mapping.getFormulaEvaluation() == FormulaEvaluation.EAGER) {
+            // refresh all cached results once for all sheets instead of once per sheet's reader
+            this.wb.getCreationHelper().createFormulaEvaluator().evaluateAll();
+            this.formulaEvaluation = FormulaEvaluation.CACHED;
+        } else {
+            this.formulaEvaluation = mapping.getFormulaEvaluation();
+        }
+    }
+
+    /**
+     * Function reading one sheet through the reader bound to it.
+     *
+     * @param <E> type of entity
+     * @param <R> type of the result of a sheet
+     */
+    @FunctionalInterface
+    public interface SheetFunction<E, R> {
+        R apply(ExcelReader<E> reader) throws CellConverterException;
+    }
+
+    /**
+     * @return names of the non-hidden sheets of the workbook, in workbook order
+     */
+    public List<String> getVisibleSheetNames() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < this.getNumberOfSheets(); i++) {
+            if (!this.isSheetHidden(i)) {
+                names.add(this.getSheetName(i));
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Read all non-hidden sheets of the workbook.
+     *
+     * @param function reads one sheet, for example {@code reader -> reader.readRow(1, 100)}
+     * @param <R>      type of the result of a sheet
+     * @return results by sheet's name, in workbook order
+     * @throws CellConverterException throws if converting process of a sheet has errors
+     * @see MultiSheetReader#read(List, SheetFunction)
+     */
+    public <R> Map<String, R> readVisibleSheets(SheetFunction<E, R> function) throws CellConverterException {
+        return this.read(this.getVisibleSheetNames(), function);
+    }
+
+    /**
+     * Read the sheets with the given names.
+     *
+     * @param sheetNames names of the sheets
+     * @param function   reads one sheet, called concurrently in streaming mode
+     * @param <R>        type of the result of a sheet
+     * @return results by sheet's name, in the order of the given names
+     * @throws IllegalArgumentException throws if a sheet does not exist
+     * @throws CellConverterException   throws if converting process of a sheet has errors
+     */
+    public <R> Map<String, R> read(List<String> sheetNames, SheetFunction<E, R> function) throws CellConverterException {
+        int[] sheetIndexes = new int[sheetNames.size()];
+        for (int i = 0; i < sheetIndexes.length; i++) {
+            sheetIndexes[i] = this.getSheetIndex(sheetNames.get(i));
+            if (sheetIndexes[i] < 0) {
+                throw new IllegalArgumentException("Sheet '" + sheetNames.get(i) + "' does not exist");
+            }
+        }
+        return this.read(sheetIndexes, function);
+    }
+
+    /**
+     * Read the sheets at the given indexes.
+     *
+     * @param sheetIndexes indexes of the sheets in workbook
+     * @param function     reads one sheet, called concurrently in streaming mode
+     * @param <R>          type of the result of a sheet
+     * @return results by sheet's name, in the order of the given indexes
+     * @throws IllegalArgumentException throws if a sheet index is out of range
+     * @throws CellConverterException   throws if converting process of a sheet has errors
+     */
+    public <R> Map<String, R> read(int[] sheetIndexes, SheetFunction<E, R> function) throws CellConverterException {
+        for (int sheetIndex : sheetIndexes) {
+            if (sheetIndex < 0 || sheetIndex >= this.getNumberOfSheets()) {
+                throw new IllegalArgumentException(String.format("Sheet index (%d) is out of range", sheetIndex));
+            }
+        }
+
+        Map<String, R> results = new LinkedHashMap<>();
+        if (this.streamingWb == null) {
+            for (int sheetIndex : sheetIndexes) {
+                Sheet sheet = this.wb.getSheetAt(sheetIndex);
+                ExcelReader<E> reader = new ExcelReader<>(this.clazz, this.getPlan(sheet, null, sheetIndex), sheet, null, sheetIndex,
+                        this.formulaEvaluation, this.errorPolicy, this.listener);
+                results.put(this.getSheetName(sheetIndex), function.apply(reader));
+            }
+            return results;
+        }
+
+        List<ForkJoinTask<R>> tasks = new ArrayList<>(sheetIndexes.length);
+        for (int sheetIndex : sheetIndexes) {
+            tasks.add(this.pool.submit(() -> this.readStreamingSheet(sheetIndex, function)));
+        }
+
+        try {
+            for (int i = 0; i < sheetIndexes.length; i++) {
+                results.put(this.getSheetName(sheetIndexes[i]), this.join(tasks.get(i)));
+            }
+        } finally {
+            // nothing is left running on the pool when a sheet fails
+            tasks.forEach(task -> task.cancel(false));
+        }
+        return results;
+    }
+
+    /**
+     * Release the file opened in streaming mode. Does nothing for a reader built on a loaded workbook.
+     *
+     * @throws IOException throws if the file can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.streamingWb != null) {
+            this.streamingWb.close();
+        }
+    }
+
+    // task body: read a sheet of a package opened for the task only
+    private <R> R readStreamingSheet(int sheetIndex, SheetFunction<E, R> function) {
+        StreamingWorkbook sheetWb;
+        try {
+            long start = System.nanoTime();
+            sheetWb = this.streamingWb.reopen();
+            if (this.listener != null) {
+                this.listener.onWorkbookOpened(System.nanoTime() - start);
+            }
+        } catch (IOException e) {
+            throw new ExcelReadException("Can not open sheet " + this.getSheetName(sheetIndex), e);
+        }
+
+        try (ExcelReader<E> reader = this.createStreamingReader(sheetWb, sheetIndex)) {
+            return function.apply(reader);
+        } catch (CellConverterException e) {
+            throw new UncheckedCellConverterException(e);
+        } catch (IOException e) {
+            throw new ExcelReadException("Can not read sheet " + this.getSheetName(sheetIndex), e);
+        }
+    }
+
+    // the reader owns the workbook once created
+    private ExcelReader<E> createStreamingReader(StreamingWorkbook sheetWb, int sheetIndex) throws IOException {
+        try {
+            return new ExcelReader<>(this.clazz, this.getPlan(null, sheetWb, sheetIndex), null, sheetWb, sheetIndex,
+                    this.formulaEvaluation, this.errorPolicy, this.listener);
+        } catch (RuntimeException e) {
+            sheetWb.close();
+            throw e;
+        }
+    }
+
+    // the plan shared by all sheets, or the plan of a sheet when fields are mapped by header
+    private MappingPlan getPlan(Sheet sheet, StreamingWorkbook sheetWb, int sheetIndex) {
+        return this.mapping.compilePlan(sheet, sheetWb, sheetIndex);
+    }
+
+    // wait for a task, rethrowing its failure as thrown by the task
+    private <R> R join(ForkJoinTask<R> task) throws CellConverterException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExcelReadException("Interrupted while reading sheets", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedCellConverterException) {
+                throw ((UncheckedCellConverterException) cause).getCause();
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ExcelReadException("Can not read sheet", cause);
+        }
+    }
+
+    private int getNumberOfSheets() {
+        return this.streamingWb != null ? this.streamingWb.getNumberOfSheets() : this.wb.getNumberOfSheets();
+    }
+
+    private String getSheetName(int sheetIndex) {
+        return this.streamingWb != null ? this.streamingWb.getSheetName(sheetIndex) : this.wb.getSheetName(sheetIndex);
+    }
+
+    private int getSheetIndex(String name) {
+        return this.streamingWb != null ? this.streamingWb.getSheetIndex(name) : this.wb.getSheetIndex(name);
+    }
+
+    private boolean isSheetHidden(int sheetIndex) {
+        return this.streamingWb != null ? this.streamingWb.isSheetHidden(sheetIndex) : this.wb.isSheetHidden(sheetIndex);
+    }
+}
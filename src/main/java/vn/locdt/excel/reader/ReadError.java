@@ -0,0 +1,67 @@
+package vn.locdt.excel.reader;
+
+/**
+ * A conversion failure recorded by a lenient reader instead of being thrown.
+ * Only the location, the raw value and the expected type are kept, no stack trace.
+ */
+public final class ReadError {
+    private final int rowNum;
+    private final int columnIndex;
+    private final String fieldName;
+    private final Object rawValue;
+    private final Class<?> targetType;
+    private final String reason;
+
+    ReadError(int rowNum, int columnIndex, String fieldName, Object rawValue, Class<?> targetType, String reason) {
+        this.rowNum = rowNum;
+        this.columnIndex = columnIndex;
+        this.fieldName = fieldName;
+        this.rawValue = rawValue;
+        this.targetType = targetType;
+        this.reason = reason;
+    }
+
+    /**
+     * @return the 0-based index of the row of the failing cell
+     */
+    public int getRowNum() {
+        return this.rowNum;
+    }
+
+    /**
+     * @return the 0-based index of the column of the failing cell
+     */
+    public int getColumnIndex() {
+        return this.columnIndex;
+    }
+
+    public String getFieldName() {
+        return this.fieldName;
+    }
+
+    /**
+     * @return the value read from the cell, or the list of values for a field mapped to several cells
+     */
+    public Object getRawValue() {
+        return this.rawValue;
+    }
+
+    public Class<?> getTargetType() {
+        return this.targetType;
+    }
+
+    /**
+     * @return the message of the conversion failure, may be null
+     */
+    public String getReason() {
+        return this.reason;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Can not convert row %d, column %d (%s) to %s of field '%s'%s",
+                this.rowNum, this.columnIndex, this.rawValue,
+                this.targetType != null ? this.targetType.getSimpleName() : null, this.fieldName,
+                this.reason != null ? ": " + this.reason : "");
+    }
+}
@@ -0,0 +1,56 @@
+package vn.locdt.excel.reader;
+
+/**
+ * Receives counters and timings of a reader, to see where the time of reading goes.
+ * All methods do nothing by default, implementations override the events they need.
+ * <p>
+ * Events are sent from the reading threads: pipelined and multi-sheet readers call the listener concurrently,
+ * so implementations must be thread-safe and cheap. {@link ReadMetrics} is a ready-made implementation.
+ * Readers built without a listener do not measure anything.
+ */
+public interface ReadListener {
+    /**
+     * A workbook was opened in streaming mode.
+     *
+     * @param nanos time spent opening the file and reading the workbook's structure
+     */
+    default void onWorkbookOpened(long nanos) {
+    }
+
+    /**
+     * A row, or the set of referenced cells for cell references, was mapped.
+     *
+     * @param skipped true if the row had conversion errors and was skipped in lenient mode
+     */
+    default void onRowRead(boolean skipped) {
+    }
+
+    /**
+     * A field of an entity was mapped. Primitive fields are written without boxing while converted:
+     * for them, writing the field is included in the conversion time.
+     *
+     * @param fieldName    the mapped field
+     * @param cells        number of cells converted to the field
+     * @param fetchNanos   time spent fetching the cells, formula evaluation included
+     * @param convertNanos time spent converting the cells
+     * @param setNanos     time spent writing the value to the field
+     */
+    default void onFieldRead(String fieldName, int cells, long fetchNanos, long convertNanos, long setNanos) {
+    }
+
+    /**
+     * Cells of a field could not be converted, whether the error is thrown or recorded in lenient mode.
+     *
+     * @param fieldName the mapped field
+     */
+    default void onConversionFailure(String fieldName) {
+    }
+
+    /**
+     * A pass over a streamed sheet ended.
+     *
+     * @param bytes number of bytes of sheet content parsed by the pass, after decompression
+     */
+    default void onBytesParsed(long bytes) {
+    }
+}
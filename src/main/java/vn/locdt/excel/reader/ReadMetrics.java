@@ -0,0 +1,128 @@
+package vn.locdt.excel.reader;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link ReadListener} summing the events of one or many readers into {@link LongAdder}s,
+ * which stay cheap when updated by many threads. Values can be read at any time, for example
+ * by a gauge of a metrics system, and are consistent once the readers are done.
+ */
+public class ReadMetrics implements ReadListener {
+    private final LongAdder workbookOpenNanos = new LongAdder();
+    private final LongAdder rowsRead = new LongAdder();
+    private final LongAdder rowsSkipped = new LongAdder();
+    private final LongAdder bytesParsed = new LongAdder();
+    private final ConcurrentMap<String, FieldMetrics> fields = new ConcurrentHashMap<>();
+
+    @Override
+    public void onWorkbookOpened(long nanos) {
+        this.workbookOpenNanos.add(nanos);
+    }
+
+    @Override
+    public void onRowRead(boolean skipped) {
+        this.rowsRead.increment();
+        if (skipped) {
+            this.rowsSkipped.increment();
+        }
+    }
+
+    @Override
+    public void onFieldRead(String fieldName, int cells, long fetchNanos, long convertNanos, long setNanos) {
+        FieldMetrics field = this.getField(fieldName);
+        field.cellsConverted.add(cells);
+        field.fetchNanos.add(fetchNanos);
+        field.convertNanos.add(convertNanos);
+        field.setNanos.add(setNanos);
+    }
+
+    @Override
+    public void onConversionFailure(String fieldName) {
+        this.getField(fieldName).conversionFailures.increment();
+    }
+
+    @Override
+    public void onBytesParsed(long bytes) {
+        this.bytesParsed.add(bytes);
+    }
+
+    public long getWorkbookOpenNanos() {
+        return this.workbookOpenNanos.sum();
+    }
+
+    /**
+     * @return number of mapped rows, skipped rows included
+     */
+    public long getRowsRead() {
+        return this.rowsRead.sum();
+    }
+
+    /**
+     * @return number of rows skipped in lenient mode because of conversion errors
+     */
+    public long getRowsSkipped() {
+        return this.rowsSkipped.sum();
+    }
+
+    public long getBytesParsed() {
+        return this.bytesParsed.sum();
+    }
+
+    /**
+     * @return metrics by field's name, updated while reading
+     */
+    public Map<String, FieldMetrics> getFields() {
+        return Collections.unmodifiableMap(this.fields);
+    }
+
+    // get before creating: fields are created once, then only read on the hot path
+    private FieldMetrics getField(String fieldName) {
+        FieldMetrics field = this.fields.get(fieldName);
+        if (field == null) {
+            FieldMetrics created = new FieldMetrics();
+            field = this.fields.putIfAbsent(fieldName, created);
+            if (field == null) {
+                field = created;
+            }
+        }
+        return field;
+    }
+
+    /**
+     * Counters and timings of a mapped field.
+     */
+    public static final class FieldMetrics {
+        private final LongAdder cellsConverted = new LongAdder();
+        private final LongAdder conversionFailures = new LongAdder();
+        private final LongAdder fetchNanos = new LongAdder();
+        private final LongAdder convertNanos = new LongAdder();
+        private final LongAdder setNanos = new LongAdder();
+
+        private FieldMetrics() {
+        }
+
+        public long getCellsConverted() {
+            return this.cellsConverted.sum();
+        }
+
+        public long getConversionFailures() {
+            return this.conversionFailures.sum();
+        }
+
+        public long getFetchNanos() {
+            return this.fetchNanos.sum();
+        }
+
+        public long getConvertNanos() {
+            return this.convertNanos.sum();
+        }
+
+        public long getSetNanos() {
+            return this.setNanos.sum();
+        }
+    }
+}
@@ -0,0 +1,542 @@
+package vn.locdt.excel.reader;
+
+import org.apache.commons.lang3.ClassUtils;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import vn.locdt.excel.reader.MappingPlan.FieldSlot;
+import vn.locdt.excel.reader.MappingPlan.SlotKind;
+import vn.locdt.excel.reader.converter.BooleanCellDataConverter;
+import vn.locdt.excel.reader.converter.CellDataConverter;
+import vn.locdt.excel.reader.converter.DoubleCellDataConverter;
+import vn.locdt.excel.reader.converter.IntCellDataConverter;
+import vn.locdt.excel.reader.converter.LongCellDataConverter;
+import vn.locdt.excel.utils.ExcelUtils;
+import vn.locdt.excel.utils.ReflectionUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Generate a class mapping a row to an entity with straight-line code, one block per field:
+ * fetch the cell at column N, convert it, call the setter. Compared to the loop over the {@link FieldSlot}s of the plan,
+ * each converter and setter call has its own call site, so that the JIT sees one receiver type per site and can inline
+ * the mapping of the whole row. A class is generated once per entity class and shape of the plan (columns, kinds and setters),
+ * then instantiated with the converters of each plan, so that binding a cached mapping again and again does not fill the metaspace.
+ * <p>
+ * Only plans of single column references, written through public setters of a public class, without canonicalized fields
+ * can be generated. The generated mapper throws the {@link vn.locdt.excel.reader.exception.CellConverterException}
+ * of the converters undecorated: readers map the row again through the plan to report it.
+ */
+final class RowMapperGenerator {
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+    // generated classes by shape of the plan, held by the entity class so that its class loader can be collected
+    private static final ClassValue<Map<String, Constructor<?>>> MAPPERS = new ClassValue<Map<String, Constructor<?>>>() {
+        @Override
+        protected Map<String, Constructor<?>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+    private static final int JAVA_6 = 50;
+
+    private static final String OBJECT = "java/lang/Object";
+    private static final String ROW = internalName(Row.class);
+    private static final String CELL_DESC = descriptor(Cell.class);
+
+    private RowMapperGenerator() {
+    }
+
+    /**
+     * @param clazz the entity class
+     * @param plan  the compiled mapping of the entity
+     * @return the generated mapper, accepting the entity and its row, or null if the plan can not be generated
+     */
+    @SuppressWarnings("unchecked")
+    static BiConsumer<Object, Row> generate(Class<?> clazz, MappingPlan plan) {
+        if (!plan.isColumnReference() || !isVisible(clazz)) {
+            return null;
+        }
+
+        FieldSlot[] slots = plan.getSlots();
+        Method[] setters = new Method[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            setters[i] = getSetter(clazz, slots[i]);
+            if (setters[i] == null) {
+                return null;
+            }
+        }
+
+        // the class only depends on the columns, kinds and setters of the slots: plans of the same shape share it
+        StringBuilder shape = new StringBuilder();
+        for (FieldSlot slot : slots) {
+            shape.append(slot.getColumns()[0]).append(':').append(slot.getKind()).append(':').append(slot.getFieldName()).append(';');
+        }
+        Constructor<?> constructor = MAPPERS.get(clazz).computeIfAbsent(shape.toString(), k -> define(clazz, slots, setters));
+
+        Object[] converters = new Object[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            converters[i] = slots[i].getConverter();
+        }
+        try {
+            return (BiConsumer<Object, Row>) constructor.newInstance((Object) converters);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    // define the mapper class of a shape, errors of the generated bytecode are not hidden
+    private static Constructor<?> define(Class<?> clazz, FieldSlot[] slots, Method[] setters) {
+        String className = RowMapperGenerator.class.getName() + "$" + clazz.getSimpleName() + COUNTER.incrementAndGet();
+        byte[] bytecode = new ClassWriter(className.replace('.', '/'), clazz, slots, setters).toByteArray();
+        try {
+            return new GeneratedClassLoader(clazz.getClassLoader()).define(className, bytecode).getConstructor(Object[].class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Generated mapper has no constructor", e);
+        }
+    }
+
+    // the generated class is defined by a child of the entity's class loader, which must see the classes of this library
+    private static boolean isVisible(Class<?> clazz) {
+        if (!Modifier.isPublic(clazz.getModifiers()) || clazz.getClassLoader() == null) {
+            return false;
+        }
+        try {
+            return Class.forName(RowMapperGenerator.class.getName(), false, clazz.getClassLoader()) == RowMapperGenerator.class
+                    && Class.forName(Row.class.getName(), false, clazz.getClassLoader()) == Row.class;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    // the public setter called for a slot, or null if the slot can not be generated
+    private static Method getSetter(Class<?> clazz, FieldSlot slot) {
+        if (slot.getColumns().length != 1 || slot.isCanonicalized()) {
+            return null;
+        }
+
+        Method setter = ReflectionUtils.getSetterMethod(clazz, slot.getFieldName());
+        if (setter == null) {
+            return null;
+        }
+
+        Class<?> type = setter.getParameterTypes()[0];
+        if (slot.getKind() == SlotKind.OBJECT && type.isPrimitive()) {
+            // the converted value is unboxed, without the widening conversions of the plan's setters
+            return ClassUtils.primitiveToWrapper(type).equals(slot.getConverter().getConvertedType()) ? setter : null;
+        }
+        return setter;
+    }
+
+    private static String internalName(Class<?> clazz) {
+        return clazz.getName().replace('.', '/');
+    }
+
+    private static String descriptor(Class<?> clazz) {
+        if (clazz == void.class) {
+            return "V";
+        } else if (clazz == int.class) {
+            return "I";
+        } else if (clazz == long.class) {
+            return "J";
+        } else if (clazz == double.class) {
+            return "D";
+        } else if (clazz == boolean.class) {
+            return "Z";
+        } else if (clazz == float.class) {
+            return "F";
+        } else if (clazz == short.class) {
+            return "S";
+        } else if (clazz == byte.class) {
+            return "B";
+        } else if (clazz == char.class) {
+            return "C";
+        } else if (clazz.isArray()) {
+            return internalName(clazz);
+        }
+        return "L" + internalName(clazz) + ";";
+    }
+
+    private static final class GeneratedClassLoader extends ClassLoader {
+        private GeneratedClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        private Class<?> define(String name, byte[] bytecode) {
+            return this.defineClass(name, bytecode, 0, bytecode.length);
+        }
+    }
+
+    /**
+     * Write the class file of a mapper. Class files of version 50 are verified without stack map frames,
+     * which keeps the writer to a constant pool and a few instructions.
+     */
+    private static final class ClassWriter {
+        private static final int ACC_PUBLIC = 0x0001;
+        private static final int ACC_PRIVATE = 0x0002;
+        private static final int ACC_FINAL = 0x0010;
+        private static final int ACC_SUPER = 0x0020;
+
+        private final ConstantPool pool = new ConstantPool();
+        private final String className;
+        private final Class<?> entityClass;
+        private final FieldSlot[] slots;
+        private final Method[] setters;
+
+        private ClassWriter(String className, Class<?> entityClass, FieldSlot[] slots, Method[] setters) {
+            this.className = className;
+            this.entityClass = entityClass;
+            this.slots = slots;
+            this.setters = setters;
+        }
+
+        private byte[] toByteArray() {
+            int thisClass = this.pool.classRef(this.className);
+            int superClass = this.pool.classRef(OBJECT);
+            int biConsumer = this.pool.classRef(internalName(BiConsumer.class));
+            int[] fieldNames = new int[this.slots.length];
+            int[] fieldTypes = new int[this.slots.length];
+            for (int i = 0; i < this.slots.length; i++) {
+                fieldNames[i] = this.pool.utf8("c" + i);
+                fieldTypes[i] = this.pool.utf8(converterDescriptor(this.slots[i]));
+            }
+            // all constants are created before the pool is written
+            byte[] constructor = this.method("<init>", "([Ljava/lang/Object;)V", this.constructorCode(), 3, 2);
+            byte[] accept = this.method("accept", "(Ljava/lang/Object;Ljava/lang/Object;)V", this.acceptCode(), 4, 5);
+
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeInt(0xCAFEBABE);
+                out.writeShort(0);
+                out.writeShort(JAVA_6);
+                this.pool.writeTo(out);
+
+                out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+                out.writeShort(thisClass);
+                out.writeShort(superClass);
+                out.writeShort(1);
+                out.writeShort(biConsumer);
+
+                out.writeShort(this.slots.length);
+                for (int i = 0; i < this.slots.length; i++) {
+                    out.writeShort(ACC_PRIVATE | ACC_FINAL);
+                    out.writeShort(fieldNames[i]);
+                    out.writeShort(fieldTypes[i]);
+                    out.writeShort(0);
+                }
+
+                out.writeShort(2);
+                out.write(constructor);
+                out.write(accept);
+                out.writeShort(0);
+                return bytes.toByteArray();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        // new Mapper(Object[] converters): store each converter in its typed field
+        private Code constructorCode() {
+            Code code = new Code();
+            code.op(Code.ALOAD_0);
+            code.op(Code.INVOKESPECIAL).u2(this.pool.methodRef(OBJECT, "<init>", "()V"));
+            for (int i = 0; i < this.slots.length; i++) {
+                code.op(Code.ALOAD_0);
+                code.op(Code.ALOAD_1);
+                code.op(Code.SIPUSH).u2(i);
+                code.op(Code.AALOAD);
+                code.op(Code.CHECKCAST).u2(this.pool.classRef(converterType(this.slots[i])));
+                code.op(Code.PUTFIELD).u2(this.fieldRef(i));
+            }
+            code.op(Code.RETURN);
+            return code;
+        }
+
+        // accept(Object entity, Object row): locals are 1 entity, 2 row, 3 cell, 4 converted value
+        private Code acceptCode() {
+            Code code = new Code();
+            String entity = internalName(this.entityClass);
+            code.op(Code.ALOAD_2);
+            code.op(Code.CHECKCAST).u2(this.pool.classRef(ROW));
+            code.op(Code.ASTORE_2);
+
+            for (int i = 0; i < this.slots.length; i++) {
+                FieldSlot slot = this.slots[i];
+                Method setter = this.setters[i];
+                Class<?> type = setter.getParameterTypes()[0];
+
+                // cell = row == null ? null : row.getCell(column)
+                code.op(Code.ACONST_NULL);
+                code.op(Code.ASTORE_3);
+                code.op(Code.ALOAD_2);
+                int noRow = code.jump(Code.IFNULL);
+                code.op(Code.ALOAD_2);
+                code.op(Code.SIPUSH).u2(slot.getColumns()[0]);
+                code.op(Code.INVOKEINTERFACE).u2(this.pool.interfaceMethodRef(ROW, "getCell", "(I)" + CELL_DESC)).u1(2).u1(0);
+                code.op(Code.ASTORE_3);
+                code.label(noRow);
+
+                int next;
+                if (slot.getKind() == SlotKind.OBJECT) {
+                    // value = converter.convert(cell); if (value != null) entity.setX(value)
+                    code.op(Code.ALOAD_0);
+                    code.op(Code.GETFIELD).u2(this.fieldRef(i));
+                    code.op(Code.ALOAD_3);
+                    code.op(Code.INVOKEINTERFACE)
+                            .u2(this.pool.interfaceMethodRef(internalName(CellDataConverter.class), "convert", "(" + CELL_DESC + ")Ljava/lang/Object;"))
+                            .u1(2).u1(0);
+                    code.op(Code.ASTORE).u1(4);
+                    code.op(Code.ALOAD).u1(4);
+                    next = code.jump(Code.IFNULL);
+                    code.op(Code.ALOAD_1);
+                    code.op(Code.CHECKCAST).u2(this.pool.classRef(entity));
+                    code.op(Code.ALOAD).u1(4);
+                    if (type.isPrimitive()) {
+                        String wrapper = internalName(ClassUtils.primitiveToWrapper(type));
+                        code.op(Code.CHECKCAST).u2(this.pool.classRef(wrapper));
+                        code.op(Code.INVOKEVIRTUAL).u2(this.pool.methodRef(wrapper, type.getName() + "Value", "()" + descriptor(type)));
+                    } else {
+                        code.op(Code.CHECKCAST).u2(this.pool.classRef(internalName(type)));
+                    }
+                } else {
+                    // if (!ExcelUtils.isBlank(cell)) entity.setX(converter.convertToX(cell))
+                    code.op(Code.ALOAD_3);
+                    code.op(Code.INVOKESTATIC).u2(this.pool.methodRef(internalName(ExcelUtils.class), "isBlank", "(" + CELL_DESC + ")Z"));
+                    next = code.jump(Code.IFNE);
+                    code.op(Code.ALOAD_1);
+                    code.op(Code.CHECKCAST).u2(this.pool.classRef(entity));
+                    code.op(Code.ALOAD_0);
+                    code.op(Code.GETFIELD).u2(this.fieldRef(i));
+                    code.op(Code.ALOAD_3);
+                    String method = "convertTo" + Character.toUpperCase(type.getName().charAt(0)) + type.getName().substring(1);
+                    code.op(Code.INVOKEINTERFACE)
+                            .u2(this.pool.interfaceMethodRef(converterType(slot), method, "(" + CELL_DESC + ")" + descriptor(type)))
+                            .u1(2).u1(0);
+                }
+
+                code.op(Code.INVOKEVIRTUAL).u2(this.pool.methodRef(entity, setter.getName(), methodDescriptor(setter)));
+                Class<?> returnType = setter.getReturnType();
+                if (returnType == long.class || returnType == double.class) {
+                    code.op(Code.POP2);
+                } else if (returnType != void.class) {
+                    // fluent setters
+                    code.op(Code.POP);
+                }
+                code.label(next);
+            }
+            code.op(Code.RETURN);
+            return code;
+        }
+
+        // public method_info with a single Code attribute, without exception table
+        private byte[] method(String name, String desc, Code code, int maxStack, int maxLocals) {
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeShort(ACC_PUBLIC);
+                out.writeShort(this.pool.utf8(name));
+                out.writeShort(this.pool.utf8(desc));
+                out.writeShort(1);
+                out.writeShort(this.pool.utf8("Code"));
+                byte[] instructions = code.toByteArray();
+                out.writeInt(12 + instructions.length);
+                out.writeShort(maxStack);
+                out.writeShort(maxLocals);
+                out.writeInt(instructions.length);
+                out.write(instructions);
+                out.writeShort(0);
+                out.writeShort(0);
+                return bytes.toByteArray();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private int fieldRef(int slotIndex) {
+            return this.pool.fieldRef(this.className, "c" + slotIndex, converterDescriptor(this.slots[slotIndex]));
+        }
+
+        private static String converterType(FieldSlot slot) {
+            switch (slot.getKind()) {
+                case INT:
+                    return internalName(IntCellDataConverter.class);
+                case LONG:
+                    return internalName(LongCellDataConverter.class);
+                case DOUBLE:
+                    return internalName(DoubleCellDataConverter.class);
+                case BOOLEAN:
+                    return internalName(BooleanCellDataConverter.class);
+                default:
+                    return internalName(CellDataConverter.class);
+            }
+        }
+
+        private static String converterDescriptor(FieldSlot slot) {
+            return "L" + converterType(slot) + ";";
+        }
+
+        private static String methodDescriptor(Method method) {
+            StringBuilder desc = new StringBuilder("(");
+            for (Class<?> parameterType : method.getParameterTypes()) {
+                desc.append(descriptor(parameterType));
+            }
+            return desc.append(')').append(descriptor(method.getReturnType())).toString();
+        }
+    }
+
+    /**
+     * Instructions of a method, with forward jumps patched when their label is reached.
+     */
+    private static final class Code {
+        private static final int ACONST_NULL = 0x01;
+        private static final int SIPUSH = 0x11;
+        private static final int ALOAD = 0x19;
+        private static final int ALOAD_0 = 0x2a;
+        private static final int ALOAD_1 = 0x2b;
+        private static final int ALOAD_2 = 0x2c;
+        private static final int ALOAD_3 = 0x2d;
+        private static final int AALOAD = 0x32;
+        private static final int ASTORE = 0x3a;
+        private static final int ASTORE_2 = 0x4d;
+        private static final int ASTORE_3 = 0x4e;
+        private static final int POP = 0x57;
+        private static final int POP2 = 0x58;
+        private static final int IFNE = 0x9a;
+        private static final int RETURN = 0xb1;
+        private static final int GETFIELD = 0xb4;
+        private static final int PUTFIELD = 0xb5;
+        private static final int INVOKEVIRTUAL = 0xb6;
+        private static final int INVOKESPECIAL = 0xb7;
+        private static final int INVOKESTATIC = 0xb8;
+        private static final int INVOKEINTERFACE = 0xb9;
+        private static final int CHECKCAST = 0xc0;
+        private static final int IFNULL = 0xc6;
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final List<int[]> jumps = new ArrayList<>();
+
+        private Code op(int opcode) {
+            this.bytes.write(opcode);
+            return this;
+        }
+
+        private Code u1(int value) {
+            this.bytes.write(value);
+            return this;
+        }
+
+        private Code u2(int value) {
+            this.bytes.write(value >>> 8);
+            this.bytes.write(value);
+            return this;
+        }
+
+        // write a jump to a label not placed yet, return the label
+        private int jump(int opcode) {
+            this.jumps.add(new int[]{this.bytes.size(), -1});
+            this.op(opcode).u2(0);
+            return this.jumps.size() - 1;
+        }
+
+        private void label(int label) {
+            this.jumps.get(label)[1] = this.bytes.size();
+        }
+
+        private byte[] toByteArray() {
+            byte[] code = this.bytes.toByteArray();
+            for (int[] jump : this.jumps) {
+                int offset = jump[1] - jump[0];
+                code[jump[0] + 1] = (byte) (offset >>> 8);
+                code[jump[0] + 2] = (byte) offset;
+            }
+            return code;
+        }
+    }
+
+    /**
+     * Constant pool of a class file, each constant being written once.
+     */
+    private static final class ConstantPool {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(this.bytes);
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private int count = 1;
+
+        private int utf8(String value) {
+            return this.constant("U" + value, out -> {
+                out.writeByte(1);
+                out.writeUTF(value);
+            });
+        }
+
+        private int classRef(String internalName) {
+            int name = this.utf8(internalName);
+            return this.constant("C" + internalName, out -> {
+                out.writeByte(7);
+                out.writeShort(name);
+            });
+        }
+
+        private int fieldRef(String owner, String name, String desc) {
+            return this.memberRef(9, owner, name, desc);
+        }
+
+        private int methodRef(String owner, String name, String desc) {
+            return this.memberRef(10, owner, name, desc);
+        }
+
+        private int interfaceMethodRef(String owner, String name, String desc) {
+            return this.memberRef(11, owner, name, desc);
+        }
+
+        private int memberRef(int tag, String owner, String name, String desc) {
+            int ownerClass = this.classRef(owner);
+            int nameUtf8 = this.utf8(name);
+            int descUtf8 = this.utf8(desc);
+            int nameAndType = this.constant("N" + name + ' ' + desc, out -> {
+                out.writeByte(12);
+                out.writeShort(nameUtf8);
+                out.writeShort(descUtf8);
+            });
+            return this.constant(tag + owner + '.' + name + ' ' + desc, out -> {
+                out.writeByte(tag);
+                out.writeShort(ownerClass);
+                out.writeShort(nameAndType);
+            });
+        }
+
+        private int constant(String key, ConstantWriter writer) {
+            Integer index = this.indexes.get(key);
+            if (index != null) {
+                return index;
+            }
+            try {
+                writer.write(this.out);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            this.indexes.put(key, this.count);
+            return this.count++;
+        }
+
+        private void writeTo(DataOutputStream classFile) throws IOException {
+            classFile.writeShort(this.count);
+            classFile.write(this.bytes.toByteArray());
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConstantWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,61 @@
+package vn.locdt.excel.reader;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import vn.locdt.excel.utils.ExcelUtils;
+
+/**
+ * End of the data of a sheet read by {@link ExcelReader#readToEnd(int, StopCondition)}, checked on each row
+ * physically present in the sheet before it is mapped. The sheet is always read at most until its last row.
+ */
+@FunctionalInterface
+public interface StopCondition {
+    /**
+     * Never stop before the last row of the sheet.
+     */
+    StopCondition LAST_ROW = (row, blankRows) -> false;
+
+    /**
+     * @param row       the next row physically present in the sheet
+     * @param blankRows number of consecutive blank rows right before this row, absent rows included
+     * @return true to stop reading before this row
+     */
+    boolean isEnd(Row row, int blankRows);
+
+    /**
+     * Stop after a run of blank rows: absent rows, or rows whose mapped cells are all blank.
+     *
+     * @param count number of consecutive blank rows ending the data
+     * @return the condition
+     */
+    static StopCondition blankRows(int count) {
+        Validate.isTrue(count > 0, "Number of blank rows must be positive");
+        return (row, blankRows) -> blankRows >= count;
+    }
+
+    /**
+     * Stop at a row holding a sentinel value in a key column, like a "Total" row under the data.
+     * The cell is compared with its formatted value, see {@link ExcelUtils#formatCellValue(Cell)}.
+     *
+     * @param column index of the key column
+     * @param value  the sentinel value
+     * @return the condition
+     */
+    static StopCondition sentinel(int column, String value) {
+        Validate.notNull(value, "Sentinel value must be not null");
+        return (row, blankRows) -> {
+            Cell cell = row.getCell(column);
+            return cell != null && value.equals(ExcelUtils.formatCellValue(cell).trim());
+        };
+    }
+
+    /**
+     * @param other another condition
+     * @return a condition stopping when this condition or the other one does
+     */
+    default StopCondition or(StopCondition other) {
+        Validate.notNull(other, "Stop condition must be not null");
+        return (row, blankRows) -> this.isEnd(row, blankRows) || other.isEnd(row, blankRows);
+    }
+}
@@ -0,0 +1,37 @@
+package vn.locdt.excel.reader;
+
+/**
+ * Bounded cache returning one shared instance for equal strings of a column, so that entities mapped from
+ * repeated values do not each retain their own copy. Values are stored in a fixed table by hash, a value replacing
+ * the one it collides with, so the most recent values are kept.
+ * <p>
+ * The table is read and written without lock by the workers of a pipelined reader: strings are immutable,
+ * so a racy read returns either a complete string or a stale one, and a missed hit only costs a duplicate instance.
+ */
+final class StringCanonicalizer {
+    private final String[] values;
+    private final int mask;
+
+    /**
+     * @param maxSize maximum number of cached values, rounded down to a power of 2
+     */
+    StringCanonicalizer(int maxSize) {
+        this.values = new String[Integer.highestOneBit(Math.max(maxSize, 1))];
+        this.mask = this.values.length - 1;
+    }
+
+    /**
+     * @param value a converted value
+     * @return the cached instance equal to the value, or the value itself after caching it
+     */
+    String canonicalize(String value) {
+        int hash = value.hashCode();
+        int i = (hash ^ (hash >>> 16)) & this.mask;
+        String cached = this.values[i];
+        if (value.equals(cached)) {
+            return cached;
+        }
+        this.values[i] = value;
+        return value;
+    }
+}
@@ -0,0 +1,12 @@
+package vn.locdt.excel.reader.converter;
+
+import org.apache.poi.ss.usermodel.Cell;
+import vn.locdt.excel.reader.exception.CellConverterException;
+
+/**
+ * A converter interface that converts a cell's value to a primitive {@code boolean}, without boxing.
+ * {@link vn.locdt.excel.reader.ExcelReader} uses it for fields of type {@code boolean}, blank cells are skipped before conversion.
+ */
+public interface BooleanCellDataConverter {
+    boolean convertToBoolean(Cell cell) throws CellConverterException;
+}
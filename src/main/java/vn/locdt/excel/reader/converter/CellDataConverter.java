@@ -11,5 +11,16 @@ import vn.locdt.excel.reader.exception.CellConverterException;
 public interface CellDataConverter<E> {
     E convert(Cell... cells) throws CellConverterException;
 
+    /**
+     * Single-cell overload, avoids allocating the varargs array when a field is mapped to only one cell.
+     *
+     * @param cell the mapped cell, may be null
+     * @return converted value
+     * @throws CellConverterException throws if the value can not be converted
+     */
+    default E convert(Cell cell) throws CellConverterException {
+        return this.convert(new Cell[]{cell});
+    }
+
     Class<E> getConvertedType();
 }
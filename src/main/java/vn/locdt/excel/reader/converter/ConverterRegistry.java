@@ -0,0 +1,117 @@
+package vn.locdt.excel.reader.converter;
+
+import org.apache.commons.lang3.Validate;
+import vn.locdt.excel.reader.ReferenceInfo;
+import vn.locdt.excel.reader.exception.ExcelMappingException;
+import vn.locdt.excel.utils.ExcelUtils;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Converters of the mapped types, resolved once per mapped field when a reader or a mapping is built.
+ * Single value types (strings, numbers, booleans, dates and enums) are converted by a {@link DefaultCellDataConverter}
+ * shared by all mappings of the type, composite types by a {@link DefaultCellDataConverter} created for their attributes.
+ * A converter registered for a type replaces the default one, for domain types like money or identifiers.
+ * <p>
+ * The {@link ConverterRegistry#global() global} registry applies to all builders,
+ * and each builder may override it, see {@link vn.locdt.excel.reader.ExcelReaderBuilder#converter(Class, CellDataConverter)}.
+ * Registered converters are shared between readers and threads, so they must be stateless. Instances are thread-safe.
+ */
+public final class ConverterRegistry {
+    private static final ConverterRegistry GLOBAL = new ConverterRegistry(null);
+    // converters of single value types hold only their type, one instance per type is enough
+    private static final ConcurrentMap<Class<?>, DefaultCellDataConverter<?>> DEFAULT_CONVERTERS = new ConcurrentHashMap<>();
+
+    private final ConverterRegistry parent;
+    private final ConcurrentMap<Class<?>, CellDataConverter<?>> converters = new ConcurrentHashMap<>();
+
+    private ConverterRegistry(ConverterRegistry parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * @return the registry shared by all builders
+     */
+    public static ConverterRegistry global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Create a registry overriding the global one: types without registered converter are resolved by the global registry.
+     *
+     * @return the registry
+     */
+    public static ConverterRegistry create() {
+        return new ConverterRegistry(GLOBAL);
+    }
+
+    /**
+     * Register the converter of a type, used by the mappings built afterwards.
+     *
+     * @param type      the converted type, matched exactly: a converter of {@code Integer} is not used for {@code int}
+     * @param converter the converter, stateless
+     * @param <T>       the converted type
+     * @return this registry, to allow method chaining
+     */
+    public <T> ConverterRegistry register(Class<T> type, CellDataConverter<T> converter) {
+        Validate.notNull(type, "Type must be not null");
+        Validate.notNull(converter, "Converter must be not null");
+        this.converters.put(type, converter);
+        return this;
+    }
+
+    /**
+     * @param type the converted type
+     * @param <T>  the converted type
+     * @return the converter registered for the type, in this registry or the global one, or null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CellDataConverter<T> getRegistered(Class<T> type) {
+        CellDataConverter<T> converter = (CellDataConverter<T>) this.converters.get(type);
+        return converter != null || this.parent == null ? converter : this.parent.getRegistered(type);
+    }
+
+    /**
+     * Resolve the converter of a field mapped to one cell.
+     *
+     * @param type the field's type
+     * @param <T>  the field's type
+     * @return the registered converter, or the shared default converter of single value types
+     * @throws ExcelMappingException throws if the type is not a single value type and has no registered converter
+     */
+    public <T> CellDataConverter<T> resolve(Class<T> type) {
+        CellDataConverter<T> converter = this.getRegistered(type);
+        if (converter != null) {
+            return converter;
+        }
+        if (!ExcelUtils.isSingleValueType(type)) {
+            throw new ExcelMappingException(String.format("No converter registered for '%s', it can not be read from one cell", type.getName()));
+        }
+        return defaultConverter(type);
+    }
+
+    /**
+     * Resolve the converter of a composite field mapped to several cells.
+     *
+     * @param type       the field's type
+     * @param attributes the attributes of the type, in the order of the mapped cells
+     * @param <T>        the field's type
+     * @return the registered converter, or a new {@link DefaultCellDataConverter} of the attributes
+     */
+    public <T> CellDataConverter<T> resolve(Class<T> type, List<ReferenceInfo> attributes) {
+        CellDataConverter<T> converter = this.getRegistered(type);
+        return converter != null ? converter : new DefaultCellDataConverter<>(type, attributes);
+    }
+
+    /**
+     * @param type a single value type
+     * @param <T>  the type
+     * @return the default converter of the type, shared by all registries
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> DefaultCellDataConverter<T> defaultConverter(Class<T> type) {
+        return (DefaultCellDataConverter<T>) DEFAULT_CONVERTERS.computeIfAbsent(type, t -> new DefaultCellDataConverter<>(t));
+    }
+}
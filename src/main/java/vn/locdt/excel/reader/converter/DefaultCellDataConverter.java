@@ -9,8 +9,10 @@ import vn.locdt.excel.utils.ReflectionUtils;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Date;
 import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Default converter for EntityReader. It will convert cell's values to
@@ -20,17 +22,70 @@ import java.util.List;
  *
  * @param <E> result data type
  */
-public class DefaultCellDataConverter<E> implements CellDataConverter<E> {
+public class DefaultCellDataConverter<E> implements CellDataConverter<E>,
+        IntCellDataConverter, LongCellDataConverter, DoubleCellDataConverter, BooleanCellDataConverter {
     private List<ReferenceInfo> nestedAttributes;
+    private List<BiConsumer<Object, Object>> nestedSetters;
+    private Supplier<E> instantiator;
+    // set instead of the instantiator for composite types without no-arg constructor, like records
+    private Function<Object[], E> constructor;
+    private Object[] defaultArguments;
+    private int[] argumentIndexes;
     private Class<E> clazz;
+    // resolved once, the type of the converted values does not change
+    private boolean singleValue;
 
+    /**
+     * Converter of composite types, created by their no-arg constructor then written attribute by attribute,
+     * or, without no-arg constructor, created in a single call of their canonical constructor,
+     * see {@link ReflectionUtils#getCanonicalComponents(Class)}.
+     *
+     * @param clazz            the composite type
+     * @param nestedAttributes the attributes of the type, in the order of the converted cells
+     * @throws ExcelMappingException throws if an attribute has no setter nor field, or the type has no constructor taking its attributes
+     */
     public DefaultCellDataConverter(Class<E> clazz, List<ReferenceInfo> nestedAttributes) {
         this.clazz = clazz;
+        this.singleValue = ExcelUtils.isSingleValueType(clazz);
         this.nestedAttributes = nestedAttributes;
+        List<String> components = ReflectionUtils.hasNoArgConstructor(clazz) ? null : ReflectionUtils.getCanonicalComponents(clazz);
+        if (components == null) {
+            this.instantiator = ReflectionUtils.getInstantiator(clazz);
+            this.nestedSetters = new ArrayList<>(nestedAttributes.size());
+            for (ReferenceInfo attribute : nestedAttributes) {
+                // reported when the mapping is built, instead of failing each converted row
+                if (ReflectionUtils.getSetterMethod(clazz, attribute.getName()) == null
+                        && ReflectionUtils.getFieldType(clazz, attribute.getName()) == null) {
+                    throw new ExcelMappingException(clazz, attribute.getName());
+                }
+                this.nestedSetters.add(ReflectionUtils.getSetter(clazz, attribute.getName()));
+            }
+            return;
+        }
+
+        this.constructor = ReflectionUtils.getCanonicalInstantiator(clazz);
+        this.defaultArguments = new Object[components.size()];
+        for (int i = 0; i < components.size(); i++) {
+            this.defaultArguments[i] = ReflectionUtils.getDefaultValue(ReflectionUtils.getFieldType(clazz, components.get(i)));
+        }
+        this.argumentIndexes = new int[nestedAttributes.size()];
+        for (int i = 0; i < nestedAttributes.size(); i++) {
+            this.argumentIndexes[i] = components.indexOf(nestedAttributes.get(i).getName());
+            if (this.argumentIndexes[i] < 0) {
+                String mes = "Can not convert to '%s' by constructor: '%s' is not a parameter of the canonical constructor";
+                throw new ExcelMappingException(String.format(mes, clazz.getName(), nestedAttributes.get(i).getName()));
+            }
+        }
     }
 
+    /**
+     * Converter of single value types, stateless: prefer the shared instance of {@link ConverterRegistry#defaultConverter(Class)}.
+     *
+     * @param clazz the converted type
+     */
     public DefaultCellDataConverter(Class<E> clazz) {
         this.clazz = clazz;
+        this.singleValue = ExcelUtils.isSingleValueType(clazz);
     }
 
     @Override
@@ -50,43 +105,119 @@ public class DefaultCellDataConverter<E> implements CellDataConverter<E> {
     @Override
     public E convert(Cell... cells) throws CellConverterException {
         // Java default type: String, Number, Date,... will not have custom attribute
-        if (String.class.isAssignableFrom(this.clazz) || Number.class.isAssignableFrom(this.clazz)
-                || Date.class.isAssignableFrom(this.clazz)) {
+        if (this.singleValue) {
             return this.convertSingleField(cells[0]);
         } else {
             return this.convertCustomField(cells);
         }
     }
 
+    @Override
+    public E convert(Cell cell) throws CellConverterException {
+        if (this.singleValue) {
+            return this.convertSingleField(cell);
+        } else {
+            return this.convertCustomField(cell);
+        }
+    }
+
+    @Override
+    public int convertToInt(Cell cell) throws CellConverterException {
+        try {
+            return ExcelUtils.getIntCellValue(cell);
+        } catch (Exception e) {
+            throw this.conversionError(cell, int.class, e);
+        }
+    }
+
+    @Override
+    public long convertToLong(Cell cell) throws CellConverterException {
+        try {
+            return ExcelUtils.getLongCellValue(cell);
+        } catch (Exception e) {
+            throw this.conversionError(cell, long.class, e);
+        }
+    }
+
+    @Override
+    public double convertToDouble(Cell cell) throws CellConverterException {
+        try {
+            return ExcelUtils.getDoubleCellValue(cell);
+        } catch (Exception e) {
+            throw this.conversionError(cell, double.class, e);
+        }
+    }
+
+    @Override
+    public boolean convertToBoolean(Cell cell) throws CellConverterException {
+        try {
+            return ExcelUtils.getBooleanCellValue(cell);
+        } catch (Exception e) {
+            throw this.conversionError(cell, boolean.class, e);
+        }
+    }
+
     protected E convertSingleField(Cell cell) throws CellConverterException {
         try {
             return ExcelUtils.getCellValue(cell, this.clazz);
         } catch (Exception e) {
-            Object rawValue = ExcelUtils.getCellValue(cell);
-            throw new CellConverterException(Collections.singletonList(rawValue), Collections.singletonList(cell), this.clazz, e);
+            throw this.conversionError(cell, this.clazz, e);
         }
     }
 
+    // raw values are read from the cell only if the exception needs them
+    private CellConverterException conversionError(Cell cell, Class<?> type, Exception e) {
+        return new CellConverterException(null, Collections.singletonList(cell), type, e);
+    }
+
     protected E convertCustomField(Cell... cells) throws CellConverterException {
-        E obj = ReflectionUtils.newInstanceFromClass(this.clazz);
+        if (this.constructor != null) {
+            return this.constructCustomField(cells);
+        }
+
+        E obj = this.instantiator.get();
         List<Cell> invalidCells = new ArrayList<>();
-        List<Object> invalidRawValues = new ArrayList<>();
 
         for (int i = 0; i < cells.length; i++) {
             Class<?> expectedType = this.nestedAttributes.get(i).getType();
             try {
                 Object value = ExcelUtils.getCellValue(cells[i], expectedType);
-                ReflectionUtils.invokeSetMethod(obj, this.nestedAttributes.get(i).getName(), value);
+                if (value != null) {
+                    this.nestedSetters.get(i).accept(obj, value);
+                }
             } catch (Exception e) {
                 invalidCells.add(cells[i]);
-                invalidRawValues.add(ExcelUtils.getCellValue(cells[i]));
             }
         }
 
         if (!invalidCells.isEmpty()) {
-            throw new CellConverterException(invalidRawValues, invalidCells, this.clazz);
+            throw new CellConverterException(null, invalidCells, this.clazz);
         }
 
         return obj;
     }
+
+    // collect the attributes into a new argument buffer, as the converter is shared between readers
+    private E constructCustomField(Cell... cells) throws CellConverterException {
+        Object[] arguments = this.defaultArguments.clone();
+        List<Cell> invalidCells = new ArrayList<>();
+
+        for (int i = 0; i < cells.length; i++) {
+            Class<?> expectedType = this.nestedAttributes.get(i).getType();
+            try {
+                Object value = ExcelUtils.getCellValue(cells[i], expectedType);
+                if (value != null) {
+                    arguments[this.argumentIndexes[i]] = value;
+                }
+            } catch (Exception e) {
+                invalidCells.add(cells[i]);
+            }
+        }
+
+        if (!invalidCells.isEmpty()) {
+            throw new CellConverterException(null, invalidCells, this.clazz);
+        }
+
+        return this.constructor.apply(arguments);
+    }
 }
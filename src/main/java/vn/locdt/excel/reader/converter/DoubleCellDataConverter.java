@@ -0,0 +1,12 @@
+package vn.locdt.excel.reader.converter;
+
+import org.apache.poi.ss.usermodel.Cell;
+import vn.locdt.excel.reader.exception.CellConverterException;
+
+/**
+ * A converter interface that converts a cell's value to a primitive {@code double}, without boxing.
+ * {@link vn.locdt.excel.reader.ExcelReader} uses it for fields of type {@code double}, blank cells are skipped before conversion.
+ */
+public interface DoubleCellDataConverter {
+    double convertToDouble(Cell cell) throws CellConverterException;
+}
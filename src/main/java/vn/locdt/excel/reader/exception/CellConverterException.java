@@ -6,6 +6,11 @@ import vn.locdt.excel.utils.ExcelUtils;
 import java.util.List;
 import java.util.stream.Collectors;
 
+/**
+ * Thrown when cells' values can not be converted to the type of a mapped field.
+ * Raw values are read from the cells only when needed, so that a lenient reader, which records each failure as a
+ * {@link vn.locdt.excel.reader.ReadError} and drops the exception, does not format values it never reports.
+ */
 public class CellConverterException extends Exception {
     private List<Object> cellValues;
     private List<Cell> cells;
@@ -13,6 +18,11 @@ public class CellConverterException extends Exception {
     private Class<?> fieldType;
     private String fieldName;
 
+    /**
+     * @param cellValues raw values of the cells, or null to read them from the cells when needed
+     * @param cells      the cells which can not be converted
+     * @param fieldType  the expected type
+     */
     public CellConverterException(List<Object> cellValues, List<Cell> cells, Class<?> fieldType) {
         super();
         this.cells = cells;
@@ -20,6 +30,12 @@ public class CellConverterException extends Exception {
         this.fieldType = fieldType;
     }
 
+    /**
+     * @param cellValues raw values of the cells, or null to read them from the cells when needed
+     * @param cells      the cells which can not be converted
+     * @param fieldType  the expected type
+     * @param e          the conversion failure
+     */
     public CellConverterException(List<Object> cellValues, List<Cell> cells, Class<?> fieldType, Throwable e) {
         super(e);
         this.cells = cells;
@@ -28,6 +44,9 @@ public class CellConverterException extends Exception {
     }
 
     public List<Object> getCellValues() {
+        if (this.cellValues == null) {
+            this.cellValues = this.cells.stream().map(ExcelUtils::getCellValue).collect(Collectors.toList());
+        }
         return this.cellValues;
     }
 
@@ -69,7 +88,7 @@ public class CellConverterException extends Exception {
 
     @Override
     public String getMessage() {
-        String rawValueStr = this.cellValues.stream().map(Object::toString).collect(Collectors.joining());
+        String rawValueStr = this.getCellValues().stream().map(String::valueOf).collect(Collectors.joining());
         String cellStr = this.cells.stream().map(ExcelUtils::getReference).collect(Collectors.joining());
         return String.format("Can not convert cells [%s] (%s) to %s.%s",
                 cellStr,
@@ -0,0 +1,15 @@
+package vn.locdt.excel.reader.exception;
+
+/**
+ * Unchecked exception thrown when the content of the excel file can not be read,
+ * eg: the file is corrupted or the underlying stream fails while streaming a sheet.
+ */
+public class ExcelReadException extends RuntimeException {
+    public ExcelReadException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public ExcelReadException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package vn.locdt.excel.reader.exception;
+
+/**
+ * Wraps a {@link CellConverterException} with an unchecked exception,
+ * used where the checked exception can not be thrown, eg: while consuming a {@link java.util.stream.Stream} of entities.
+ */
+public class UncheckedCellConverterException extends RuntimeException {
+    public UncheckedCellConverterException(CellConverterException cause) {
+        super(cause);
+    }
+
+    @Override
+    public synchronized CellConverterException getCause() {
+        return (CellConverterException) super.getCause();
+    }
+}
@@ -0,0 +1,226 @@
+package vn.locdt.excel.reader.stream;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Shared strings table kept out of the heap: the strings are encoded in UTF-8 into a temporary file which is then
+ * memory-mapped, only an index of offsets and lengths stays on the heap. A string is decoded each time it is read.
+ * <p>
+ * The file is deleted as soon as it is mapped, the mapping is released when the table is garbage collected.
+ */
+class MappedSharedStrings implements SharedStrings {
+    // strings never span two segments, so that each one is decoded from a single buffer
+    private static final int SEGMENT_SIZE = 1 << 30;
+
+    private final MappedByteBuffer[] segments;
+    private final long[] offsets;
+    private final int[] lengths;
+    private final int size;
+
+    private MappedSharedStrings(MappedByteBuffer[] segments, long[] offsets, int[] lengths, int size) {
+        this.segments = segments;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.size = size;
+    }
+
+    /**
+     * Read a sharedStrings.xml part into a mapped table.
+     *
+     * @param in the part's content, may be null if the workbook has no shared strings
+     * @return the table
+     * @throws IOException        throws if the temporary file can not be written or mapped
+     * @throws XMLStreamException throws if the part can not be parsed
+     */
+    static MappedSharedStrings read(InputStream in) throws IOException, XMLStreamException {
+        Path file = Files.createTempFile("excel-reader-sst", ".tmp");
+        try {
+            Builder builder = new Builder();
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                if (in != null) {
+                    builder.parse(XmlReaders.open(in), out);
+                }
+            }
+            return builder.map(file);
+        } finally {
+            delete(file);
+        }
+    }
+
+    /**
+     * Copy strings already decoded, like the shared strings table of a BIFF8 (.xls) workbook, into a mapped table.
+     *
+     * @param strings the strings, in the order of the table
+     * @return the table
+     * @throws IOException throws if the temporary file can not be written or mapped
+     */
+    static MappedSharedStrings copyOf(Iterator<String> strings) throws IOException {
+        Path file = Files.createTempFile("excel-reader-sst", ".tmp");
+        try {
+            Builder builder = new Builder();
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                while (strings.hasNext()) {
+                    builder.add(strings.next(), out);
+                }
+            }
+            return builder.map(file);
+        } finally {
+            delete(file);
+        }
+    }
+
+    // a mapping stays valid once its file is deleted; on systems refusing it, the file goes on exit
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            file.toFile().deleteOnExit();
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public String getString(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Shared string index (" + index + ") is out of range (0.." + (this.size - 1) + ")");
+        }
+
+        if (this.lengths[index] == 0) {
+            return "";
+        }
+
+        long offset = this.offsets[index];
+        byte[] bytes = new byte[this.lengths[index]];
+        // a duplicate has its own position, so that concurrent reads do not interfere
+        ByteBuffer segment = this.segments[(int) (offset / SEGMENT_SIZE)].duplicate();
+        segment.position((int) (offset % SEGMENT_SIZE));
+        segment.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // accumulate the encoded strings and their index while parsing
+    private static class Builder {
+        private final StringBuilder text = new StringBuilder();
+        private long[] offsets = new long[1024];
+        private int[] lengths = new int[1024];
+        private int size;
+        private long position;
+
+        // parse <si> items: plain <t> text or rich text runs <r><t>, phonetic runs <rPh> are skipped
+        private void parse(XMLStreamReader xml, OutputStream out) throws XMLStreamException, IOException {
+            try {
+                boolean inText = false;
+                boolean inPhonetic = false;
+                while (xml.hasNext()) {
+                    int event = xml.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        String localName = xml.getLocalName();
+                        if ("si".equals(localName)) {
+                            this.text.setLength(0);
+                        } else if ("t".equals(localName) && !inPhonetic) {
+                            inText = true;
+                        } else if ("rPh".equals(localName)) {
+                            inPhonetic = true;
+                        }
+                    } else if ((event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) && inText) {
+                        this.text.append(xml.getText());
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        String localName = xml.getLocalName();
+                        if ("si".equals(localName)) {
+                            this.add(decodeEscapes(this.text), out);
+                        } else if ("t".equals(localName)) {
+                            inText = false;
+                        } else if ("rPh".equals(localName)) {
+                            inPhonetic = false;
+                        }
+                    }
+                }
+            } finally {
+                xml.close();
+            }
+        }
+
+        private void add(String value, OutputStream out) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            long segmentEnd = (this.position / SEGMENT_SIZE + 1) * SEGMENT_SIZE;
+            if (this.position + bytes.length > segmentEnd) {
+                // pad up to the next segment
+                for (; this.position < segmentEnd; this.position++) {
+                    out.write(0);
+                }
+            }
+
+            if (this.size == this.offsets.length) {
+                this.offsets = Arrays.copyOf(this.offsets, this.size * 2);
+                this.lengths = Arrays.copyOf(this.lengths, this.size * 2);
+            }
+            this.offsets[this.size] = this.position;
+            this.lengths[this.size] = bytes.length;
+            this.size++;
+
+            out.write(bytes);
+            this.position += bytes.length;
+        }
+
+        private MappedSharedStrings map(Path file) throws IOException {
+            int numberOfSegments = (int) ((this.position + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+            MappedByteBuffer[] segments = new MappedByteBuffer[numberOfSegments];
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                for (int i = 0; i < numberOfSegments; i++) {
+                    long start = (long) i * SEGMENT_SIZE;
+                    segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, this.position - start));
+                }
+            }
+            return new MappedSharedStrings(segments, Arrays.copyOf(this.offsets, this.size), Arrays.copyOf(this.lengths, this.size), this.size);
+        }
+    }
+
+    // decode the _xHHHH_ escapes used by Excel for characters that are not allowed in xml, like POI does
+    private static String decodeEscapes(CharSequence value) {
+        String text = value.toString();
+        if (text.indexOf("_x") < 0) {
+            return text;
+        }
+
+        StringBuilder decoded = new StringBuilder(text.length());
+        int i = 0;
+        while (i < text.length()) {
+            if (i + 7 <= text.length() && text.charAt(i) == '_' && text.charAt(i + 1) == 'x' && text.charAt(i + 6) == '_'
+                    && isHex(text, i + 2, i + 6)) {
+                decoded.append((char) Integer.parseInt(text.substring(i + 2, i + 6), 16));
+                i += 7;
+            } else {
+                decoded.append(text.charAt(i++));
+            }
+        }
+        return decoded.toString();
+    }
+
+    private static boolean isHex(String text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (Character.digit(text.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,89 @@
+package vn.locdt.excel.reader.stream;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Position of a read in a streamed sheet, to resume a failed import where it stopped.
+ * A checkpoint is saved as a token, see {@link RowCheckpoint#toToken()}, and is bound to the sheet
+ * and the version of the file it was taken on.
+ */
+public final class RowCheckpoint {
+    private static final String TOKEN_PREFIX = "v1";
+    private static final char SEPARATOR = ':';
+
+    private final int sheetIndex;
+    private final long checksum;
+    private final long headerLength;
+    private final int resumeRow;
+    private final int seekRow;
+    private final long offset;
+
+    RowCheckpoint(int sheetIndex, long checksum, long headerLength, int resumeRow, int seekRow, long offset) {
+        this.sheetIndex = sheetIndex;
+        this.checksum = checksum;
+        this.headerLength = headerLength;
+        this.resumeRow = resumeRow;
+        this.seekRow = seekRow;
+        this.offset = offset;
+    }
+
+    /**
+     * Read a checkpoint from its token.
+     *
+     * @param token the token given by {@link RowCheckpoint#toToken()}
+     * @return the checkpoint
+     * @throws IllegalArgumentException throws if the token is not a checkpoint token
+     */
+    public static RowCheckpoint fromToken(String token) {
+        String[] parts = StringUtils.split(token, SEPARATOR);
+        if (parts == null || parts.length != 7 || !TOKEN_PREFIX.equals(parts[0])) {
+            throw new IllegalArgumentException("Invalid checkpoint token: " + token);
+        }
+        try {
+            return new RowCheckpoint(Integer.parseInt(parts[1]), Long.parseLong(parts[2]), Long.parseLong(parts[3]),
+                    Integer.parseInt(parts[4]), Integer.parseInt(parts[5]), Long.parseLong(parts[6]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid checkpoint token: " + token, e);
+        }
+    }
+
+    /**
+     * @return the checkpoint as a short string, to be stored with the state of an import
+     */
+    public String toToken() {
+        return StringUtils.join(new Object[]{TOKEN_PREFIX, this.sheetIndex, this.checksum, this.headerLength,
+                this.resumeRow, this.seekRow, this.offset}, SEPARATOR);
+    }
+
+    public int getSheetIndex() {
+        return this.sheetIndex;
+    }
+
+    /**
+     * @return the first row not read yet
+     */
+    public int getResumeRow() {
+        return this.resumeRow;
+    }
+
+    long getChecksum() {
+        return this.checksum;
+    }
+
+    long getHeaderLength() {
+        return this.headerLength;
+    }
+
+    int getSeekRow() {
+        return this.seekRow;
+    }
+
+    long getOffset() {
+        return this.offset;
+    }
+
+    @Override
+    public String toString() {
+        return this.toToken();
+    }
+}
@@ -0,0 +1,210 @@
+package vn.locdt.excel.reader.stream;
+
+import org.apache.commons.lang3.Validate;
+import vn.locdt.excel.reader.exception.ExcelReadException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Sparse index of the rows of a streamed sheet: the offset of one row every {@code interval} rows
+ * in the sheet content, recorded while the sheet is parsed. Reading a row then starts parsing at the closest
+ * indexed row before it, instead of at the top of the sheet: the content before is skipped without being parsed.
+ * <p>
+ * An index is bound to the sheet and to the version of the file it was first used with,
+ * and can be saved next to the file to speed up the reads of later imports. Instances are thread-safe.
+ */
+public final class RowIndex {
+    public static final int DEFAULT_INTERVAL = 1000;
+
+    private static final int MAGIC = 0x52494458;
+    private static final int VERSION = 1;
+
+    private final int interval;
+    private int sheetIndex = -1;
+    private long checksum = -1;
+    // number of bytes of the sheet content up to the start tag of sheetData, replayed before an indexed row
+    private long headerLength = -1;
+    private int size;
+    private int[] rows = new int[16];
+    private long[] offsets = new long[16];
+
+    private RowIndex(int interval) {
+        this.interval = interval;
+    }
+
+    /**
+     * Create an empty index, filled by the reads of the sheet it is given to.
+     *
+     * @param interval number of rows between two indexed rows
+     * @return the index
+     */
+    public static RowIndex create(int interval) {
+        Validate.isTrue(interval > 0, "Interval must be positive");
+        return new RowIndex(interval);
+    }
+
+    /**
+     * Load an index saved by {@link RowIndex#save(Path)}.
+     *
+     * @param path the index file
+     * @return the index
+     * @throws IOException throws if the file can not be read or is not an index file
+     */
+    public static RowIndex load(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a row index file: " + path);
+            }
+
+            RowIndex index = new RowIndex(in.readInt());
+            index.sheetIndex = in.readInt();
+            index.checksum = in.readLong();
+            index.headerLength = in.readLong();
+            int size = in.readInt();
+            index.rows = new int[Math.max(size, 16)];
+            index.offsets = new long[index.rows.length];
+            for (int i = 0; i < size; i++) {
+                index.rows[i] = in.readInt();
+                index.offsets[i] = in.readLong();
+            }
+            index.size = size;
+            return index;
+        }
+    }
+
+    /**
+     * Save the index, to be loaded by later reads of the same file.
+     *
+     * @param path the index file, replaced if it exists
+     * @throws IOException throws if the file can not be written
+     */
+    public synchronized void save(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(this.interval);
+            out.writeInt(this.sheetIndex);
+            out.writeLong(this.checksum);
+            out.writeLong(this.headerLength);
+            out.writeInt(this.size);
+            for (int i = 0; i < this.size; i++) {
+                out.writeInt(this.rows[i]);
+                out.writeLong(this.offsets[i]);
+            }
+        }
+    }
+
+    public int getInterval() {
+        return this.interval;
+    }
+
+    /**
+     * @return number of indexed rows
+     */
+    public synchronized int size() {
+        return this.size;
+    }
+
+    /**
+     * Bind the index to a sheet when it is first used, then check it is used with the same sheet.
+     *
+     * @param sheetIndex the sheet's index in workbook
+     * @param checksum   checksum of the sheet content, -1 if unknown
+     * @throws ExcelReadException throws if the index was built for another sheet or another version of the file
+     */
+    synchronized void bind(int sheetIndex, long checksum) {
+        if (this.sheetIndex < 0) {
+            this.sheetIndex = sheetIndex;
+            this.checksum = checksum;
+        } else if (this.sheetIndex != sheetIndex || (this.checksum != checksum && this.checksum != -1 && checksum != -1)) {
+            throw new ExcelReadException(String.format("Row index of sheet %d can not be used with sheet %d or another version of the file",
+                    this.sheetIndex, sheetIndex));
+        }
+    }
+
+    synchronized long getHeaderLength() {
+        return this.headerLength;
+    }
+
+    synchronized void setHeaderLength(long headerLength) {
+        this.headerLength = headerLength;
+    }
+
+    /**
+     * @param rowNum the row to read
+     * @return row number and offset of the closest indexed row at or before rowNum, or null if the sheet must be read from the top
+     */
+    synchronized long[] floor(int rowNum) {
+        if (this.headerLength < 0) {
+            return null;
+        }
+        int i = Arrays.binarySearch(this.rows, 0, this.size, rowNum);
+        i = i >= 0 ? i : -i - 2;
+        return i >= 0 ? new long[]{this.rows[i], this.offsets[i]} : null;
+    }
+
+    /**
+     * Record the offset of a row, unless the row is already indexed.
+     *
+     * @param rowNum the row number
+     * @param offset offset of the start tag of the first row at or after rowNum in the sheet content
+     */
+    synchronized void record(int rowNum, long offset) {
+        int i = Arrays.binarySearch(this.rows, 0, this.size, rowNum);
+        if (i >= 0) {
+            return;
+        }
+
+        i = -i - 1;
+        if (this.size == this.rows.length) {
+            this.rows = Arrays.copyOf(this.rows, this.size * 2);
+            this.offsets = Arrays.copyOf(this.offsets, this.size * 2);
+        }
+        System.arraycopy(this.rows, i, this.rows, i + 1, this.size - i);
+        System.arraycopy(this.offsets, i, this.offsets, i + 1, this.size - i);
+        this.rows[i] = rowNum;
+        this.offsets[i] = offset;
+        this.size++;
+    }
+
+    /**
+     * Create a checkpoint to resume reading at a row, see {@link vn.locdt.excel.reader.ExcelReader#checkpoint()}.
+     *
+     * @param resumeRow the next row to read
+     * @param seekRow   a parsed row at or before the next physical row of the sheet, -1 to use the closest indexed row
+     * @param offset    offset of the parsed row in the sheet content, see {@link SheetRowIterator#getRowOffset()}
+     * @return the checkpoint
+     */
+    public synchronized RowCheckpoint checkpoint(int resumeRow, int seekRow, long offset) {
+        if (seekRow < 0 || offset < 0) {
+            long[] indexed = this.floor(resumeRow);
+            seekRow = indexed != null ? (int) indexed[0] : -1;
+            offset = indexed != null ? indexed[1] : -1;
+        } else if (seekRow > resumeRow) {
+            // the rows in between are absent, the parsed row is the first one at or after resumeRow
+            seekRow = resumeRow;
+        }
+        return new RowCheckpoint(this.sheetIndex, this.checksum, this.headerLength, resumeRow, seekRow, offset);
+    }
+
+    /**
+     * Index the position of a checkpoint, so that reading its row seeks to it.
+     *
+     * @param checkpoint the checkpoint
+     * @throws ExcelReadException throws if the checkpoint was taken on another sheet or another version of the file
+     */
+    public synchronized void resume(RowCheckpoint checkpoint) {
+        this.bind(checkpoint.getSheetIndex(), checkpoint.getChecksum());
+        if (checkpoint.getSeekRow() >= 0 && checkpoint.getHeaderLength() >= 0) {
+            this.headerLength = checkpoint.getHeaderLength();
+            this.record(checkpoint.getSeekRow(), checkpoint.getOffset());
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package vn.locdt.excel.reader.stream;
+
+/**
+ * Shared strings table of a workbook: text cells only hold the index of their value in this table.
+ * Implementations must support concurrent reads, as the table is shared by the workbooks opened by {@link StreamingWorkbook#reopen()}.
+ */
+interface SharedStrings {
+    int size();
+
+    /**
+     * Decode a string of the table.
+     *
+     * @param index index of the string
+     * @return the string
+     * @throws IndexOutOfBoundsException throws if the index is out of the table
+     */
+    String getString(int index);
+}
@@ -0,0 +1,30 @@
+package vn.locdt.excel.reader.stream;
+
+import org.apache.poi.ss.usermodel.Row;
+
+import java.io.Closeable;
+
+/**
+ * Forward-only iterator over the rows physically present in a streamed sheet.
+ * The iterator releases its underlying stream once exhausted, callers stopping early must close it.
+ */
+public interface SheetRowIterator extends java.util.Iterator<Row>, Closeable {
+    /**
+     * @return number of bytes of sheet content parsed so far, after decompression
+     */
+    long getBytesParsed();
+
+    /**
+     * @return offset in the sheet content of the last row returned by {@link SheetRowIterator#next()},
+     * -1 if unknown or if the rows are not indexed
+     */
+    long getRowOffset();
+
+    /**
+     * @return last row number declared by the dimension of the sheet, -1 if unknown; known once the first row is parsed
+     */
+    int getDimensionLastRow();
+
+    @Override
+    void close();
+}
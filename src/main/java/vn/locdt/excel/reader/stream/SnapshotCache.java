@@ -0,0 +1,301 @@
+package vn.locdt.excel.reader.stream;
+
+import org.apache.commons.lang3.Validate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local cache of snapshots of parsed sheets, for files read again and again like price lists or mapping tables.
+ * A snapshot holds the typed values of the cells of a sheet in a compact columnar file, keyed by the SHA-256 hash of the
+ * content of the excel file and the sheet's index. It is written after the first complete pass over the sheet,
+ * and later reads of the same content map it in memory instead of parsing the file, see {@link SnapshotCache#open(Path)}.
+ * Sheets are parsed from a copy of the file made while hashing it, so a file replaced while it is read never
+ * publishes snapshots under the hash of its previous content.
+ * <p>
+ * The total size of the snapshots is bounded: the least recently used snapshots are deleted when it is exceeded.
+ * Several processes may share a cache directory. Instances are thread-safe.
+ */
+public final class SnapshotCache {
+    static final String WORKBOOK_SUFFIX = ".wb";
+    static final String SHEET_SUFFIX = ".snap";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final long maxBytes;
+
+    private SnapshotCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Open a cache, creating its directory if needed.
+     *
+     * @param directory the cache directory, dedicated to the cache
+     * @param maxBytes  maximum total size of the snapshots
+     * @return the cache
+     * @throws IOException throws if the directory can not be created
+     */
+    public static SnapshotCache open(Path directory, long maxBytes) throws IOException {
+        Validate.notNull(directory, "Directory must be not null");
+        Validate.isTrue(maxBytes > 0, "Maximum size must be positive");
+        return new SnapshotCache(Files.createDirectories(directory), maxBytes);
+    }
+
+    /**
+     * Open an excel file for streaming through the cache. The sheets having a snapshot of the same content are read
+     * from it without opening the file, the file is only opened to read the other sheets, whose snapshots are written
+     * by the first read going through all their rows from the top.
+     * Formula cells keep their cached results in snapshots, but not their formulas.
+     * Sheets are parsed from a copy of the file: reading a sheet without snapshot throws an
+     * {@link vn.locdt.excel.reader.exception.ExcelReadException} if the file was changed since this method returned.
+     *
+     * @param path the excel file
+     * @return the opened workbook, must be closed by the caller
+     * @throws IOException throws if the file can not be hashed or opened
+     */
+    public StreamingWorkbook open(Path path) throws IOException {
+        Validate.notNull(path, "Path must be not null");
+        String key = hash(path);
+        SnapshotWorkbook.Structure structure = this.read(this.workbookFile(key));
+        if (structure != null) {
+            return new SnapshotWorkbook(this, key, structure, new SnapshotWorkbook.Source(this, path, key, null));
+        }
+
+        // parse a copy of the file, keyed by the hash of the copied content
+        MessageDigest digest = newDigest();
+        StreamingWorkbook workbook = this.copy(path, digest);
+        try {
+            key = toHex(digest.digest());
+            structure = SnapshotWorkbook.Structure.of(workbook);
+            this.write(this.workbookFile(key), structure);
+            return new SnapshotWorkbook(this, key, structure, new SnapshotWorkbook.Source(this, path, key, workbook));
+        } catch (IOException | RuntimeException e) {
+            workbook.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return total size of the snapshots in the cache, in bytes
+     * @throws IOException throws if the cache directory can not be listed
+     */
+    public long size() throws IOException {
+        long size = 0;
+        for (Path file : this.listSnapshots()) {
+            size += sizeOf(file);
+        }
+        return size;
+    }
+
+    public long getMaxBytes() {
+        return this.maxBytes;
+    }
+
+    /**
+     * Open a copy of an excel file, hashing the copied content.
+     *
+     * @param path   the excel file
+     * @param digest receives the copied content
+     * @return the workbook over the copy, deleted when the workbook is closed
+     * @throws IOException throws if the file can not be copied or opened
+     */
+    StreamingWorkbook copy(Path path, MessageDigest digest) throws IOException {
+        try (InputStream in = new DigestInputStream(Files.newInputStream(path), digest)) {
+            return StreamingWorkbook.open(in);
+        }
+    }
+
+    /**
+     * @param key        hash of the excel file
+     * @param sheetIndex the sheet's index in workbook
+     * @return the snapshot file of the sheet, which may not exist
+     */
+    Path sheetFile(String key, int sheetIndex) {
+        return this.directory.resolve(key + "-" + sheetIndex + SHEET_SUFFIX);
+    }
+
+    /**
+     * @param target the snapshot file to be written
+     * @return a new temporary file next to the target, moved to it once complete
+     * @throws IOException throws if the file can not be created
+     */
+    Path createTempFile(Path target) throws IOException {
+        return Files.createTempFile(this.directory, target.getFileName().toString(), TEMP_SUFFIX);
+    }
+
+    /**
+     * Map a snapshot file in memory and mark it as recently used.
+     *
+     * @param file the snapshot file
+     * @return the mapped content, or null if the file does not exist
+     * @throws IOException throws if the file can not be mapped
+     */
+    MappedByteBuffer map(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            touch(file);
+            return buffer;
+        }
+    }
+
+    /**
+     * Publish a complete snapshot, replacing the target file, then evict the least recently used snapshots.
+     *
+     * @param temp   the written snapshot
+     * @param target the snapshot file
+     * @throws IOException throws if the snapshot can not be moved
+     */
+    void publish(Path temp, Path target) throws IOException {
+        if (sizeOf(temp) > this.maxBytes) {
+            Files.deleteIfExists(temp);
+            return;
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        this.evict();
+    }
+
+    // delete the least recently used snapshots until the cache fits in its maximum size
+    private synchronized void evict() throws IOException {
+        List<Path> files = this.listSnapshots();
+        Map<Path, Long> sizes = new HashMap<>();
+        long size = 0;
+        for (Path file : files) {
+            sizes.put(file, sizeOf(file));
+            size += sizes.get(file);
+        }
+        if (size <= this.maxBytes) {
+            return;
+        }
+
+        Map<Path, FileTime> times = new HashMap<>();
+        for (Path file : files) {
+            times.put(file, lastModified(file));
+        }
+        files.sort(Comparator.comparing(times::get));
+        for (int i = 0; i < files.size() && size > this.maxBytes; i++) {
+            try {
+                // a snapshot still mapped by a reader stays readable once deleted
+                if (Files.deleteIfExists(files.get(i))) {
+                    size -= sizes.get(files.get(i));
+                }
+            } catch (IOException e) {
+                // the snapshot is in use on a system refusing to delete mapped files, it is evicted later
+            }
+        }
+    }
+
+    private List<Path> listSnapshots() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory, "*{" + WORKBOOK_SUFFIX + "," + SHEET_SUFFIX + "}")) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    private SnapshotWorkbook.Structure read(Path workbookFile) throws IOException {
+        MappedByteBuffer buffer = this.map(workbookFile);
+        if (buffer == null) {
+            return null;
+        }
+        SnapshotWorkbook.Structure structure = SnapshotWorkbook.Structure.read(buffer);
+        if (structure == null) {
+            Files.deleteIfExists(workbookFile);
+        }
+        return structure;
+    }
+
+    private void write(Path workbookFile, SnapshotWorkbook.Structure structure) throws IOException {
+        Path temp = this.createTempFile(workbookFile);
+        try {
+            structure.write(temp);
+            this.publish(temp, workbookFile);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Path workbookFile(String key) {
+        return this.directory.resolve(key + WORKBOOK_SUFFIX);
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    static String toHex(byte[] hash) {
+        StringBuilder key = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return key.toString();
+    }
+
+    // SHA-256 of the content of the file, as a hex string
+    private static String hash(Path path) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(path)) {
+            for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    // files may be evicted concurrently by another process
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // the snapshot is then evicted a bit earlier
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package vn.locdt.excel.reader.stream;
+
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import vn.locdt.excel.reader.exception.ExcelReadException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterator over the rows of a mapped snapshot written by {@link SnapshotWriter}, decoding one group of rows at a time.
+ * Strings are decoded from the mapped snapshot only if a converter reads them.
+ */
+class SnapshotRowIterator implements SheetRowIterator {
+    private final ByteBuffer buffer;
+    private final SharedStrings strings;
+    private final long[] groupOffsets;
+    private final Map<Short, String> formats;
+    private final boolean date1904;
+    private final int dimensionLastRow;
+
+    private int nextGroup;
+    private List<StreamingRow> rows = new ArrayList<>();
+    private int nextRow;
+    private long bytesParsed;
+    private boolean closed;
+
+    private SnapshotRowIterator(ByteBuffer buffer, long[] groupOffsets, int firstGroup, Map<Short, String> formats,
+                                boolean date1904, int dimensionLastRow) {
+        this.buffer = buffer;
+        this.strings = new SnapshotStrings(buffer);
+        this.groupOffsets = groupOffsets;
+        this.nextGroup = firstGroup;
+        this.formats = formats;
+        this.date1904 = date1904;
+        this.dimensionLastRow = dimensionLastRow;
+    }
+
+    /**
+     * @param snapshot the mapped snapshot
+     * @param fromRow  the first row needed by the caller, -1 to read from the top of the sheet
+     * @return iterator from the group of rows holding fromRow, or null if the snapshot is not valid
+     */
+    static SnapshotRowIterator open(ByteBuffer snapshot, int fromRow) {
+        try {
+            ByteBuffer in = snapshot.duplicate();
+            if (in.limit() < 20 || in.getInt(0) != SnapshotWriter.MAGIC || in.getInt(4) != SnapshotWriter.VERSION
+                    || in.getInt(in.limit() - 4) != SnapshotWriter.MAGIC) {
+                return null;
+            }
+
+            in.position((int) in.getLong(in.limit() - 12));
+            int groupCount = in.getInt();
+            long[] groupOffsets = new long[groupCount];
+            int firstGroup = 0;
+            for (int i = 0; i < groupCount; i++) {
+                groupOffsets[i] = in.getLong();
+                if (in.getInt() <= fromRow) {
+                    firstGroup = i;
+                }
+            }
+            int formatCount = in.getInt();
+            Map<Short, String> formats = new HashMap<>(formatCount * 2);
+            for (int i = 0; i < formatCount; i++) {
+                short dataFormat = in.getShort();
+                byte[] formatString = new byte[in.getInt()];
+                in.get(formatString);
+                formats.put(dataFormat, formatString.length > 0 ? new String(formatString, StandardCharsets.UTF_8) : null);
+            }
+            boolean date1904 = in.get() != 0;
+            int dimensionLastRow = in.getInt();
+            return new SnapshotRowIterator(in, groupOffsets, firstGroup, formats, date1904, dimensionLastRow);
+        } catch (RuntimeException e) {
+            // truncated or corrupted file
+            return null;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (this.closed) {
+            return false;
+        }
+        if (this.nextRow == this.rows.size()) {
+            if (this.nextGroup == this.groupOffsets.length) {
+                this.close();
+                return false;
+            }
+            try {
+                this.readGroup(this.nextGroup++);
+            } catch (RuntimeException e) {
+                this.close();
+                throw new ExcelReadException("Can not read sheet snapshot", e);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Row next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return this.rows.get(this.nextRow++);
+    }
+
+    @Override
+    public long getBytesParsed() {
+        return this.bytesParsed;
+    }
+
+    /**
+     * Rows of snapshots are not indexed.
+     *
+     * @return always -1
+     */
+    @Override
+    public long getRowOffset() {
+        return -1;
+    }
+
+    @Override
+    public int getDimensionLastRow() {
+        return this.dimensionLastRow;
+    }
+
+    @Override
+    public void close() {
+        this.closed = true;
+        this.rows = new ArrayList<>();
+        this.nextRow = 0;
+    }
+
+    // decode the rows of a group, column by column
+    private void readGroup(int group) {
+        ByteBuffer in = this.buffer;
+        int start = (int) this.groupOffsets[group];
+        in.position(start);
+        int rowCount = in.getInt();
+        int columnCount = in.getInt();
+
+        List<StreamingRow> rows = new ArrayList<>(rowCount);
+        List<List<StreamingCell>> cells = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            rows.add(new StreamingRow(in.getInt()));
+            cells.add(new ArrayList<>());
+        }
+
+        byte[] kinds = new byte[rowCount];
+        for (int column = 0; column < columnCount; column++) {
+            in.get(kinds);
+            for (int i = 0; i < rowCount; i++) {
+                if (kinds[i] != SnapshotWriter.ABSENT) {
+                    cells.get(i).add(this.readCell(in, rows.get(i), column, kinds[i]));
+                }
+            }
+        }
+        for (int i = 0; i < rowCount; i++) {
+            rows.get(i).setCells(cells.get(i));
+        }
+
+        this.bytesParsed += in.position() - start;
+        this.rows = rows;
+        this.nextRow = 0;
+    }
+
+    private StreamingCell readCell(ByteBuffer in, StreamingRow row, int column, byte kind) {
+        short dataFormat = in.getShort();
+        CellType valueType;
+        double numericValue = 0;
+        SharedStrings strings = null;
+        int stringOffset = -1;
+
+        switch (kind & ~SnapshotWriter.FORMULA) {
+            case SnapshotWriter.NUMERIC:
+                valueType = CellType.NUMERIC;
+                numericValue = in.getDouble();
+                break;
+            case SnapshotWriter.STRING:
+                valueType = CellType.STRING;
+                strings = this.strings;
+                stringOffset = in.position();
+                in.position(stringOffset + 4 + in.getInt());
+                break;
+            case SnapshotWriter.BOOLEAN:
+                valueType = CellType.BOOLEAN;
+                numericValue = in.get();
+                break;
+            case SnapshotWriter.ERROR:
+                valueType = CellType.ERROR;
+                numericValue = in.get();
+                break;
+            default:
+                valueType = CellType.BLANK;
+        }
+
+        boolean formula = (kind & SnapshotWriter.FORMULA) != 0;
+        return new StreamingCell(row, column, formula ? CellType.FORMULA : valueType, formula ? valueType : CellType._NONE,
+                numericValue, null, strings, stringOffset, null, null,
+                dataFormat, this.formats.get(dataFormat), this.date1904);
+    }
+
+    /**
+     * Strings of a mapped snapshot, indexed by the offset of their length in the snapshot.
+     */
+    private static class SnapshotStrings implements SharedStrings {
+        private final ByteBuffer buffer;
+
+        private SnapshotStrings(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * @return size of the snapshot in bytes, strings are not counted
+         */
+        @Override
+        public int size() {
+            return this.buffer.limit();
+        }
+
+        @Override
+        public String getString(int offset) {
+            // a duplicate has its own position, so that the iterator is not disturbed
+            ByteBuffer in = this.buffer.duplicate();
+            in.position(offset);
+            byte[] bytes = new byte[in.getInt()];
+            in.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package vn.locdt.excel.reader.stream;
+
+import vn.locdt.excel.reader.exception.ExcelReadException;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming workbook reading its sheets from the snapshots of a {@link SnapshotCache}. The structure of the workbook
+ * is itself kept in the cache, so the excel file is only opened to read a sheet without snapshot:
+ * reading all its rows from the top then writes its snapshot, see {@link SnapshotWriter}.
+ */
+class SnapshotWorkbook implements StreamingWorkbook {
+    private final SnapshotCache cache;
+    private final String key;
+    private final Structure structure;
+    private final Source source;
+    // reopened workbooks parse sheets through their own copy of the source workbook
+    private final boolean reopened;
+    // mapped snapshots of the sheets, loaded on first read
+    private final ByteBuffer[] snapshots;
+    private StreamingWorkbook workbook;
+
+    SnapshotWorkbook(SnapshotCache cache, String key, Structure structure, Source source) {
+        this(cache, key, structure, source, false);
+    }
+
+    private SnapshotWorkbook(SnapshotCache cache, String key, Structure structure, Source source, boolean reopened) {
+        this.cache = cache;
+        this.key = key;
+        this.structure = structure;
+        this.source = source;
+        this.reopened = reopened;
+        this.snapshots = new ByteBuffer[structure.names.size()];
+    }
+
+    @Override
+    public StreamingWorkbook reopen() {
+        return new SnapshotWorkbook(this.cache, this.key, this.structure, this.source, true);
+    }
+
+    @Override
+    public int getNumberOfSheets() {
+        return this.structure.names.size();
+    }
+
+    @Override
+    public String getSheetName(int sheetIndex) {
+        this.checkSheetIndex(sheetIndex);
+        return this.structure.names.get(sheetIndex);
+    }
+
+    @Override
+    public int getSheetIndex(String name) {
+        for (int i = 0; i < this.structure.names.size(); i++) {
+            if (this.structure.names.get(i).equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean isSheetHidden(int sheetIndex) {
+        this.checkSheetIndex(sheetIndex);
+        return this.structure.hidden[sheetIndex];
+    }
+
+    @Override
+    public SheetRowIterator openRows(int sheetIndex) {
+        SheetRowIterator rows = this.openSnapshot(sheetIndex, -1);
+        if (rows != null) {
+            return rows;
+        }
+        return new SnapshotWriter(this.cache, this.cache.sheetFile(this.key, sheetIndex), this.workbook().openRows(sheetIndex));
+    }
+
+    /**
+     * Rows of a snapshot are read from the group of rows holding fromRow, the index is left as is: snapshots do not know
+     * the checksum of the sheet, and binding the index without it would accept it later for another version of the file.
+     * Without snapshot, the sheet is read from the file with the index and no snapshot is written.
+     */
+    @Override
+    public SheetRowIterator openRows(int sheetIndex, RowIndex index, int fromRow) {
+        SheetRowIterator rows = this.openSnapshot(sheetIndex, fromRow);
+        if (rows != null) {
+            return rows;
+        }
+        return this.workbook().openRows(sheetIndex, index, fromRow);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.reopened) {
+            if (this.workbook != null) {
+                this.workbook.close();
+            }
+        } else {
+            this.source.close();
+        }
+    }
+
+    // the snapshot of the sheet, or null if the sheet has no valid snapshot
+    private SheetRowIterator openSnapshot(int sheetIndex, int fromRow) {
+        this.checkSheetIndex(sheetIndex);
+        Path file = this.cache.sheetFile(this.key, sheetIndex);
+        try {
+            if (this.snapshots[sheetIndex] == null) {
+                this.snapshots[sheetIndex] = this.cache.map(file);
+            }
+            if (this.snapshots[sheetIndex] == null) {
+                return null;
+            }
+
+            SheetRowIterator rows = SnapshotRowIterator.open(this.snapshots[sheetIndex], fromRow);
+            if (rows == null) {
+                this.snapshots[sheetIndex] = null;
+                Files.deleteIfExists(file);
+            }
+            return rows;
+        } catch (IOException e) {
+            // the sheet is parsed from the file instead
+            return null;
+        }
+    }
+
+    // the excel file is opened on first read of a sheet without snapshot
+    private StreamingWorkbook workbook() {
+        if (this.workbook == null) {
+            try {
+                this.workbook = this.reopened ? this.source.get().reopen() : this.source.get();
+            } catch (IOException e) {
+                throw new ExcelReadException("Can not open excel file " + this.source.path, e);
+            }
+        }
+        return this.workbook;
+    }
+
+    private void checkSheetIndex(int sheetIndex) {
+        if (sheetIndex < 0 || sheetIndex >= this.structure.names.size()) {
+            throw new IllegalArgumentException(String.format("Sheet index (%d) is out of range (0..%d)", sheetIndex, this.structure.names.size() - 1));
+        }
+    }
+
+    /**
+     * The excel file of a workbook and its parsed copy, shared with the reopened workbooks. The file is copied while
+     * hashing it, so that snapshots are always written from the content of their key, even if the file is replaced
+     * after the cache was opened.
+     */
+    static class Source {
+        private final SnapshotCache cache;
+        private final Path path;
+        private final String key;
+        private StreamingWorkbook workbook;
+
+        /**
+         * @param cache    the snapshot cache
+         * @param path     the excel file
+         * @param key      hash of the content read from snapshots
+         * @param workbook the workbook over a copy of the content of the key, or null to copy the file on first use
+         */
+        Source(SnapshotCache cache, Path path, String key, StreamingWorkbook workbook) {
+            this.cache = cache;
+            this.path = path;
+            this.key = key;
+            this.workbook = workbook;
+        }
+
+        synchronized StreamingWorkbook get() throws IOException {
+            if (this.workbook == null) {
+                MessageDigest digest = SnapshotCache.newDigest();
+                StreamingWorkbook copy = this.cache.copy(this.path, digest);
+                if (!SnapshotCache.toHex(digest.digest()).equals(this.key)) {
+                    copy.close();
+                    throw new ExcelReadException("Excel file " + this.path + " was changed while it was read through the snapshot cache");
+                }
+                this.workbook = copy;
+            }
+            return this.workbook;
+        }
+
+        synchronized void close() throws IOException {
+            if (this.workbook != null) {
+                this.workbook.close();
+            }
+        }
+    }
+
+    /**
+     * Names and visibility of the sheets of a workbook, kept in the cache next to the snapshots of the sheets.
+     */
+    static class Structure {
+        private static final int MAGIC = 0x534E5742;
+        private static final int VERSION = 1;
+
+        private final List<String> names;
+        private final boolean[] hidden;
+
+        private Structure(List<String> names, boolean[] hidden) {
+            this.names = names;
+            this.hidden = hidden;
+        }
+
+        static Structure of(StreamingWorkbook workbook) {
+            List<String> names = new ArrayList<>(workbook.getNumberOfSheets());
+            boolean[] hidden = new boolean[workbook.getNumberOfSheets()];
+            for (int i = 0; i < hidden.length; i++) {
+                names.add(workbook.getSheetName(i));
+                hidden[i] = workbook.isSheetHidden(i);
+            }
+            return new Structure(names, hidden);
+        }
+
+        /**
+         * @param buffer the content of a structure file
+         * @return the structure, or null if the content is not a valid structure
+         */
+        static Structure read(ByteBuffer buffer) {
+            try {
+                ByteBuffer in = buffer.duplicate();
+                if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+                    return null;
+                }
+                int numberOfSheets = in.getInt();
+                List<String> names = new ArrayList<>(numberOfSheets);
+                boolean[] hidden = new boolean[numberOfSheets];
+                for (int i = 0; i < numberOfSheets; i++) {
+                    byte[] name = new byte[in.getInt()];
+                    in.get(name);
+                    names.add(new String(name, StandardCharsets.UTF_8));
+                    hidden[i] = in.get() != 0;
+                }
+                return new Structure(names, hidden);
+            } catch (RuntimeException e) {
+                // truncated or corrupted file
+                return null;
+            }
+        }
+
+        void write(Path file) throws IOException {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(this.names.size());
+                for (int i = 0; i < this.names.size(); i++) {
+                    byte[] name = this.names.get(i).getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(name.length);
+                    out.write(name);
+                    out.writeBoolean(this.hidden[i]);
+                }
+            }
+        }
+    }
+}
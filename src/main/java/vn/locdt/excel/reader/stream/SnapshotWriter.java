@@ -0,0 +1,274 @@
+package vn.locdt.excel.reader.stream;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Pass-through iterator over the rows of a sheet parsed from its file, writing the snapshot of the sheet
+ * as rows go by. The snapshot is published once the sheet is read to its end, and dropped if the iterator is closed before.
+ * Failing to write the snapshot never fails the read.
+ * <p>
+ * A snapshot is a sequence of groups of {@value #ROW_GROUP_SIZE} rows, each group stored column by column:
+ * <pre>
+ * file   := MAGIC VERSION group* footer footerOffset:long MAGIC
+ * group  := rowCount:int columnCount:int rowNum:int[rowCount] column[columnCount]
+ * column := kind:byte[rowCount] (dataFormat:short value)* for each present cell
+ * value  := double for numbers | length:int utf8 bytes for strings | byte for booleans and errors | nothing for blanks
+ * footer := groupCount:int (offset:long firstRow:int)[groupCount] formatCount:int (dataFormat:short formatString)[formatCount]
+ *           date1904:boolean dimensionLastRow:int
+ * </pre>
+ * The kind of a cell is its value type, with the {@link #FORMULA} flag for formula cells keeping their cached result.
+ */
+class SnapshotWriter implements SheetRowIterator {
+    static final int MAGIC = 0x534E4150;
+    static final int VERSION = 1;
+    static final int ROW_GROUP_SIZE = 4096;
+
+    static final byte ABSENT = 0;
+    static final byte BLANK = 1;
+    static final byte NUMERIC = 2;
+    static final byte STRING = 3;
+    static final byte BOOLEAN = 4;
+    static final byte ERROR = 5;
+    static final byte FORMULA = 0x08;
+
+    private final SnapshotCache cache;
+    private final Path target;
+    private final SheetRowIterator rows;
+    private final List<Row> group = new ArrayList<>(ROW_GROUP_SIZE);
+    private final List<Long> groupOffsets = new ArrayList<>();
+    private final List<Integer> groupFirstRows = new ArrayList<>();
+    private final Map<Short, String> formats = new TreeMap<>();
+    private Path temp;
+    private DataOutputStream out;
+    private long position;
+    private boolean date1904;
+    private boolean done;
+
+    SnapshotWriter(SnapshotCache cache, Path target, SheetRowIterator rows) {
+        this.cache = cache;
+        this.target = target;
+        this.rows = rows;
+        try {
+            this.temp = cache.createTempFile(target);
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(this.temp)));
+            this.out.writeInt(MAGIC);
+            this.out.writeInt(VERSION);
+            this.position = 8;
+        } catch (IOException e) {
+            this.abort();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        boolean hasNext = this.rows.hasNext();
+        if (!hasNext && !this.done) {
+            this.finish();
+        }
+        return hasNext;
+    }
+
+    @Override
+    public Row next() {
+        Row row = this.rows.next();
+        if (!this.done) {
+            this.group.add(row);
+            if (this.group.size() == ROW_GROUP_SIZE) {
+                try {
+                    this.writeGroup();
+                } catch (IOException | RuntimeException e) {
+                    this.abort();
+                }
+            }
+        }
+        return row;
+    }
+
+    @Override
+    public long getBytesParsed() {
+        return this.rows.getBytesParsed();
+    }
+
+    @Override
+    public long getRowOffset() {
+        return this.rows.getRowOffset();
+    }
+
+    @Override
+    public int getDimensionLastRow() {
+        return this.rows.getDimensionLastRow();
+    }
+
+    @Override
+    public void close() {
+        try {
+            this.rows.close();
+        } finally {
+            if (!this.done) {
+                this.abort();
+            }
+        }
+    }
+
+    // write the last group and the footer, then publish the snapshot
+    private void finish() {
+        try {
+            if (!this.group.isEmpty()) {
+                this.writeGroup();
+            }
+
+            long footerOffset = this.position;
+            this.out.writeInt(this.groupOffsets.size());
+            for (int i = 0; i < this.groupOffsets.size(); i++) {
+                this.out.writeLong(this.groupOffsets.get(i));
+                this.out.writeInt(this.groupFirstRows.get(i));
+            }
+            this.out.writeInt(this.formats.size());
+            for (Map.Entry<Short, String> format : this.formats.entrySet()) {
+                this.out.writeShort(format.getKey());
+                this.writeString(format.getValue() != null ? format.getValue() : "");
+            }
+            this.out.writeBoolean(this.date1904);
+            this.out.writeInt(this.rows.getDimensionLastRow());
+            this.out.writeLong(footerOffset);
+            this.out.writeInt(MAGIC);
+            this.out.close();
+            this.out = null;
+            this.done = true;
+            this.cache.publish(this.temp, this.target);
+        } catch (IOException | RuntimeException e) {
+            this.abort();
+        }
+    }
+
+    private void writeGroup() throws IOException {
+        int columnCount = 0;
+        for (Row row : this.group) {
+            columnCount = Math.max(columnCount, row.getLastCellNum());
+        }
+
+        this.groupOffsets.add(this.position);
+        this.groupFirstRows.add(this.group.get(0).getRowNum());
+        this.out.writeInt(this.group.size());
+        this.out.writeInt(columnCount);
+        for (Row row : this.group) {
+            this.out.writeInt(row.getRowNum());
+        }
+        this.position += 8 + 4L * this.group.size();
+
+        for (int column = 0; column < columnCount; column++) {
+            for (Row row : this.group) {
+                this.out.writeByte(kind(row.getCell(column)));
+            }
+            this.position += this.group.size();
+            for (Row row : this.group) {
+                Cell cell = row.getCell(column);
+                if (cell != null) {
+                    this.writeCell((StreamingCell) cell);
+                }
+            }
+        }
+        this.group.clear();
+
+        // snapshots are mapped in a single buffer
+        if (this.position > Integer.MAX_VALUE - (1 << 20)) {
+            throw new IOException("Snapshot is too large");
+        }
+    }
+
+    private void writeCell(StreamingCell cell) throws IOException {
+        this.out.writeShort(cell.getDataFormat());
+        this.position += 2;
+        this.formats.putIfAbsent(cell.getDataFormat(), cell.getDataFormatString());
+        this.date1904 = cell.isDate1904();
+
+        switch (valueType(cell)) {
+            case NUMERIC:
+                this.out.writeDouble(cell.getNumericCellValue());
+                this.position += 8;
+                break;
+            case STRING:
+                this.writeString(cell.getStringCellValue());
+                break;
+            case BOOLEAN:
+                this.out.writeByte(cell.getBooleanCellValue() ? 1 : 0);
+                this.position++;
+                break;
+            case ERROR:
+                this.out.writeByte(cell.getErrorCellValue());
+                this.position++;
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        this.out.writeInt(bytes.length);
+        this.out.write(bytes);
+        this.position += 4 + bytes.length;
+    }
+
+    private static byte kind(Cell cell) {
+        if (cell == null) {
+            return ABSENT;
+        }
+        if (!(cell instanceof StreamingCell)) {
+            throw new IllegalStateException("Only streamed cells can be written to a snapshot");
+        }
+
+        byte kind;
+        switch (valueType(cell)) {
+            case NUMERIC:
+                kind = NUMERIC;
+                break;
+            case STRING:
+                kind = STRING;
+                break;
+            case BOOLEAN:
+                kind = BOOLEAN;
+                break;
+            case ERROR:
+                kind = ERROR;
+                break;
+            default:
+                kind = BLANK;
+        }
+        return cell.getCellType() == CellType.FORMULA ? (byte) (kind | FORMULA) : kind;
+    }
+
+    private static CellType valueType(Cell cell) {
+        return cell.getCellType() == CellType.FORMULA ? cell.getCachedFormulaResultType() : cell.getCellType();
+    }
+
+    // the snapshot is an optimization: the read goes on without it
+    private void abort() {
+        this.done = true;
+        this.group.clear();
+        try {
+            if (this.out != null) {
+                this.out.close();
+            }
+            if (this.temp != null) {
+                Files.deleteIfExists(this.temp);
+            }
+        } catch (IOException e) {
+            // the temporary file is left in the cache directory, it is not counted as a snapshot
+        }
+        this.out = null;
+    }
+}
@@ -0,0 +1,351 @@
+package vn.locdt.excel.reader.stream;
+
+import org.apache.poi.ss.formula.FormulaParseException;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.ss.util.CellAddress;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.hssf.usermodel.HSSFRichTextString;
+import vn.locdt.excel.utils.FormattedCell;
+
+import java.time.LocalDateTime;
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Read-only {@link Cell} produced by a streaming sheet parser.
+ * The cell is detached from any workbook: it only keeps its position, its value and the number format
+ * needed to render it, so converters written against the POI usermodel can be reused without loading the workbook.
+ * Formula cells expose the result cached in the file, they are never re-evaluated.
+ */
+public class StreamingCell implements Cell, FormattedCell {
+    private final StreamingRow row;
+    private final int columnIndex;
+    private final CellType cellType;
+    private final CellType cachedFormulaResultType;
+    private final double numericValue;
+    private final SharedStrings sharedStrings;
+    private final int sharedStringIndex;
+    private String stringValue;
+    private final String formula;
+    private final CellStyle cellStyle;
+    private final short dataFormat;
+    private final String dataFormatString;
+    private final boolean date1904;
+
+    StreamingCell(StreamingRow row, int columnIndex, CellType cellType, CellType cachedFormulaResultType,
+                  double numericValue, String stringValue, SharedStrings sharedStrings, int sharedStringIndex, String formula,
+                  CellStyle cellStyle, short dataFormat, String dataFormatString, boolean date1904) {
+        this.row = row;
+        this.columnIndex = columnIndex;
+        this.cellType = cellType;
+        this.cachedFormulaResultType = cachedFormulaResultType;
+        this.numericValue = numericValue;
+        this.stringValue = stringValue;
+        this.sharedStrings = sharedStrings;
+        this.sharedStringIndex = sharedStringIndex;
+        this.formula = formula;
+        this.cellStyle = cellStyle;
+        this.dataFormat = dataFormat;
+        this.dataFormatString = dataFormatString;
+        this.date1904 = date1904;
+    }
+
+    @Override
+    public short getDataFormat() {
+        return this.dataFormat;
+    }
+
+    @Override
+    public String getDataFormatString() {
+        return this.dataFormatString;
+    }
+
+    // date system of the workbook, kept by the snapshots of the sheet
+    boolean isDate1904() {
+        return this.date1904;
+    }
+
+    @Override
+    public int getColumnIndex() {
+        return this.columnIndex;
+    }
+
+    @Override
+    public int getRowIndex() {
+        return this.row.getRowNum();
+    }
+
+    /**
+     * Streaming cells are not attached to a sheet.
+     *
+     * @return always null
+     */
+    @Override
+    public Sheet getSheet() {
+        return null;
+    }
+
+    @Override
+    public Row getRow() {
+        return this.row;
+    }
+
+    @Override
+    public CellType getCellType() {
+        return this.cellType;
+    }
+
+    @Override
+    @Deprecated
+    public CellType getCellTypeEnum() {
+        return this.cellType;
+    }
+
+    @Override
+    public CellType getCachedFormulaResultType() {
+        if (this.cellType != CellType.FORMULA) {
+            throw new IllegalStateException("Only formula cells have cached results");
+        }
+        return this.cachedFormulaResultType;
+    }
+
+    @Override
+    @Deprecated
+    public CellType getCachedFormulaResultTypeEnum() {
+        return this.getCachedFormulaResultType();
+    }
+
+    @Override
+    public String getCellFormula() {
+        if (this.cellType != CellType.FORMULA) {
+            throw new IllegalStateException("Cell " + this.getAddress() + " is not a formula cell");
+        }
+        return this.formula;
+    }
+
+    @Override
+    public double getNumericCellValue() {
+        CellType valueType = this.getValueType();
+        if (valueType == CellType.BLANK) {
+            return 0.0;
+        }
+        if (valueType != CellType.NUMERIC) {
+            throw this.typeMismatch(CellType.NUMERIC);
+        }
+        return this.numericValue;
+    }
+
+    @Override
+    public Date getDateCellValue() {
+        if (this.getValueType() == CellType.BLANK) {
+            return null;
+        }
+        return DateUtil.getJavaDate(this.getNumericCellValue(), this.date1904);
+    }
+
+    @Override
+    public LocalDateTime getLocalDateTimeCellValue() {
+        if (this.getValueType() == CellType.BLANK) {
+            return null;
+        }
+        return DateUtil.getLocalDateTime(this.getNumericCellValue(), this.date1904);
+    }
+
+    @Override
+    public RichTextString getRichStringCellValue() {
+        // the string is already decoded, XSSFRichTextString would decode its _xHHHH_ escapes again
+        return new HSSFRichTextString(this.getStringCellValue());
+    }
+
+    @Override
+    public String getStringCellValue() {
+        CellType valueType = this.getValueType();
+        if (valueType == CellType.BLANK) {
+            return "";
+        }
+        if (valueType != CellType.STRING) {
+            throw this.typeMismatch(CellType.STRING);
+        }
+        return this.getStringValue();
+    }
+
+    // shared strings are only decoded when the value is read
+    private String getStringValue() {
+        if (this.stringValue == null && this.sharedStrings != null) {
+            this.stringValue = this.sharedStrings.getString(this.sharedStringIndex);
+        }
+        return this.stringValue;
+    }
+
+    @Override
+    public boolean getBooleanCellValue() {
+        CellType valueType = this.getValueType();
+        if (valueType == CellType.BLANK) {
+            return false;
+        }
+        if (valueType != CellType.BOOLEAN) {
+            throw this.typeMismatch(CellType.BOOLEAN);
+        }
+        return this.numericValue != 0;
+    }
+
+    @Override
+    public byte getErrorCellValue() {
+        if (this.getValueType() != CellType.ERROR) {
+            throw this.typeMismatch(CellType.ERROR);
+        }
+        return (byte) this.numericValue;
+    }
+
+    @Override
+    public CellStyle getCellStyle() {
+        return this.cellStyle;
+    }
+
+    @Override
+    public CellAddress getAddress() {
+        return new CellAddress(this.getRowIndex(), this.columnIndex);
+    }
+
+    @Override
+    public Comment getCellComment() {
+        return null;
+    }
+
+    @Override
+    public Hyperlink getHyperlink() {
+        return null;
+    }
+
+    @Override
+    public CellRangeAddress getArrayFormulaRange() {
+        throw new UnsupportedOperationException("Array formulas are not available when streaming");
+    }
+
+    @Override
+    public boolean isPartOfArrayFormulaGroup() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        switch (this.getValueType()) {
+            case BLANK:
+                return "";
+            case STRING:
+                return this.getStringValue();
+            case BOOLEAN:
+                return this.getBooleanCellValue() ? "TRUE" : "FALSE";
+            case ERROR:
+                return FormulaError.forInt(this.getErrorCellValue()).getString();
+            default:
+                return String.valueOf(this.numericValue);
+        }
+    }
+
+    /* read-only cell: all mutators are unsupported */
+    @Override
+    @Deprecated
+    public void setCellType(CellType cellType) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setBlank() {
+        throw readOnly();
+    }
+
+    @Override
+    public void setCellValue(double value) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setCellValue(Date value) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setCellValue(LocalDateTime value) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setCellValue(Calendar value) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setCellValue(RichTextString value) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setCellValue(String value) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setCellFormula(String formula) throws FormulaParseException, IllegalStateException {
+        throw readOnly();
+    }
+
+    @Override
+    public void removeFormula() throws IllegalStateException {
+        throw readOnly();
+    }
+
+    @Override
+    public void setCellValue(boolean value) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setCellErrorValue(byte value) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setCellStyle(CellStyle style) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setAsActiveCell() {
+        throw readOnly();
+    }
+
+    @Override
+    public void setCellComment(Comment comment) {
+        throw readOnly();
+    }
+
+    @Override
+    public void removeCellComment() {
+        throw readOnly();
+    }
+
+    @Override
+    public void setHyperlink(Hyperlink link) {
+        throw readOnly();
+    }
+
+    @Override
+    public void removeHyperlink() {
+        throw readOnly();
+    }
+
+    // type of the value held by this cell, resolving formula cells to their cached result
+    private CellType getValueType() {
+        return this.cellType == CellType.FORMULA ? this.cachedFormulaResultType : this.cellType;
+    }
+
+    private IllegalStateException typeMismatch(CellType expected) {
+        return new IllegalStateException(String.format("Cannot get a %s value from a %s cell %s",
+                expected, this.getValueType(), this.getAddress()));
+    }
+
+    static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Streaming cells are read-only");
+    }
+}
@@ -0,0 +1,215 @@
+package vn.locdt.excel.reader.stream;
+
+import org.apache.poi.ss.usermodel.*;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only {@link Row} produced by a streaming sheet parser.
+ * It only holds the cells physically present in the file, indexed by column, and is not attached to any sheet.
+ */
+public class StreamingRow implements Row {
+    private static final StreamingCell[] NO_CELLS = new StreamingCell[0];
+
+    private final int rowNum;
+    private StreamingCell[] cells = NO_CELLS;
+    private int physicalNumberOfCells;
+
+    StreamingRow(int rowNum) {
+        this.rowNum = rowNum;
+    }
+
+    // index the parsed cells by their column
+    void setCells(List<StreamingCell> parsedCells) {
+        if (parsedCells.isEmpty()) {
+            return;
+        }
+
+        int lastColumn = 0;
+        for (StreamingCell cell : parsedCells) {
+            lastColumn = Math.max(lastColumn, cell.getColumnIndex());
+        }
+
+        this.cells = new StreamingCell[lastColumn + 1];
+        for (StreamingCell cell : parsedCells) {
+            this.cells[cell.getColumnIndex()] = cell;
+        }
+        this.physicalNumberOfCells = parsedCells.size();
+    }
+
+    @Override
+    public int getRowNum() {
+        return this.rowNum;
+    }
+
+    @Override
+    public Cell getCell(int cellnum) {
+        return cellnum >= 0 && cellnum < this.cells.length ? this.cells[cellnum] : null;
+    }
+
+    @Override
+    public Cell getCell(int cellnum, MissingCellPolicy policy) {
+        Cell cell = this.getCell(cellnum);
+        switch (policy) {
+            case RETURN_BLANK_AS_NULL:
+                return cell == null || cell.getCellType() == CellType.BLANK ? null : cell;
+            case CREATE_NULL_AS_BLANK:
+                return cell != null ? cell : new StreamingCell(this, cellnum, CellType.BLANK, CellType._NONE,
+                        0, null, null, -1, null, null, (short) 0, null, false);
+            default:
+                return cell;
+        }
+    }
+
+    @Override
+    public short getFirstCellNum() {
+        for (int i = 0; i < this.cells.length; i++) {
+            if (this.cells[i] != null) {
+                return (short) i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public short getLastCellNum() {
+        return this.cells.length == 0 ? -1 : (short) this.cells.length;
+    }
+
+    @Override
+    public int getPhysicalNumberOfCells() {
+        return this.physicalNumberOfCells;
+    }
+
+    @Override
+    public Iterator<Cell> cellIterator() {
+        return new Iterator<Cell>() {
+            private int next = this.advance(0);
+
+            @Override
+            public boolean hasNext() {
+                return this.next < StreamingRow.this.cells.length;
+            }
+
+            @Override
+            public Cell next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Cell cell = StreamingRow.this.cells[this.next];
+                this.next = this.advance(this.next + 1);
+                return cell;
+            }
+
+            private int advance(int from) {
+                int i = from;
+                while (i < StreamingRow.this.cells.length && StreamingRow.this.cells[i] == null) {
+                    i++;
+                }
+                return i;
+            }
+        };
+    }
+
+    @Override
+    public Iterator<Cell> iterator() {
+        return this.cellIterator();
+    }
+
+    /**
+     * Streaming rows are not attached to a sheet.
+     *
+     * @return always null
+     */
+    @Override
+    public Sheet getSheet() {
+        return null;
+    }
+
+    /* read-only row: layout information is not kept and all mutators are unsupported */
+    @Override
+    public Cell createCell(int column) {
+        throw StreamingCell.readOnly();
+    }
+
+    @Override
+    public Cell createCell(int column, CellType type) {
+        throw StreamingCell.readOnly();
+    }
+
+    @Override
+    public void removeCell(Cell cell) {
+        throw StreamingCell.readOnly();
+    }
+
+    @Override
+    public void setRowNum(int rowNum) {
+        throw StreamingCell.readOnly();
+    }
+
+    @Override
+    public void setHeight(short height) {
+        throw StreamingCell.readOnly();
+    }
+
+    @Override
+    public void setZeroHeight(boolean zHeight) {
+        throw StreamingCell.readOnly();
+    }
+
+    @Override
+    public boolean getZeroHeight() {
+        throw unsupported();
+    }
+
+    @Override
+    public void setHeightInPoints(float height) {
+        throw StreamingCell.readOnly();
+    }
+
+    @Override
+    public short getHeight() {
+        throw unsupported();
+    }
+
+    @Override
+    public float getHeightInPoints() {
+        throw unsupported();
+    }
+
+    @Override
+    public boolean isFormatted() {
+        return false;
+    }
+
+    @Override
+    public CellStyle getRowStyle() {
+        return null;
+    }
+
+    @Override
+    public void setRowStyle(CellStyle style) {
+        throw StreamingCell.readOnly();
+    }
+
+    @Override
+    public int getOutlineLevel() {
+        throw unsupported();
+    }
+
+    @Override
+    public void shiftCellsRight(int firstShiftColumnIndex, int lastShiftColumnIndex, int step) {
+        throw StreamingCell.readOnly();
+    }
+
+    @Override
+    public void shiftCellsLeft(int firstShiftColumnIndex, int lastShiftColumnIndex, int step) {
+        throw StreamingCell.readOnly();
+    }
+
+    private static UnsupportedOperationException unsupported() {
+        return new UnsupportedOperationException("Row layout is not available when streaming");
+    }
+}
@@ -0,0 +1,87 @@
+package vn.locdt.excel.reader.stream;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A workbook opened for streaming: sheets are never loaded in memory, their rows are parsed on demand
+ * and handed over one by one through a {@link SheetRowIterator}.
+ */
+public interface StreamingWorkbook extends Closeable {
+    /**
+     * Open an excel file for streaming. The engine is chosen from the magic bytes of the file:
+     * BIFF8 (.xls) files are read by the HSSF event model, other files as OOXML (.xlsx) packages.
+     *
+     * @param path the excel file
+     * @return the opened workbook, must be closed by the caller
+     * @throws IOException throws if the file can not be opened
+     */
+    static StreamingWorkbook open(Path path) throws IOException {
+        return StreamingWorkbookFactory.open(path, false);
+    }
+
+    /**
+     * Open an excel stream for streaming. The content is spooled to a temporary file first,
+     * so that reading the sheets does not need to hold the whole file in memory.
+     *
+     * @param in the excel content, not closed by this method
+     * @return the opened workbook, must be closed by the caller
+     * @throws IOException throws if the stream can not be spooled or opened
+     */
+    static StreamingWorkbook open(InputStream in) throws IOException {
+        Path tempFile = Files.createTempFile("excel-reader", ".tmp");
+        try {
+            Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            return StreamingWorkbookFactory.open(tempFile, true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+
+    /**
+     * Open another workbook over the same file, that can be read concurrently with this one.
+     * The structure of the workbook (sheets, styles and shared strings) is not read again.
+     * This workbook must stay open while the returned workbook is used.
+     *
+     * @return the opened workbook, must be closed by the caller
+     * @throws IOException throws if the file can not be opened
+     */
+    StreamingWorkbook reopen() throws IOException;
+
+    int getNumberOfSheets();
+
+    String getSheetName(int sheetIndex);
+
+    /**
+     * @param name the sheet's name
+     * @return the index of the sheet, or -1 if there is no sheet with that name
+     */
+    int getSheetIndex(String name);
+
+    boolean isSheetHidden(int sheetIndex);
+
+    /**
+     * Start parsing a sheet.
+     *
+     * @param sheetIndex the sheet's index in workbook
+     * @return iterator over the rows physically present in the sheet
+     */
+    SheetRowIterator openRows(int sheetIndex);
+
+    /**
+     * Start parsing a sheet at the closest indexed row at or before fromRow, and record the offsets of the parsed rows into the index.
+     * Rows before the indexed row are skipped without being parsed.
+     *
+     * @param sheetIndex the sheet's index in workbook
+     * @param index      the index of the sheet
+     * @param fromRow    the first row needed by the caller
+     * @return iterator over the rows physically present in the sheet, from the indexed row or from the top of the sheet
+     * @throws vn.locdt.excel.reader.exception.ExcelReadException throws if the index was built for another sheet or version of the file
+     */
+    SheetRowIterator openRows(int sheetIndex, RowIndex index, int fromRow);
+}
@@ -0,0 +1,28 @@
+package vn.locdt.excel.reader.stream;
+
+import org.apache.poi.poifs.filesystem.FileMagic;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Choose the streaming engine of a file from its magic bytes.
+ */
+final class StreamingWorkbookFactory {
+    private StreamingWorkbookFactory() {
+    }
+
+    /**
+     * @param path          the excel file
+     * @param deleteOnClose true to delete the file when the workbook is closed, for spooled streams
+     * @return a workbook over a BIFF8 (.xls) file, or over an OOXML (.xlsx) package for other files,
+     * the OOXML engine reporting unknown formats
+     * @throws IOException throws if the file can not be opened
+     */
+    static StreamingWorkbook open(Path path, boolean deleteOnClose) throws IOException {
+        if (FileMagic.valueOf(path.toFile()) == FileMagic.OLE2) {
+            return XlsStreamingWorkbook.open(path, deleteOnClose);
+        }
+        return XlsxStreamingWorkbook.open(path, deleteOnClose);
+    }
+}
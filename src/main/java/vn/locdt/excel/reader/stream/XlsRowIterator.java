@@ -0,0 +1,307 @@
+package vn.locdt.excel.reader.stream;
+
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BlankRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.CellValueRecordInterface;
+import org.apache.poi.hssf.record.DimensionsRecord;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.MulBlankRecord;
+import org.apache.poi.hssf.record.MulRKRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.RKRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.RecordFactoryInputStream;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import vn.locdt.excel.reader.exception.ExcelReadException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Pull reader over the records of a sheet of a BIFF8 workbook, from its BOF record to its EOF record.
+ * Cell records of a row are contiguous, a row is complete when a cell of another row is read. Only the current row is kept in memory.
+ * <p>
+ * Formula cells expose their cached result, their formula is not decoded: it would need the workbook globals.
+ */
+class XlsRowIterator implements SheetRowIterator {
+    // codes of FormulaRecord.getCachedResultType(), CellType.forInt(int) being deprecated
+    private static final int CACHED_STRING = 1;
+    private static final int CACHED_BOOLEAN = 4;
+    private static final int CACHED_ERROR = 5;
+
+    private final XlsStreamingWorkbook workbook;
+    private final CountingInputStream in;
+    private final RecordFactoryInputStream records;
+    private final List<StreamingCell> rowCells = new ArrayList<>();
+
+    private StreamingRow row;
+    private StreamingRow nextRow;
+    // formula with a string result, completed by the string record following it
+    private FormulaRecord pendingFormula;
+    private boolean closed;
+    private boolean ended;
+    // the sheet substream may embed the substreams of charts, each one with its own BOF and EOF records
+    private int depth;
+    private int dimensionLastRow = -1;
+
+    XlsRowIterator(XlsStreamingWorkbook workbook, InputStream in) {
+        this.workbook = workbook;
+        this.in = new CountingInputStream(in);
+        this.records = new RecordFactoryInputStream(this.in, false);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (this.nextRow == null && !this.closed) {
+            try {
+                this.nextRow = this.readNextRow();
+            } catch (RuntimeException e) {
+                this.close();
+                throw new ExcelReadException("Can not parse sheet content", e);
+            }
+            if (this.nextRow == null) {
+                this.close();
+            }
+        }
+        return this.nextRow != null;
+    }
+
+    @Override
+    public Row next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Row row = this.nextRow;
+        this.nextRow = null;
+        return row;
+    }
+
+    @Override
+    public long getBytesParsed() {
+        return this.in.count;
+    }
+
+    /**
+     * Rows of .xls sheets are not indexed.
+     *
+     * @return always -1
+     */
+    @Override
+    public long getRowOffset() {
+        return -1;
+    }
+
+    @Override
+    public int getDimensionLastRow() {
+        return this.dimensionLastRow;
+    }
+
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        try {
+            this.in.close();
+        } catch (IOException e) {
+            throw new ExcelReadException("Can not close sheet content", e);
+        }
+    }
+
+    // read records until a cell of another row, or the end of the sheet, completes the current row
+    private StreamingRow readNextRow() {
+        while (!this.ended) {
+            Record record = this.records.nextRecord();
+            if (record == null) {
+                this.ended = true;
+            } else if (record instanceof BOFRecord) {
+                this.depth++;
+            } else if (record instanceof EOFRecord) {
+                this.ended = --this.depth <= 0;
+            } else if (this.depth == 1) {
+                StreamingRow completed = this.readRecord(record);
+                if (completed != null) {
+                    return completed;
+                }
+            }
+        }
+        this.completePendingFormula(null);
+        return this.completeRow();
+    }
+
+    /**
+     * @param record a record of the sheet
+     * @return the previous row if the record is a cell of another row, else null
+     */
+    private StreamingRow readRecord(Record record) {
+        if (record instanceof StringRecord) {
+            this.completePendingFormula(((StringRecord) record).getString());
+            return null;
+        } else if (record instanceof DimensionsRecord) {
+            // the last row of the dimension is exclusive
+            this.dimensionLastRow = ((DimensionsRecord) record).getLastRow() - 1;
+            return null;
+        }
+
+        int rowNum;
+        if (record instanceof CellValueRecordInterface) {
+            rowNum = ((CellValueRecordInterface) record).getRow();
+        } else if (record instanceof MulRKRecord) {
+            rowNum = ((MulRKRecord) record).getRow();
+        } else if (record instanceof MulBlankRecord) {
+            rowNum = ((MulBlankRecord) record).getRow();
+        } else {
+            return null;
+        }
+
+        this.completePendingFormula(null);
+        StreamingRow completed = null;
+        if (this.row != null && this.row.getRowNum() != rowNum) {
+            completed = this.completeRow();
+        }
+        if (this.row == null) {
+            this.row = new StreamingRow(rowNum);
+        }
+        this.addCells(record);
+        return completed;
+    }
+
+    private void addCells(Record record) {
+        if (record instanceof NumberRecord) {
+            NumberRecord number = (NumberRecord) record;
+            this.addCell(number.getColumn(), number.getXFIndex(), CellType.NUMERIC, number.getValue(), null, -1);
+        } else if (record instanceof RKRecord) {
+            RKRecord number = (RKRecord) record;
+            this.addCell(number.getColumn(), number.getXFIndex(), CellType.NUMERIC, number.getRKNumber(), null, -1);
+        } else if (record instanceof MulRKRecord) {
+            MulRKRecord numbers = (MulRKRecord) record;
+            for (int i = 0; i < numbers.getNumColumns(); i++) {
+                this.addCell(numbers.getFirstColumn() + i, numbers.getXFAt(i), CellType.NUMERIC, numbers.getRKNumberAt(i), null, -1);
+            }
+        } else if (record instanceof LabelSSTRecord) {
+            // decoded only if a converter reads it
+            LabelSSTRecord label = (LabelSSTRecord) record;
+            this.addCell(label.getColumn(), label.getXFIndex(), CellType.STRING, 0, null, label.getSSTIndex());
+        } else if (record instanceof LabelRecord) {
+            LabelRecord label = (LabelRecord) record;
+            this.addCell(label.getColumn(), label.getXFIndex(), CellType.STRING, 0, label.getValue(), -1);
+        } else if (record instanceof BoolErrRecord) {
+            BoolErrRecord value = (BoolErrRecord) record;
+            if (value.isBoolean()) {
+                this.addCell(value.getColumn(), value.getXFIndex(), CellType.BOOLEAN, value.getBooleanValue() ? 1 : 0, null, -1);
+            } else {
+                this.addCell(value.getColumn(), value.getXFIndex(), CellType.ERROR, value.getErrorValue(), null, -1);
+            }
+        } else if (record instanceof FormulaRecord) {
+            this.addFormula((FormulaRecord) record);
+        } else if (record instanceof BlankRecord) {
+            BlankRecord blank = (BlankRecord) record;
+            this.addCell(blank.getColumn(), blank.getXFIndex(), CellType.BLANK, 0, null, -1);
+        } else if (record instanceof MulBlankRecord) {
+            MulBlankRecord blanks = (MulBlankRecord) record;
+            for (int i = 0; i < blanks.getNumColumns(); i++) {
+                this.addCell(blanks.getFirstColumn() + i, blanks.getXFAt(i), CellType.BLANK, 0, null, -1);
+            }
+        }
+    }
+
+    private void addFormula(FormulaRecord formula) {
+        switch (formula.getCachedResultType()) {
+            case CACHED_STRING:
+                if (formula.hasCachedResultString()) {
+                    this.pendingFormula = formula;
+                } else {
+                    this.addFormulaCell(formula, CellType.STRING, 0, "");
+                }
+                break;
+            case CACHED_BOOLEAN:
+                this.addFormulaCell(formula, CellType.BOOLEAN, formula.getCachedBooleanValue() ? 1 : 0, null);
+                break;
+            case CACHED_ERROR:
+                this.addFormulaCell(formula, CellType.ERROR, formula.getCachedErrorValue(), null);
+                break;
+            default:
+                this.addFormulaCell(formula, CellType.NUMERIC, formula.getValue(), null);
+        }
+    }
+
+    // complete the pending formula with the value of its string record, or with an empty string if the record is missing
+    private void completePendingFormula(String value) {
+        if (this.pendingFormula != null) {
+            this.addFormulaCell(this.pendingFormula, CellType.STRING, 0, value != null ? value : "");
+            this.pendingFormula = null;
+        }
+    }
+
+    private void addFormulaCell(FormulaRecord formula, CellType resultType, double numericValue, String stringValue) {
+        int xfIndex = formula.getXFIndex();
+        this.rowCells.add(new StreamingCell(this.row, formula.getColumn(), CellType.FORMULA, resultType, numericValue, stringValue,
+                null, -1, null, null,
+                this.workbook.getDataFormat(xfIndex),
+                this.workbook.getDataFormatString(xfIndex),
+                this.workbook.isDate1904()));
+    }
+
+    private void addCell(int column, int xfIndex, CellType cellType, double numericValue, String stringValue, int sharedStringIndex) {
+        this.rowCells.add(new StreamingCell(this.row, column, cellType, CellType._NONE, numericValue, stringValue,
+                sharedStringIndex >= 0 ? this.workbook.getSharedStrings() : null, sharedStringIndex, null, null,
+                this.workbook.getDataFormat(xfIndex),
+                this.workbook.getDataFormatString(xfIndex),
+                this.workbook.isDate1904()));
+    }
+
+    private StreamingRow completeRow() {
+        StreamingRow completed = this.row;
+        if (completed != null) {
+            completed.setCells(this.rowCells);
+            this.rowCells.clear();
+            this.row = null;
+        }
+        return completed;
+    }
+
+    // count the bytes of records read, a plain field is enough since the iterator is used by one thread at a time
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                this.count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                this.count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            this.count += skipped;
+            return skipped;
+        }
+    }
+}
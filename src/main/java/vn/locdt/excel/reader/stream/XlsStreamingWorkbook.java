@@ -0,0 +1,262 @@
+package vn.locdt.excel.reader.stream;
+
+import org.apache.poi.hssf.model.InternalWorkbook;
+import org.apache.poi.hssf.record.BoundSheetRecord;
+import org.apache.poi.hssf.record.DateWindow1904Record;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.ExtendedFormatRecord;
+import org.apache.poi.hssf.record.FilePassRecord;
+import org.apache.poi.hssf.record.FormatRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.RecordFactoryInputStream;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.common.UnicodeString;
+import org.apache.poi.poifs.filesystem.DocumentInputStream;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.util.IOUtils;
+import vn.locdt.excel.reader.exception.ExcelReadException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming workbook over a BIFF8 (.xls) file, based on the HSSF event model: the file system is opened read-only
+ * from a file, the records of the workbook globals (sheets, formats and shared strings) are read once,
+ * and the records of each sheet are pulled row by row when iterated, starting at the sheet's BOF record.
+ * Shared strings are copied into a memory-mapped file, see {@link MappedSharedStrings}.
+ * <p>
+ * Encrypted files and files older than BIFF8 are not supported.
+ */
+class XlsStreamingWorkbook implements StreamingWorkbook {
+    private final POIFSFileSystem fs;
+    private final Path path;
+    private final boolean deleteOnClose;
+    private final String workbookEntry;
+    private final SharedStrings sharedStrings;
+    private final List<SheetEntry> sheets;
+    private boolean date1904;
+    private short[] dataFormats = new short[0];
+    private String[] dataFormatStrings = new String[0];
+
+    private XlsStreamingWorkbook(POIFSFileSystem fs, Path path, boolean deleteOnClose) throws IOException {
+        this.fs = fs;
+        this.path = path;
+        this.deleteOnClose = deleteOnClose;
+        this.workbookEntry = findWorkbookEntry(fs);
+        this.sheets = new ArrayList<>();
+        try (InputStream in = fs.createDocumentInputStream(this.workbookEntry)) {
+            this.sharedStrings = this.readGlobals(in);
+        }
+    }
+
+    // open another file system over the same file, sharing the workbook structure already read by the source, which is never modified
+    private XlsStreamingWorkbook(POIFSFileSystem fs, XlsStreamingWorkbook source) {
+        this.fs = fs;
+        this.path = source.path;
+        this.deleteOnClose = false;
+        this.workbookEntry = source.workbookEntry;
+        this.sharedStrings = source.sharedStrings;
+        this.sheets = source.sheets;
+        this.date1904 = source.date1904;
+        this.dataFormats = source.dataFormats;
+        this.dataFormatStrings = source.dataFormatStrings;
+    }
+
+    static XlsStreamingWorkbook open(Path path, boolean deleteOnClose) throws IOException {
+        POIFSFileSystem fs = openFileSystem(path);
+        try {
+            return new XlsStreamingWorkbook(fs, path, deleteOnClose);
+        } catch (IOException | RuntimeException e) {
+            IOUtils.closeQuietly(fs);
+            throw new IOException("Can not read workbook structure of " + path, e);
+        }
+    }
+
+    private static POIFSFileSystem openFileSystem(Path path) throws IOException {
+        try {
+            return new POIFSFileSystem(path.toFile(), true);
+        } catch (RuntimeException e) {
+            throw new IOException("Can not open excel file " + path, e);
+        }
+    }
+
+    private static String findWorkbookEntry(POIFSFileSystem fs) throws IOException {
+        for (String name : InternalWorkbook.WORKBOOK_DIR_ENTRY_NAMES) {
+            if (fs.getRoot().hasEntry(name)) {
+                return name;
+            }
+        }
+        throw new IOException("No BIFF8 workbook stream found, the file may be encrypted or older than Excel 97");
+    }
+
+    @Override
+    public StreamingWorkbook reopen() throws IOException {
+        return new XlsStreamingWorkbook(openFileSystem(this.path), this);
+    }
+
+    @Override
+    public int getNumberOfSheets() {
+        return this.sheets.size();
+    }
+
+    @Override
+    public String getSheetName(int sheetIndex) {
+        return this.getSheet(sheetIndex).name;
+    }
+
+    @Override
+    public int getSheetIndex(String name) {
+        for (int i = 0; i < this.sheets.size(); i++) {
+            if (this.sheets.get(i).name.equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean isSheetHidden(int sheetIndex) {
+        return this.getSheet(sheetIndex).hidden;
+    }
+
+    @Override
+    public SheetRowIterator openRows(int sheetIndex) {
+        SheetEntry sheet = this.getSheet(sheetIndex);
+        DocumentInputStream in = null;
+        try {
+            in = this.fs.createDocumentInputStream(this.workbookEntry);
+            // records are not compressed: the records before the sheet are skipped without being read
+            if (IOUtils.skipFully(in, sheet.bofOffset) != sheet.bofOffset) {
+                throw new IOException("Sheet " + sheet.name + " is beyond the end of the workbook stream");
+            }
+            return new XlsRowIterator(this, in);
+        } catch (IOException | RuntimeException e) {
+            IOUtils.closeQuietly(in);
+            throw new ExcelReadException("Can not open sheet " + sheet.name, e);
+        }
+    }
+
+    /**
+     * Rows of .xls sheets are not indexed: the sheet is parsed from its top, the index is only bound to the sheet.
+     */
+    @Override
+    public SheetRowIterator openRows(int sheetIndex, RowIndex index, int fromRow) {
+        index.bind(sheetIndex, -1);
+        return this.openRows(sheetIndex);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            this.fs.close();
+        } finally {
+            if (this.deleteOnClose) {
+                Files.deleteIfExists(this.path);
+            }
+        }
+    }
+
+    /* lookups used by the row iterator */
+    SharedStrings getSharedStrings() {
+        return this.sharedStrings;
+    }
+
+    short getDataFormat(int xfIndex) {
+        return xfIndex >= 0 && xfIndex < this.dataFormats.length ? this.dataFormats[xfIndex] : 0;
+    }
+
+    String getDataFormatString(int xfIndex) {
+        return xfIndex >= 0 && xfIndex < this.dataFormatStrings.length ? this.dataFormatStrings[xfIndex] : null;
+    }
+
+    boolean isDate1904() {
+        return this.date1904;
+    }
+
+    private SheetEntry getSheet(int sheetIndex) {
+        if (sheetIndex < 0 || sheetIndex >= this.sheets.size()) {
+            throw new IllegalArgumentException(String.format("Sheet index (%d) is out of range (0..%d)", sheetIndex, this.sheets.size() - 1));
+        }
+        return this.sheets.get(sheetIndex);
+    }
+
+    // read sheets, the date system, number formats and shared strings from the records of the workbook globals
+    private SharedStrings readGlobals(InputStream in) throws IOException {
+        RecordFactoryInputStream records = new RecordFactoryInputStream(in, false);
+        Map<Integer, String> formats = new HashMap<>();
+        List<Short> xfFormats = new ArrayList<>();
+        SSTRecord sst = null;
+
+        for (Record record = records.nextRecord(); record != null && !(record instanceof EOFRecord); record = records.nextRecord()) {
+            if (record instanceof BoundSheetRecord) {
+                BoundSheetRecord sheet = (BoundSheetRecord) record;
+                this.sheets.add(new SheetEntry(sheet.getSheetname(), sheet.getPositionOfBof(), sheet.isHidden() || sheet.isVeryHidden()));
+            } else if (record instanceof SSTRecord) {
+                sst = (SSTRecord) record;
+            } else if (record instanceof FormatRecord) {
+                FormatRecord format = (FormatRecord) record;
+                formats.put(format.getIndexCode(), format.getFormatString());
+            } else if (record instanceof ExtendedFormatRecord) {
+                xfFormats.add(((ExtendedFormatRecord) record).getFormatIndex());
+            } else if (record instanceof DateWindow1904Record) {
+                this.date1904 = ((DateWindow1904Record) record).getWindowing() == 1;
+            } else if (record instanceof FilePassRecord) {
+                throw new IOException("Encrypted .xls files can not be streamed");
+            }
+        }
+
+        // resolve number formats once per extended format instead of once per cell
+        this.dataFormats = new short[xfFormats.size()];
+        this.dataFormatStrings = new String[xfFormats.size()];
+        for (int i = 0; i < xfFormats.size(); i++) {
+            short format = xfFormats.get(i);
+            this.dataFormats[i] = format;
+            this.dataFormatStrings[i] = formats.containsKey((int) format) ? formats.get((int) format) : BuiltinFormats.getBuiltinFormat(format);
+        }
+
+        // the table is decoded by POI as a whole, it is only kept in memory until copied
+        return MappedSharedStrings.copyOf(sst != null ? new SstIterator(sst) : Collections.emptyIterator());
+    }
+
+    private static class SstIterator implements Iterator<String> {
+        private final SSTRecord sst;
+        private int next;
+
+        private SstIterator(SSTRecord sst) {
+            this.sst = sst;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next < this.sst.getNumUniqueStrings();
+        }
+
+        @Override
+        public String next() {
+            UnicodeString value = this.sst.getString(this.next++);
+            return value.getString();
+        }
+    }
+
+    private static class SheetEntry {
+        private final String name;
+        // offset of the sheet's BOF record in the workbook stream
+        private final int bofOffset;
+        private final boolean hidden;
+
+        private SheetEntry(String name, int bofOffset, boolean hidden) {
+            this.name = name;
+            this.bofOffset = bofOffset;
+            this.hidden = hidden;
+        }
+    }
+}
@@ -0,0 +1,438 @@
+package vn.locdt.excel.reader.stream;
+
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.usermodel.Row;
+import vn.locdt.excel.reader.exception.ExcelReadException;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Pull parser over a sheet part of an OOXML package. Only the current row is kept in memory.
+ * <p>
+ * With a {@link RowIndex}, the offsets of the rows are recorded into the index while the sheet is parsed,
+ * and parsing can start at an indexed row: the header of the sheet, up to the start tag of sheetData,
+ * is parsed first so that namespaces are declared, then the content resumes at the indexed row.
+ */
+class XlsxRowIterator implements SheetRowIterator {
+    private final XlsxStreamingWorkbook workbook;
+    private final CountingInputStream in;
+    private final XMLStreamReader xml;
+    private final List<StreamingCell> rowCells = new ArrayList<>();
+    private final StringBuilder value = new StringBuilder();
+    private final StringBuilder formula = new StringBuilder();
+    private final RowIndex index;
+    private final boolean fromTop;
+
+    private StreamingRow nextRow;
+    private long nextRowOffset = -1;
+    private long rowOffset = -1;
+    private boolean closed;
+    private int lastRowNum = -1;
+    private int dimensionLastRow = -1;
+    private int nextIndexedRow = Integer.MIN_VALUE;
+
+    XlsxRowIterator(XlsxStreamingWorkbook workbook, InputStream in) throws XMLStreamException {
+        this(workbook, in, null, null, 0, -1);
+    }
+
+    /**
+     * @param workbook the workbook of the sheet
+     * @param in       the sheet content, positioned at offset
+     * @param index    index recording the offsets of the parsed rows, may be null
+     * @param header   the header of the sheet to parse before in, null if in is positioned at the top of the sheet
+     * @param offset   offset of in in the sheet content
+     * @param seekRow  number of the row at offset, -1 at the top of the sheet
+     * @throws XMLStreamException throws if the parser can not be created
+     */
+    XlsxRowIterator(XlsxStreamingWorkbook workbook, InputStream in, RowIndex index, byte[] header, long offset, int seekRow)
+            throws XMLStreamException {
+        this.workbook = workbook;
+        this.index = index;
+        this.fromTop = header == null;
+        this.in = new CountingInputStream(in, offset, index != null);
+        this.xml = XmlReaders.open(this.fromTop ? this.in : new SequenceInputStream(new ByteArrayInputStream(header), this.in));
+        this.lastRowNum = seekRow - 1;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (this.nextRow == null && !this.closed) {
+            try {
+                this.nextRow = this.parseNextRow();
+            } catch (XMLStreamException | RuntimeException e) {
+                this.close();
+                throw new ExcelReadException("Can not parse sheet content", e);
+            }
+            if (this.nextRow == null) {
+                this.close();
+            }
+        }
+        return this.nextRow != null;
+    }
+
+    @Override
+    public Row next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Row row = this.nextRow;
+        this.rowOffset = this.nextRowOffset;
+        this.nextRow = null;
+        return row;
+    }
+
+    @Override
+    public long getBytesParsed() {
+        return this.in.count;
+    }
+
+    @Override
+    public long getRowOffset() {
+        return this.rowOffset;
+    }
+
+    @Override
+    public int getDimensionLastRow() {
+        return this.dimensionLastRow;
+    }
+
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        try {
+            this.xml.close();
+            this.in.close();
+        } catch (XMLStreamException | IOException e) {
+            throw new ExcelReadException("Can not close sheet content", e);
+        }
+    }
+
+    // advance the parser to the end of the next <row> element, or return null at the end of sheetData
+    private StreamingRow parseNextRow() throws XMLStreamException {
+        while (this.xml.hasNext()) {
+            int event = this.xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT && "row".equals(this.xml.getLocalName())) {
+                String r = this.xml.getAttributeValue(null, "r");
+                this.lastRowNum = r != null ? Integer.parseInt(r) - 1 : this.lastRowNum + 1;
+                this.nextRowOffset = this.in.nextRowOffset();
+                if (this.index != null && this.lastRowNum >= this.nextIndexedRow && this.nextRowOffset >= 0) {
+                    this.indexRow();
+                }
+                return this.parseRow(new StreamingRow(this.lastRowNum));
+            } else if (event == XMLStreamConstants.START_ELEMENT && "dimension".equals(this.xml.getLocalName())) {
+                this.dimensionLastRow = lastRow(this.xml.getAttributeValue(null, "ref"));
+            } else if (event == XMLStreamConstants.END_ELEMENT && "sheetData".equals(this.xml.getLocalName())) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    // record the offset of the row every interval rows, with the header length on the first pass from the top
+    private void indexRow() {
+        if (this.fromTop && this.nextIndexedRow == Integer.MIN_VALUE && this.in.sheetDataEnd >= 0) {
+            this.index.setHeaderLength(this.in.sheetDataEnd);
+        }
+        this.index.record(this.lastRowNum, this.nextRowOffset);
+        this.nextIndexedRow = this.lastRowNum + this.index.getInterval();
+    }
+
+    private StreamingRow parseRow(StreamingRow row) throws XMLStreamException {
+        this.rowCells.clear();
+        int lastColumn = -1;
+
+        while (this.xml.hasNext()) {
+            int event = this.xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT && "c".equals(this.xml.getLocalName())) {
+                String ref = this.xml.getAttributeValue(null, "r");
+                lastColumn = ref != null ? columnIndex(ref) : lastColumn + 1;
+                this.rowCells.add(this.parseCell(row, lastColumn));
+            } else if (event == XMLStreamConstants.END_ELEMENT && "row".equals(this.xml.getLocalName())) {
+                break;
+            }
+        }
+
+        row.setCells(this.rowCells);
+        return row;
+    }
+
+    // parse a <c> element, the parser is positioned on its start tag
+    private StreamingCell parseCell(StreamingRow row, int column) throws XMLStreamException {
+        String type = this.xml.getAttributeValue(null, "t");
+        String style = this.xml.getAttributeValue(null, "s");
+        int styleIndex = style != null ? Integer.parseInt(style) : 0;
+
+        this.value.setLength(0);
+        this.formula.setLength(0);
+        boolean hasValue = false;
+        boolean hasFormula = false;
+        boolean inValue = false;
+        boolean inFormula = false;
+        boolean inPhonetic = false;
+
+        while (this.xml.hasNext()) {
+            int event = this.xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String localName = this.xml.getLocalName();
+                if ("v".equals(localName) || ("t".equals(localName) && !inPhonetic)) {
+                    inValue = true;
+                    hasValue = true;
+                } else if ("f".equals(localName)) {
+                    inFormula = true;
+                    hasFormula = true;
+                } else if ("rPh".equals(localName)) {
+                    inPhonetic = true;
+                }
+            } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                if (inValue) {
+                    this.value.append(this.xml.getText());
+                } else if (inFormula) {
+                    this.formula.append(this.xml.getText());
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                String localName = this.xml.getLocalName();
+                if ("c".equals(localName)) {
+                    break;
+                } else if ("v".equals(localName) || "t".equals(localName)) {
+                    inValue = false;
+                } else if ("f".equals(localName)) {
+                    inFormula = false;
+                } else if ("rPh".equals(localName)) {
+                    inPhonetic = false;
+                }
+            }
+        }
+
+        CellType valueType;
+        double numericValue = 0;
+        String stringValue = null;
+        SharedStrings sharedStrings = null;
+        int sharedStringIndex = -1;
+        String rawValue = this.value.toString();
+
+        if (!hasValue) {
+            valueType = CellType.BLANK;
+        } else if ("s".equals(type)) {
+            // decoded only if a converter reads it
+            valueType = CellType.STRING;
+            sharedStrings = this.workbook.getSharedStrings();
+            sharedStringIndex = Integer.parseInt(rawValue.trim());
+        } else if ("inlineStr".equals(type) || "str".equals(type) || "d".equals(type)) {
+            valueType = CellType.STRING;
+            stringValue = rawValue;
+        } else if ("b".equals(type)) {
+            valueType = CellType.BOOLEAN;
+            numericValue = "1".equals(rawValue) || "true".equalsIgnoreCase(rawValue) ? 1 : 0;
+        } else if ("e".equals(type)) {
+            valueType = CellType.ERROR;
+            int errorCode = errorCode(rawValue);
+            numericValue = errorCode >= 0 ? errorCode : FormulaError.VALUE.getCode();
+        } else if (rawValue.isEmpty()) {
+            valueType = CellType.BLANK;
+        } else {
+            valueType = CellType.NUMERIC;
+            numericValue = Double.parseDouble(rawValue);
+        }
+
+        CellType cellType = valueType;
+        CellType cachedFormulaResultType = CellType._NONE;
+        if (hasFormula) {
+            cellType = CellType.FORMULA;
+            cachedFormulaResultType = valueType == CellType.BLANK ? CellType.NUMERIC : valueType;
+        }
+
+        return new StreamingCell(row, column, cellType, cachedFormulaResultType, numericValue, stringValue,
+                sharedStrings, sharedStringIndex,
+                hasFormula ? this.formula.toString() : null,
+                this.workbook.getStyle(styleIndex),
+                this.workbook.getDataFormat(styleIndex),
+                this.workbook.getDataFormatString(styleIndex),
+                this.workbook.isDate1904());
+    }
+
+    private static int errorCode(String errorText) {
+        for (FormulaError error : FormulaError.values()) {
+            if (error.getString().equals(errorText)) {
+                return error.getCode();
+            }
+        }
+        return -1;
+    }
+
+    // 0-based last row of a range like "A1:F5000", -1 if the range can not be read
+    static int lastRow(String range) {
+        if (range == null) {
+            return -1;
+        }
+        int row = 0;
+        for (int i = range.indexOf(':') + 1; i < range.length(); i++) {
+            char ch = range.charAt(i);
+            if (ch >= '0' && ch <= '9') {
+                row = row * 10 + (ch - '0');
+            }
+        }
+        return row - 1;
+    }
+
+    // convert the column letters of a reference like "AB12" to a 0-based index without allocating
+    static int columnIndex(String ref) {
+        int column = 0;
+        for (int i = 0; i < ref.length(); i++) {
+            char ch = ref.charAt(i);
+            if (ch < 'A' || ch > 'Z') {
+                break;
+            }
+            column = column * 26 + (ch - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    /**
+     * Count the bytes pulled by the parser, a plain field is enough since the iterator is used by one thread at a time.
+     * When scanning, the offsets of the row start tags are queued as the parser reads ahead, and taken in order when
+     * the parser reaches each row; the end of the start tag of sheetData is recorded as well.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private static final byte[] ROW = {'r', 'o', 'w'};
+        private static final byte[] SHEET_DATA = {'s', 'h', 'e', 'e', 't', 'D', 'a', 't', 'a'};
+
+        private final boolean scan;
+        private final long start;
+        private long count;
+        private long sheetDataEnd = -1;
+        // name of the tag being scanned, nameLength is -1 outside of a tag name
+        private final byte[] name = new byte[32];
+        private int nameLength = -1;
+        private long tagStart;
+        private boolean inSheetDataTag;
+        private long[] rowOffsets = new long[64];
+        private int head;
+        private int tail;
+
+        private CountingInputStream(InputStream in, long start, boolean scan) {
+            super(in);
+            this.start = start;
+            this.scan = scan;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                if (this.scan) {
+                    this.scan((byte) b, this.start + this.count);
+                }
+                this.count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                if (this.scan) {
+                    long position = this.start + this.count;
+                    for (int i = 0; i < n; i++) {
+                        this.scan(b[off + i], position + i);
+                    }
+                }
+                this.count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // skipped bytes would not be scanned, read them instead
+            if (this.scan) {
+                byte[] buffer = new byte[(int) Math.min(n, 8192)];
+                int read = this.read(buffer, 0, buffer.length);
+                return Math.max(read, 0);
+            }
+            long skipped = super.skip(n);
+            this.count += skipped;
+            return skipped;
+        }
+
+        /**
+         * @return offset of the next row start tag reached by the parser, -1 if unknown
+         */
+        private long nextRowOffset() {
+            if (this.head == this.tail) {
+                return -1;
+            }
+            return this.rowOffsets[this.head++ & (this.rowOffsets.length - 1)];
+        }
+
+        private void scan(byte b, long position) {
+            if (this.inSheetDataTag) {
+                if (b == '>') {
+                    this.sheetDataEnd = position + 1;
+                    this.inSheetDataTag = false;
+                }
+            } else if (b == '<') {
+                this.nameLength = 0;
+                this.tagStart = position;
+            } else if (this.nameLength >= 0) {
+                if (b == '>' || b == ' ' || b == '\t' || b == '\r' || b == '\n' || (b == '/' && this.nameLength > 0)) {
+                    this.endTagName(b, position);
+                } else if (this.nameLength < this.name.length) {
+                    this.name[this.nameLength++] = b;
+                } else {
+                    this.nameLength = -1;
+                }
+            }
+        }
+
+        private void endTagName(byte delimiter, long position) {
+            if (this.isTagName(ROW)) {
+                if (this.tail - this.head == this.rowOffsets.length) {
+                    long[] offsets = new long[this.rowOffsets.length * 2];
+                    for (int i = this.head; i != this.tail; i++) {
+                        offsets[i - this.head] = this.rowOffsets[i & (this.rowOffsets.length - 1)];
+                    }
+                    this.tail -= this.head;
+                    this.head = 0;
+                    this.rowOffsets = offsets;
+                }
+                this.rowOffsets[this.tail++ & (this.rowOffsets.length - 1)] = this.tagStart;
+            } else if (this.isTagName(SHEET_DATA)) {
+                if (delimiter == '>') {
+                    this.sheetDataEnd = position + 1;
+                } else {
+                    this.inSheetDataTag = true;
+                }
+            }
+            this.nameLength = -1;
+        }
+
+        // match the local name of the scanned tag, with or without namespace prefix
+        private boolean isTagName(byte[] localName) {
+            int prefixLength = this.nameLength - localName.length;
+            if (prefixLength < 0 || (prefixLength > 0 && this.name[prefixLength - 1] != ':')) {
+                return false;
+            }
+            for (int i = 0; i < localName.length; i++) {
+                if (this.name[prefixLength + i] != localName[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package vn.locdt.excel.reader.stream;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.openxml4j.opc.PackageRelationship;
+import org.apache.poi.openxml4j.opc.PackageRelationshipCollection;
+import org.apache.poi.openxml4j.opc.PackageRelationshipTypes;
+import org.apache.poi.openxml4j.opc.ZipPackagePart;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.util.IOUtils;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.SAXException;
+import vn.locdt.excel.reader.exception.ExcelReadException;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming workbook over an OOXML (.xlsx) package, based on the XSSF event model:
+ * the package is opened read-only from a file, workbook, styles and shared strings parts are read once,
+ * and each sheet part is pulled row by row when iterated. Shared strings are kept in a memory-mapped file,
+ * see {@link MappedSharedStrings}.
+ */
+class XlsxStreamingWorkbook implements StreamingWorkbook {
+    private static final String RELATIONSHIP_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    private final OPCPackage pkg;
+    private final Path path;
+    private final boolean deleteOnClose;
+    private final XSSFReader reader;
+    private final SharedStrings sharedStrings;
+    private final List<SheetEntry> sheets;
+    private boolean date1904;
+    private CellStyle[] styles = new CellStyle[0];
+    private short[] dataFormats = new short[0];
+    private String[] dataFormatStrings = new String[0];
+
+    private XlsxStreamingWorkbook(OPCPackage pkg, Path path, boolean deleteOnClose) throws IOException, OpenXML4JException, SAXException, XMLStreamException {
+        this.pkg = pkg;
+        this.path = path;
+        this.deleteOnClose = deleteOnClose;
+        this.reader = new XSSFReader(pkg);
+        this.sheets = new ArrayList<>();
+        try (InputStream in = this.reader.getSharedStringsData()) {
+            this.sharedStrings = MappedSharedStrings.read(in);
+        }
+        this.readStyles(this.reader.getStylesTable());
+        try (InputStream in = this.reader.getWorkbookData()) {
+            this.readWorkbook(in);
+        }
+    }
+
+    // open another package over the same file, sharing the workbook structure already read by the source, which is never modified
+    private XlsxStreamingWorkbook(OPCPackage pkg, XlsxStreamingWorkbook source) throws IOException, OpenXML4JException {
+        this.pkg = pkg;
+        this.path = source.path;
+        this.deleteOnClose = false;
+        this.reader = new XSSFReader(pkg);
+        this.sharedStrings = source.sharedStrings;
+        this.sheets = source.sheets;
+        this.date1904 = source.date1904;
+        this.styles = source.styles;
+        this.dataFormats = source.dataFormats;
+        this.dataFormatStrings = source.dataFormatStrings;
+    }
+
+    static XlsxStreamingWorkbook open(Path path, boolean deleteOnClose) throws IOException {
+        OPCPackage pkg = openPackage(path);
+        try {
+            return new XlsxStreamingWorkbook(pkg, path, deleteOnClose);
+        } catch (OpenXML4JException | SAXException | XMLStreamException | RuntimeException e) {
+            pkg.revert();
+            throw new IOException("Can not read workbook structure of " + path, e);
+        }
+    }
+
+    private static OPCPackage openPackage(Path path) throws IOException {
+        try {
+            return OPCPackage.open(path.toFile(), PackageAccess.READ);
+        } catch (OpenXML4JException | RuntimeException e) {
+            throw new IOException("Can not open excel file " + path, e);
+        }
+    }
+
+    @Override
+    public StreamingWorkbook reopen() throws IOException {
+        OPCPackage reopened = openPackage(this.path);
+        try {
+            return new XlsxStreamingWorkbook(reopened, this);
+        } catch (OpenXML4JException | RuntimeException e) {
+            reopened.revert();
+            throw new IOException("Can not read workbook structure of " + this.path, e);
+        }
+    }
+
+    @Override
+    public int getNumberOfSheets() {
+        return this.sheets.size();
+    }
+
+    @Override
+    public String getSheetName(int sheetIndex) {
+        return this.getSheet(sheetIndex).name;
+    }
+
+    @Override
+    public int getSheetIndex(String name) {
+        for (int i = 0; i < this.sheets.size(); i++) {
+            if (this.sheets.get(i).name.equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean isSheetHidden(int sheetIndex) {
+        return this.getSheet(sheetIndex).hidden;
+    }
+
+    @Override
+    public SheetRowIterator openRows(int sheetIndex) {
+        SheetEntry sheet = this.getSheet(sheetIndex);
+        try {
+            return new XlsxRowIterator(this, this.reader.getSheet(sheet.relationId));
+        } catch (IOException | OpenXML4JException | XMLStreamException e) {
+            throw new ExcelReadException("Can not open sheet " + sheet.name, e);
+        }
+    }
+
+    @Override
+    public SheetRowIterator openRows(int sheetIndex, RowIndex index, int fromRow) {
+        SheetEntry sheet = this.getSheet(sheetIndex);
+        index.bind(sheetIndex, this.getChecksum(sheet));
+        long[] indexed = index.floor(fromRow);
+        InputStream in = null;
+        try {
+            in = this.reader.getSheet(sheet.relationId);
+            if (indexed == null) {
+                return new XlsxRowIterator(this, in, index, null, 0, -1);
+            }
+
+            // replay the header so that the parser knows the namespaces, then skip to the indexed row without parsing
+            long headerLength = index.getHeaderLength();
+            byte[] header = IOUtils.toByteArray(in, (int) headerLength);
+            if (IOUtils.skipFully(in, indexed[1] - headerLength) != indexed[1] - headerLength) {
+                throw new IOException("Indexed row " + indexed[0] + " is beyond the end of the sheet");
+            }
+            return new XlsxRowIterator(this, in, index, header, indexed[1], (int) indexed[0]);
+        } catch (IOException | OpenXML4JException | XMLStreamException e) {
+            IOUtils.closeQuietly(in);
+            throw new ExcelReadException("Can not open sheet " + sheet.name, e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            // the package was opened read-only, revert closes it without trying to save anything
+            this.pkg.revert();
+        } finally {
+            if (this.deleteOnClose) {
+                Files.deleteIfExists(this.path);
+            }
+        }
+    }
+
+    /* lookups used by the row iterator */
+    SharedStrings getSharedStrings() {
+        return this.sharedStrings;
+    }
+
+    CellStyle getStyle(int styleIndex) {
+        return styleIndex < this.styles.length ? this.styles[styleIndex] : null;
+    }
+
+    short getDataFormat(int styleIndex) {
+        return styleIndex < this.dataFormats.length ? this.dataFormats[styleIndex] : 0;
+    }
+
+    String getDataFormatString(int styleIndex) {
+        return styleIndex < this.dataFormatStrings.length ? this.dataFormatStrings[styleIndex] : null;
+    }
+
+    boolean isDate1904() {
+        return this.date1904;
+    }
+
+    private SheetEntry getSheet(int sheetIndex) {
+        if (sheetIndex < 0 || sheetIndex >= this.sheets.size()) {
+            throw new IllegalArgumentException(String.format("Sheet index (%d) is out of range (0..%d)", sheetIndex, this.sheets.size() - 1));
+        }
+        return this.sheets.get(sheetIndex);
+    }
+
+    // CRC of the sheet part stored in the zip file, which identifies the version of the sheet without reading it
+    private long getChecksum(SheetEntry sheet) {
+        if (sheet.checksum == null) {
+            long checksum = -1;
+            try {
+                PackageRelationshipCollection documents = this.pkg.getRelationshipsByType(PackageRelationshipTypes.CORE_DOCUMENT);
+                if (documents.size() > 0) {
+                    PackagePart workbookPart = this.pkg.getPart(documents.getRelationship(0));
+                    PackageRelationship sheetRelationship = workbookPart.getRelationship(sheet.relationId);
+                    PackagePart sheetPart = workbookPart.getRelatedPart(sheetRelationship);
+                    if (sheetPart instanceof ZipPackagePart) {
+                        checksum = ((ZipPackagePart) sheetPart).getZipArchive().getCrc();
+                    }
+                }
+            } catch (OpenXML4JException | RuntimeException e) {
+                // the index is then used without checking the version of the sheet
+            }
+            sheet.checksum = checksum;
+        }
+        return sheet.checksum;
+    }
+
+    // resolve number formats once per style instead of once per cell
+    private void readStyles(StylesTable stylesTable) {
+        if (stylesTable == null) {
+            return;
+        }
+
+        int numberOfStyles = stylesTable.getNumCellStyles();
+        this.styles = new CellStyle[numberOfStyles];
+        this.dataFormats = new short[numberOfStyles];
+        this.dataFormatStrings = new String[numberOfStyles];
+        for (int i = 0; i < numberOfStyles; i++) {
+            XSSFCellStyle style = stylesTable.getStyleAt(i);
+            if (style != null) {
+                this.styles[i] = style;
+                this.dataFormats[i] = style.getDataFormat();
+                this.dataFormatStrings[i] = style.getDataFormatString();
+            }
+        }
+    }
+
+    // read sheets' names, visibility and the date system from workbook.xml
+    private void readWorkbook(InputStream in) throws XMLStreamException {
+        XMLStreamReader xml = XmlReaders.open(in);
+        try {
+            while (xml.hasNext()) {
+                if (xml.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+
+                String localName = xml.getLocalName();
+                if ("workbookPr".equals(localName)) {
+                    String date1904 = xml.getAttributeValue(null, "date1904");
+                    this.date1904 = "1".equals(date1904) || "true".equalsIgnoreCase(date1904);
+                } else if ("sheet".equals(localName)) {
+                    String state = xml.getAttributeValue(null, "state");
+                    this.sheets.add(new SheetEntry(
+                            xml.getAttributeValue(null, "name"),
+                            xml.getAttributeValue(RELATIONSHIP_NS, "id"),
+                            "hidden".equals(state) || "veryHidden".equals(state)));
+                }
+            }
+        } finally {
+            xml.close();
+        }
+    }
+
+    private static class SheetEntry {
+        private final String name;
+        private final String relationId;
+        private final boolean hidden;
+        // resolved when the sheet is first indexed, shared by the workbooks reopened over the same file
+        private volatile Long checksum;
+
+        private SheetEntry(String name, String relationId, boolean hidden) {
+            this.name = name;
+            this.relationId = relationId;
+            this.hidden = hidden;
+        }
+    }
+}
@@ -1,52 +1,328 @@
 package vn.locdt.excel.utils;
 
-import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.ClassUtils;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellReference;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.Temporal;
+import java.util.Date;
+
 public class ExcelUtils {
+    // DataFormatter is not thread-safe and costly to create: reuse one per thread
+    private static final ThreadLocal<DataFormatter> FORMATTER = ThreadLocal.withInitial(DataFormatter::new);
 
+    /**
+     * Extract the value of a cell as the expected type. Numeric, boolean and string cells are converted directly,
+     * without formatting then parsing the value: numbers, booleans, dates (from Excel serial dates) and enums are supported.
+     * Formula cells are converted from their cached results.
+     *
+     * @param cell the cell, may be null
+     * @param type the expected type, or null to get the natural value of the cell (Double, String, Boolean)
+     * @param <T>  the expected type
+     * @return the converted value, null for blank cells
+     * @throws IllegalArgumentException throws if the value can not be converted to the expected type
+     * @throws ArithmeticException      throws if a number can not be represented exactly by the expected type
+     */
     @SuppressWarnings("unchecked")
     public static <T> T getCellValue(Cell cell, Class<?> type) {
         if (cell == null)
             return null;
 
-        final CellType cellType = cell.getCellType();
+        final CellType valueType = getValueType(cell);
+        final Class<?> targetType = type != null ? ClassUtils.primitiveToWrapper(type) : null;
 
-        if (CellType.BLANK == cellType) {
-            return null;
+        switch (valueType) {
+            case NUMERIC:
+                return (T) getNumericCellValue(cell, targetType);
+            case STRING:
+                return (T) convertString(cell.getStringCellValue(), targetType);
+            case BOOLEAN:
+                return (T) convertBoolean(cell.getBooleanCellValue(), targetType);
+            case ERROR:
+                if (targetType == null || String.class.equals(targetType)) {
+                    return (T) formatCellValue(cell);
+                }
+                throw new IllegalArgumentException("Can not convert error value " + formatCellValue(cell) + " to " + targetType.getSimpleName());
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Extract the value of a non-blank cell as an {@code int} without boxing.
+     *
+     * @param cell the cell, not blank
+     * @return the value
+     * @throws IllegalArgumentException throws if the value is not a whole number
+     * @throws ArithmeticException      throws if the value does not fit in an int
+     */
+    public static int getIntCellValue(Cell cell) {
+        return Math.toIntExact(getLongCellValue(cell));
+    }
+
+    /**
+     * Extract the value of a non-blank cell as a {@code long} without boxing.
+     *
+     * @param cell the cell, not blank
+     * @return the value
+     * @throws IllegalArgumentException throws if the value is not a whole number
+     * @throws ArithmeticException      throws if the value does not fit in a long
+     */
+    public static long getLongCellValue(Cell cell) {
+        switch (getValueType(cell)) {
+            case NUMERIC:
+                return toExactLong(cell.getNumericCellValue());
+            case STRING:
+                return Long.parseLong(cell.getStringCellValue().trim());
+            case BOOLEAN:
+                return cell.getBooleanCellValue() ? 1 : 0;
+            default:
+                throw new IllegalArgumentException("Can not convert " + formatCellValue(cell) + " to a number");
+        }
+    }
+
+    /**
+     * Extract the value of a non-blank cell as a {@code double} without boxing.
+     *
+     * @param cell the cell, not blank
+     * @return the value
+     * @throws IllegalArgumentException throws if the value is not a number
+     */
+    public static double getDoubleCellValue(Cell cell) {
+        switch (getValueType(cell)) {
+            case NUMERIC:
+                return cell.getNumericCellValue();
+            case STRING:
+                return Double.parseDouble(cell.getStringCellValue().trim());
+            case BOOLEAN:
+                return cell.getBooleanCellValue() ? 1 : 0;
+            default:
+                throw new IllegalArgumentException("Can not convert " + formatCellValue(cell) + " to a number");
+        }
+    }
+
+    /**
+     * Extract the value of a non-blank cell as a {@code boolean}.
+     *
+     * @param cell the cell, not blank
+     * @return the value
+     * @throws IllegalArgumentException throws if the value is not a boolean
+     */
+    public static boolean getBooleanCellValue(Cell cell) {
+        switch (getValueType(cell)) {
+            case BOOLEAN:
+                return cell.getBooleanCellValue();
+            case NUMERIC:
+                return cell.getNumericCellValue() != 0;
+            case STRING:
+                return (Boolean) convertString(cell.getStringCellValue(), Boolean.class);
+            default:
+                throw new IllegalArgumentException("Can not convert " + formatCellValue(cell) + " to a boolean");
+        }
+    }
+
+    /**
+     * Check if a cell has no value: absent, blank, or a string cell holding only whitespaces.
+     *
+     * @param cell the cell, may be null
+     * @return true if the cell has no value
+     */
+    public static boolean isBlank(Cell cell) {
+        if (cell == null) {
+            return true;
+        }
+
+        CellType valueType = getValueType(cell);
+        return valueType == CellType.BLANK
+                || (valueType == CellType.STRING && cell.getStringCellValue().trim().isEmpty());
+    }
+
+    /**
+     * Check if a type is a single value type, that can be extracted from only one cell by {@link ExcelUtils#getCellValue(Cell, Class)}.
+     *
+     * @param type the type
+     * @return true for strings, numbers, booleans, dates and enums, including primitive types
+     */
+    public static boolean isSingleValueType(Class<?> type) {
+        Class<?> targetType = ClassUtils.primitiveToWrapper(type);
+        return String.class.equals(targetType) || Number.class.isAssignableFrom(targetType)
+                || Boolean.class.equals(targetType) || Date.class.isAssignableFrom(targetType)
+                || Temporal.class.isAssignableFrom(targetType) || targetType.isEnum();
+    }
+
+    // type of the value held by a cell, resolving formula cells to their cached result
+    private static CellType getValueType(Cell cell) {
+        CellType cellType = cell.getCellType();
+        return cellType == CellType.FORMULA ? cell.getCachedFormulaResultType() : cellType;
+    }
+
+    private static Object getNumericCellValue(Cell cell, Class<?> type) {
+        if (type == null || Double.class.equals(type)) {
+            return cell.getNumericCellValue();
+        }
+        if (String.class.equals(type)) {
+            return formatCellValue(cell);
+        }
+        if (Date.class.equals(type)) {
+            return cell.getDateCellValue();
+        }
+        if (LocalDateTime.class.equals(type)) {
+            return cell.getLocalDateTimeCellValue();
+        }
+        if (LocalDate.class.equals(type)) {
+            return cell.getLocalDateTimeCellValue().toLocalDate();
+        }
+        if (LocalTime.class.equals(type)) {
+            return cell.getLocalDateTimeCellValue().toLocalTime();
         }
+        return convertNumber(cell.getNumericCellValue(), type);
+    }
 
-        final DataFormatter formatter = new DataFormatter();
-        Workbook wb = cell.getRow().getSheet().getWorkbook();
-        FormulaEvaluator evaluator = wb.getCreationHelper().createFormulaEvaluator();
-        CellType formulaResultType = cellType == CellType.FORMULA ? cell.getCachedFormulaResultType() : CellType._NONE;
+    private static Object convertNumber(double value, Class<?> type) {
+        if (Integer.class.equals(type)) {
+            return Math.toIntExact(toExactLong(value));
+        } else if (Long.class.equals(type)) {
+            return toExactLong(value);
+        } else if (Short.class.equals(type)) {
+            long exact = toExactLong(value);
+            if (exact != (short) exact) {
+                throw new ArithmeticException("short overflow: " + value);
+            }
+            return (short) exact;
+        } else if (Byte.class.equals(type)) {
+            long exact = toExactLong(value);
+            if (exact != (byte) exact) {
+                throw new ArithmeticException("byte overflow: " + value);
+            }
+            return (byte) exact;
+        } else if (Float.class.equals(type)) {
+            return (float) value;
+        } else if (BigDecimal.class.equals(type)) {
+            return BigDecimal.valueOf(value);
+        } else if (BigInteger.class.equals(type)) {
+            return BigInteger.valueOf(toExactLong(value));
+        } else if (Boolean.class.equals(type)) {
+            return value != 0;
+        } else if (type.isEnum()) {
+            Object[] constants = type.getEnumConstants();
+            int ordinal = Math.toIntExact(toExactLong(value));
+            if (ordinal < 0 || ordinal >= constants.length) {
+                throw new IllegalArgumentException("No " + type.getSimpleName() + " constant with ordinal " + ordinal);
+            }
+            return constants[ordinal];
+        }
+        throw new IllegalArgumentException("Can not convert a numeric value to " + type.getSimpleName());
+    }
 
-        // return cell's value without casting if:
-        // 	- type is String or Double
-        //	- type is the same as cell's data type
-        if ((cellType == CellType.NUMERIC || formulaResultType == CellType.NUMERIC) &&
-                (type == null || Double.class.equals(type))) {
-            return (T) Double.valueOf(cell.getNumericCellValue());
+    // integer types only accept whole numbers, like parsing their text would
+    private static long toExactLong(double value) {
+        long exact = (long) value;
+        if (exact != value) {
+            throw new ArithmeticException("Not a whole number: " + value);
         }
+        return exact;
+    }
 
-        if ((cellType == CellType.STRING || formulaResultType == CellType.STRING) &&
-                (type == null || String.class.equals(type))) {
-            return (T) cell.getRichStringCellValue().getString();
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object convertString(String value, Class<?> type) {
+        if (type == null || String.class.equals(type)) {
+            return value;
+        }
+
+        String text = value.trim();
+        if (text.isEmpty()) {
+            return null;
         }
 
-        // Other cases, get string-formatted value and try to cast to expected type
-        Object value;
-        String rawValue = formatter.formatCellValue(cell, evaluator);
         if (Double.class.equals(type)) {
-            value = StringUtils.isEmpty(rawValue) ? 0 : Double.parseDouble(rawValue);
+            return Double.parseDouble(text);
         } else if (Integer.class.equals(type)) {
-            value = StringUtils.isEmpty(rawValue) ? 0 : Integer.parseInt(rawValue);
-        } else {
-            value = rawValue;
+            return Integer.parseInt(text);
+        } else if (Long.class.equals(type)) {
+            return Long.parseLong(text);
+        } else if (Short.class.equals(type)) {
+            return Short.parseShort(text);
+        } else if (Byte.class.equals(type)) {
+            return Byte.parseByte(text);
+        } else if (Float.class.equals(type)) {
+            return Float.parseFloat(text);
+        } else if (BigDecimal.class.equals(type)) {
+            return new BigDecimal(text);
+        } else if (BigInteger.class.equals(type)) {
+            return new BigInteger(text);
+        } else if (Boolean.class.equals(type)) {
+            if (!"true".equalsIgnoreCase(text) && !"false".equalsIgnoreCase(text)) {
+                throw new IllegalArgumentException("Not a boolean: " + text);
+            }
+            return Boolean.valueOf(text);
+        } else if (LocalDate.class.equals(type)) {
+            return LocalDate.parse(text);
+        } else if (LocalDateTime.class.equals(type)) {
+            return LocalDateTime.parse(text);
+        } else if (LocalTime.class.equals(type)) {
+            return LocalTime.parse(text);
+        } else if (type.isEnum()) {
+            return Enum.valueOf((Class<? extends Enum>) type, text);
+        }
+        throw new IllegalArgumentException("Can not convert a string value to " + type.getSimpleName());
+    }
+
+    private static Object convertBoolean(boolean value, Class<?> type) {
+        if (type == null || Boolean.class.equals(type)) {
+            return value;
+        }
+        if (String.class.equals(type)) {
+            return value ? "TRUE" : "FALSE";
+        }
+        return convertNumber(value ? 1 : 0, type);
+    }
+
+    /**
+     * Format the value of a cell with its number format. Formula cells are never evaluated,
+     * their results cached in the file are formatted instead.
+     *
+     * @param cell the cell, not null
+     * @return the formatted value, empty for blank cells
+     */
+    public static String formatCellValue(Cell cell) {
+        CellType cellType = cell.getCellType();
+        CellType valueType = cellType == CellType.FORMULA ? cell.getCachedFormulaResultType() : cellType;
+        switch (valueType) {
+            case NUMERIC:
+                if (cellType == CellType.NUMERIC && !(cell instanceof FormattedCell)) {
+                    return FORMATTER.get().formatCellValue(cell);
+                }
+                return formatNumericValue(cell);
+            case STRING:
+                return cell.getStringCellValue();
+            case BOOLEAN:
+                return cell.getBooleanCellValue() ? "TRUE" : "FALSE";
+            case ERROR:
+                return FormulaError.forInt(cell.getErrorCellValue()).getString();
+            default:
+                return "";
+        }
+    }
+
+    // format a numeric value cached in a formula cell, or held by a cell detached from any workbook
+    private static String formatNumericValue(Cell cell) {
+        int dataFormat = 0;
+        String dataFormatString = null;
+        if (cell instanceof FormattedCell) {
+            dataFormat = ((FormattedCell) cell).getDataFormat();
+            dataFormatString = ((FormattedCell) cell).getDataFormatString();
+        } else if (cell.getCellStyle() != null) {
+            dataFormat = cell.getCellStyle().getDataFormat();
+            dataFormatString = cell.getCellStyle().getDataFormatString();
         }
 
-        return (T) value;
+        return FORMATTER.get().formatRawCellContents(cell.getNumericCellValue(), dataFormat,
+                dataFormatString != null ? dataFormatString : "General");
     }
 
     public static Object getCellValue(Cell cell) {
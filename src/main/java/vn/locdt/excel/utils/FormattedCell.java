@@ -0,0 +1,17 @@
+package vn.locdt.excel.utils;
+
+/**
+ * A cell which keeps its number format itself, instead of through a {@link org.apache.poi.ss.usermodel.CellStyle}
+ * of a workbook. {@link ExcelUtils#formatCellValue(org.apache.poi.ss.usermodel.Cell)} formats such cells with these values.
+ */
+public interface FormattedCell {
+    /**
+     * @return the index of the number format applied to this cell
+     */
+    short getDataFormat();
+
+    /**
+     * @return the number format applied to this cell, may be null for the general format
+     */
+    String getDataFormatString();
+}
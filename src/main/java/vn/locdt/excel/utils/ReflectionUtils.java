@@ -1,13 +1,60 @@
 package vn.locdt.excel.utils;
 
+import org.apache.commons.lang3.ClassUtils;
 import org.apache.commons.lang3.StringUtils;
 
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
 
 public class ReflectionUtils {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType INSTANTIATOR_TYPE = MethodType.methodType(Object.class);
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    // accessors are resolved once per class (and field), then invoked through generated lambdas or method handles.
+    // They are held by the classes themselves, so that caching them does not pin the class loaders of the mapped classes
+    private static final ClassValue<Supplier<?>> INSTANTIATORS = new ClassValue<Supplier<?>>() {
+        @Override
+        protected Supplier<?> computeValue(final Class<?> type) {
+            return createInstantiator(type);
+        }
+    };
+    private static final ClassValue<Function<Object[], ?>> CANONICAL_INSTANTIATORS = new ClassValue<Function<Object[], ?>>() {
+        @Override
+        protected Function<Object[], ?> computeValue(final Class<?> type) {
+            return createCanonicalInstantiator(type);
+        }
+    };
+    private static final ClassValue<Map<String, BiConsumer<Object, Object>>> SETTERS = new ClassValue<Map<String, BiConsumer<Object, Object>>>() {
+        @Override
+        protected Map<String, BiConsumer<Object, Object>> computeValue(final Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+    private static final ClassValue<Map<String, Object>> PRIMITIVE_SETTERS = new ClassValue<Map<String, Object>>() {
+        @Override
+        protected Map<String, Object> computeValue(final Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
     public static Map<String, Field> getMapOfFieldNameAndField(final Class<?> clazz) {
         final Map<String, Field> mapOfFieldNameAndField = new HashMap<>();
 
@@ -44,30 +91,404 @@ public class ReflectionUtils {
     }
 
     public static <T> T newInstanceFromClass(final Class<T> clazz) {
+        return clazz.cast(getInstantiator(clazz).get());
+    }
+
+    /**
+     * Gets a cached factory calling the no-arg constructor of the given class.
+     *
+     * @param clazz the {@link Class} to instantiate
+     * @param <T>   type of the class
+     * @return the factory, throws {@link RuntimeException} when called if the class can not be instantiated
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Supplier<T> getInstantiator(final Class<T> clazz) {
+        return (Supplier<T>) INSTANTIATORS.get(clazz);
+    }
+
+    /**
+     * Check if the given class declares a no-arg constructor.
+     *
+     * @param clazz the {@link Class} to query
+     * @return true if the class can be instantiated by {@link ReflectionUtils#getInstantiator(Class)}
+     */
+    public static boolean hasNoArgConstructor(final Class<?> clazz) {
         try {
-            return clazz.newInstance();
-        } catch (InstantiationException | IllegalAccessException e) {
-            throw new RuntimeException(e);
+            clazz.getDeclaredConstructor();
+            return !Modifier.isAbstract(clazz.getModifiers());
+        } catch (final NoSuchMethodException e) {
+            return false;
         }
     }
 
+    /**
+     * Gets the components of the canonical constructor of the given class: the constructor taking all instance fields
+     * declared by the class, in declaration order, like the canonical constructor of a record or an all-args constructor.
+     *
+     * @param clazz the {@link Class} to query
+     * @return names of the fields in the order of the constructor's parameters, or null if the class has no such constructor
+     */
+    public static List<String> getCanonicalComponents(final Class<?> clazz) {
+        final Constructor<?> constructor = findCanonicalConstructor(clazz);
+        if (constructor == null) {
+            return null;
+        }
+
+        final List<String> components = new ArrayList<>();
+        for (final Field field : getComponentFields(clazz)) {
+            components.add(field.getName());
+        }
+        return components;
+    }
+
+    /**
+     * Gets a cached factory calling the canonical constructor of the given class through a method handle,
+     * see {@link ReflectionUtils#getCanonicalComponents(Class)}.
+     *
+     * @param clazz the {@link Class} to instantiate
+     * @param <T>   type of the class
+     * @return the factory, taking the arguments in the order of the components; arguments of primitive parameters must be not null.
+     * Throws {@link RuntimeException} when called if the class can not be instantiated
+     * @throws IllegalArgumentException if the class has no canonical constructor
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Function<Object[], T> getCanonicalInstantiator(final Class<T> clazz) {
+        return (Function<Object[], T>) CANONICAL_INSTANTIATORS.get(clazz);
+    }
+
+    /**
+     * Gets the value of an uninitialized field of the given type.
+     *
+     * @param type the type of the field
+     * @return the default value of a primitive type, null otherwise
+     */
+    public static Object getDefaultValue(final Class<?> type) {
+        return type.isPrimitive() && type != void.class ? Array.get(Array.newInstance(type, 1), 0) : null;
+    }
+
+    /**
+     * Gets the type of an instance field declared by the given class or its parents.
+     *
+     * @param cls   the {@link Class} declaring the field
+     * @param field the field's name
+     * @return the type of the field, or null if the field does not exist
+     */
+    public static Class<?> getFieldType(final Class<?> cls, final String field) {
+        final Field declaredField = findField(cls, field);
+        return declaredField != null ? declaredField.getType() : null;
+    }
+
     public static void invokeSetMethod(final Object obj, final String field, final Object value) {
-        final Class<?> cls = obj.getClass();
-        final Method[] mths = cls.getMethods();
+        getSetter(obj.getClass(), field).accept(obj, value);
+    }
+
+    /**
+     * Gets a cached setter of a field: its public setter method if any, otherwise a direct write to the field.
+     *
+     * @param cls   the {@link Class} declaring the field
+     * @param field the field's name
+     * @return the setter, throws {@link IllegalArgumentException} when called if the value can not be set
+     */
+    public static BiConsumer<Object, Object> getSetter(final Class<?> cls, final String field) {
+        return SETTERS.get(cls).computeIfAbsent(field, f -> createSetter(cls, f));
+    }
+
+    /**
+     * Gets the type of the values written to a field: the parameter type of its public setter method if any,
+     * otherwise the type of the field if it is not final.
+     *
+     * @param cls   the {@link Class} declaring the field
+     * @param field the field's name
+     * @return the written type, or null if the field can not be written
+     */
+    public static Class<?> getWritableType(final Class<?> cls, final String field) {
+        final Method setter = findSetter(cls, field);
+        if (setter != null) {
+            return setter.getParameterTypes()[0];
+        }
+
+        final Field declaredField = findField(cls, field);
+        return declaredField != null && !Modifier.isFinal(declaredField.getModifiers()) ? declaredField.getType() : null;
+    }
+
+    /**
+     * Like {@link ReflectionUtils#getSetter(Class, String)} but writes an {@code int} without boxing.
+     *
+     * @param cls   the {@link Class} declaring the field
+     * @param field the field's name, its {@link ReflectionUtils#getWritableType(Class, String)} must be {@code int}
+     * @return the setter
+     * @throws IllegalArgumentException if the field has no {@code int} setter or writable field
+     */
+    @SuppressWarnings("unchecked")
+    public static ObjIntConsumer<Object> getIntSetter(final Class<?> cls, final String field) {
+        return (ObjIntConsumer<Object>) getPrimitiveSetter(cls, field, int.class, ObjIntConsumer.class);
+    }
+
+    /**
+     * Like {@link ReflectionUtils#getSetter(Class, String)} but writes a {@code long} without boxing.
+     *
+     * @param cls   the {@link Class} declaring the field
+     * @param field the field's name, its {@link ReflectionUtils#getWritableType(Class, String)} must be {@code long}
+     * @return the setter
+     * @throws IllegalArgumentException if the field has no {@code long} setter or writable field
+     */
+    @SuppressWarnings("unchecked")
+    public static ObjLongConsumer<Object> getLongSetter(final Class<?> cls, final String field) {
+        return (ObjLongConsumer<Object>) getPrimitiveSetter(cls, field, long.class, ObjLongConsumer.class);
+    }
+
+    /**
+     * Like {@link ReflectionUtils#getSetter(Class, String)} but writes a {@code double} without boxing.
+     *
+     * @param cls   the {@link Class} declaring the field
+     * @param field the field's name, its {@link ReflectionUtils#getWritableType(Class, String)} must be {@code double}
+     * @return the setter
+     * @throws IllegalArgumentException if the field has no {@code double} setter or writable field
+     */
+    @SuppressWarnings("unchecked")
+    public static ObjDoubleConsumer<Object> getDoubleSetter(final Class<?> cls, final String field) {
+        return (ObjDoubleConsumer<Object>) getPrimitiveSetter(cls, field, double.class, ObjDoubleConsumer.class);
+    }
+
+    /**
+     * Gets the public setter method of a field.
+     *
+     * @param cls   the {@link Class} declaring the field
+     * @param field the field's name
+     * @return the setter, or null if the field has no public setter
+     */
+    public static Method getSetterMethod(final Class<?> cls, final String field) {
+        return findSetter(cls, field);
+    }
+
+    public static String getSetterName(final String field) {
+        return "set" + StringUtils.capitalize(field);
+    }
+
+    private static Method findSetter(final Class<?> cls, final String field) {
         final String setterMth = ReflectionUtils.getSetterName(field);
-        for (final Method method : mths) {
+        for (final Method method : cls.getMethods()) {
             if (method.getName().equals(setterMth) && method.getParameterTypes().length == 1) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private static Field findField(final Class<?> cls, final String field) {
+        for (final Field declaredField : getAllFieldsList(cls)) {
+            if (declaredField.getName().equals(field) && !Modifier.isStatic(declaredField.getModifiers())) {
+                return declaredField;
+            }
+        }
+        return null;
+    }
+
+    private static Object getPrimitiveSetter(final Class<?> cls, final String field, final Class<?> primitiveType, final Class<?> consumerType) {
+        return PRIMITIVE_SETTERS.get(cls)
+                .computeIfAbsent(field + ':' + primitiveType.getName(), k -> createPrimitiveSetter(cls, field, primitiveType, consumerType));
+    }
+
+    private static Object createPrimitiveSetter(final Class<?> cls, final String field, final Class<?> primitiveType, final Class<?> consumerType) {
+        if (getWritableType(cls, field) != primitiveType) {
+            throw new IllegalArgumentException(String.format("No %s setter or field found: %s.%s", primitiveType, cls.getSimpleName(), field));
+        }
+
+        final MethodType samType = MethodType.methodType(void.class, Object.class, primitiveType);
+        try {
+            final Method method = findSetter(cls, field);
+            final MethodHandle handle;
+            if (method != null) {
+                method.setAccessible(true);
+                handle = LOOKUP.unreflect(method);
+                if (isLinkable(method.getDeclaringClass(), method)) {
+                    return LambdaMetafactory.metafactory(LOOKUP, "accept", MethodType.methodType(consumerType),
+                            samType, handle, MethodType.methodType(void.class, method.getDeclaringClass(), primitiveType)).getTarget().invoke();
+                }
+            } else {
+                final Field declaredField = findField(cls, field);
+                declaredField.setAccessible(true);
+                handle = LOOKUP.unreflectSetter(declaredField);
+            }
+
+            final MethodHandle setter = handle.asType(samType);
+            if (primitiveType == int.class) {
+                return (ObjIntConsumer<Object>) (obj, value) -> {
+                    try {
+                        setter.invokeExact(obj, value);
+                    } catch (final Throwable e) {
+                        throw new IllegalArgumentException(e);
+                    }
+                };
+            } else if (primitiveType == long.class) {
+                return (ObjLongConsumer<Object>) (obj, value) -> {
+                    try {
+                        setter.invokeExact(obj, value);
+                    } catch (final Throwable e) {
+                        throw new IllegalArgumentException(e);
+                    }
+                };
+            }
+            return (ObjDoubleConsumer<Object>) (obj, value) -> {
                 try {
-                    method.invoke(obj, value);
-                    break;
+                    setter.invokeExact(obj, value);
                 } catch (final Throwable e) {
                     throw new IllegalArgumentException(e);
                 }
+            };
+        } catch (final Throwable e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static Supplier<?> createInstantiator(final Class<?> clazz) {
+        try {
+            if (Modifier.isAbstract(clazz.getModifiers())) {
+                throw new InstantiationException(clazz.getName());
             }
+
+            final Constructor<?> constructor = clazz.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            final MethodHandle handle = LOOKUP.unreflectConstructor(constructor);
+            if (isLinkable(clazz, constructor)) {
+                return (Supplier<?>) LambdaMetafactory.metafactory(LOOKUP, "get", MethodType.methodType(Supplier.class),
+                        INSTANTIATOR_TYPE, handle, MethodType.methodType(clazz)).getTarget().invoke();
+            }
+
+            final MethodHandle instantiator = handle.asType(INSTANTIATOR_TYPE);
+            return () -> {
+                try {
+                    return instantiator.invokeExact();
+                } catch (final Throwable e) {
+                    throw new RuntimeException(e);
+                }
+            };
+        } catch (final Throwable e) {
+            return () -> {
+                throw new RuntimeException(e);
+            };
         }
     }
 
-    public static String getSetterName(final String field) {
-        return "set" + StringUtils.capitalize(field);
+    private static Function<Object[], ?> createCanonicalInstantiator(final Class<?> clazz) {
+        final Constructor<?> constructor = findCanonicalConstructor(clazz);
+        if (constructor == null || Modifier.isAbstract(clazz.getModifiers())) {
+            throw new IllegalArgumentException(String.format("No canonical constructor found: %s", clazz.getSimpleName()));
+        }
+
+        final MethodHandle instantiator;
+        try {
+            constructor.setAccessible(true);
+            instantiator = LOOKUP.unreflectConstructor(constructor)
+                    .asSpreader(Object[].class, constructor.getParameterCount())
+                    .asType(CONSTRUCTOR_TYPE);
+        } catch (final IllegalAccessException e) {
+            throw new IllegalArgumentException(e);
+        }
+        return arguments -> {
+            try {
+                return instantiator.invokeExact(arguments);
+            } catch (final Throwable e) {
+                throw new RuntimeException(e);
+            }
+        };
+    }
+
+    // the constructor whose parameter types are the types of the component fields, in declaration order
+    private static Constructor<?> findCanonicalConstructor(final Class<?> clazz) {
+        final List<Field> components = getComponentFields(clazz);
+        final Class<?>[] types = new Class<?>[components.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = components.get(i).getType();
+        }
+
+        try {
+            return types.length == 0 ? null : clazz.getDeclaredConstructor(types);
+        } catch (final NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    // instance fields declared by the class itself, like the components of a record
+    private static List<Field> getComponentFields(final Class<?> clazz) {
+        final List<Field> fields = new ArrayList<>();
+        for (final Field field : clazz.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    private static BiConsumer<Object, Object> createSetter(final Class<?> cls, final String field) {
+        try {
+            final Method method = findSetter(cls, field);
+            if (method != null) {
+                return createSetter(method);
+            }
+
+            final Field declaredField = findField(cls, field);
+            if (declaredField != null) {
+                return createSetter(declaredField);
+            }
+        } catch (final Throwable e) {
+            return (obj, value) -> {
+                throw new IllegalArgumentException(e);
+            };
+        }
+
+        return (obj, value) -> {
+            throw new IllegalArgumentException(String.format("No setter or field found: %s.%s", cls.getSimpleName(), field));
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> createSetter(final Method method) throws Throwable {
+        method.setAccessible(true);
+        final MethodHandle handle = LOOKUP.unreflect(method);
+        if (isLinkable(method.getDeclaringClass(), method)) {
+            final Class<?> valueType = ClassUtils.primitiveToWrapper(method.getParameterTypes()[0]);
+            return (BiConsumer<Object, Object>) LambdaMetafactory.metafactory(LOOKUP, "accept", MethodType.methodType(BiConsumer.class),
+                    SETTER_TYPE, handle, MethodType.methodType(void.class, method.getDeclaringClass(), valueType)).getTarget().invoke();
+        }
+        return invoker(handle);
+    }
+
+    private static BiConsumer<Object, Object> createSetter(final Field field) throws IllegalAccessException {
+        field.setAccessible(true);
+        if (Modifier.isFinal(field.getModifiers())) {
+            // method handles never write final fields, fall back to plain reflection
+            return (obj, value) -> {
+                try {
+                    field.set(obj, value);
+                } catch (final Throwable e) {
+                    throw new IllegalArgumentException(e);
+                }
+            };
+        }
+        return invoker(LOOKUP.unreflectSetter(field));
+    }
+
+    private static BiConsumer<Object, Object> invoker(final MethodHandle handle) {
+        final MethodHandle setter = handle.asType(SETTER_TYPE);
+        return (obj, value) -> {
+            try {
+                setter.invokeExact(obj, value);
+            } catch (final Throwable e) {
+                throw new IllegalArgumentException(e);
+            }
+        };
+    }
+
+    // a lambda can only be generated for public members of public classes visible from this class loader
+    private static boolean isLinkable(final Class<?> cls, final Member member) {
+        if (!Modifier.isPublic(cls.getModifiers()) || !Modifier.isPublic(member.getModifiers())) {
+            return false;
+        }
+        try {
+            return Class.forName(cls.getName(), false, ReflectionUtils.class.getClassLoader()) == cls;
+        } catch (final ClassNotFoundException e) {
+            return false;
+        }
     }
 }
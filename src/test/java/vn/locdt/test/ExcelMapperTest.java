@@ -1,20 +1,56 @@
 package vn.locdt.test;
 
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.junit.Assert;
 import org.junit.Before;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.Test;
+import vn.locdt.excel.reader.ColumnBatch;
+import vn.locdt.excel.reader.ExcelMapping;
 import vn.locdt.excel.reader.ExcelReader;
 import vn.locdt.excel.reader.ExcelReaderBuilder;
+import vn.locdt.excel.reader.MultiSheetReader;
+import vn.locdt.excel.reader.ReadError;
+import vn.locdt.excel.reader.ReadMetrics;
 import vn.locdt.excel.reader.ReferenceInfo;
+import vn.locdt.excel.reader.StopCondition;
+import vn.locdt.excel.reader.converter.CellDataConverter;
+import vn.locdt.excel.reader.converter.ConverterRegistry;
 import vn.locdt.excel.reader.exception.CellConverterException;
+import vn.locdt.excel.reader.exception.ExcelMappingException;
+import vn.locdt.excel.reader.exception.ExcelReadException;
+import vn.locdt.excel.reader.stream.RowCheckpoint;
+import vn.locdt.excel.reader.stream.RowIndex;
+import vn.locdt.excel.reader.stream.SnapshotCache;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class ExcelMapperTest {
+    private static final Path SAMPLE_FILE = Paths.get("src/test/java/SampleExcel.xlsx");
     private static Workbook wb;
 
     @Before
@@ -77,5 +113,751 @@ public class ExcelMapperTest {
         Assert.assertEquals(compositeData.getSeqNo(), new Integer(1));
         Assert.assertEquals(compositeData.getData().getQty(), new Double(1.3));
         Assert.assertEquals(compositeData.getData().getName(), "Heisenberg");
+
+        try {
+            ExcelReaderBuilder.mapTo(CompositeData.class)
+                    .wb(wb)
+                    .mapReference(Arrays.asList(
+                            ReferenceInfo.of("C8", "qty", Double.class),
+                            ReferenceInfo.of("D9", "nickname", String.class)
+                    ), "data", CompositeData.Data.class)
+                    .build();
+            Assert.fail("An attribute without setter nor field is reported when the mapping is built");
+        } catch (ExcelMappingException e) {
+            Assert.assertEquals("Field not found: Data.nickname", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testStreamExcelFileUsingColumnNoMapping() throws IOException, CellConverterException {
+        try (ExcelReader<Data> reader = ExcelReaderBuilder.mapTo(Data.class)
+                .stream(SAMPLE_FILE)
+                .mapReference(1, "seqNo", Integer.class)
+                .mapReference(2, "qty", Double.class)
+                .mapReference(3, "name", String.class)
+                .build()) {
+
+            List<Data> data = reader.readRow(2, 4);
+            Assert.assertEquals(3, data.size());
+            Assert.assertEquals(data.get(0).getSeqNo(), new Integer(1));
+            Assert.assertEquals(data.get(0).getQty(), new Double(1.3));
+            Assert.assertEquals(data.get(0).getName(), "Heisenberg");
+            Assert.assertEquals(data.get(1).getSeqNo(), new Integer(2));
+            Assert.assertEquals(data.get(1).getQty(), new Double(10.1));
+            Assert.assertEquals(data.get(1).getName(), "Pinkman");
+            Assert.assertNull(data.get(2).getName());
+        }
+    }
+
+    @Test
+    public void testStreamEscapedStringLiteral() throws IOException, CellConverterException {
+        Path file = Files.createTempFile("escaped", ".xlsx");
+        try {
+            try (Workbook escapedWb = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(file)) {
+                // the literal text _x0041_ is stored escaped by Excel
+                escapedWb.createSheet().createRow(0).createCell(3).setCellValue("_x005F_x0041_");
+                escapedWb.write(out);
+            }
+
+            try (ExcelReader<Data> reader = ExcelReaderBuilder.mapTo(Data.class)
+                    .stream(file)
+                    .mapReference(3, "name", String.class)
+                    .build()) {
+                Assert.assertEquals("_x0041_", reader.readRow(0).getName());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testStreamExcelFileUsingReferenceMappingWithCompositeClass() throws IOException, CellConverterException {
+        try (ExcelReader<CompositeData> reader = ExcelReaderBuilder.mapTo(CompositeData.class)
+                .stream(SAMPLE_FILE)
+                .mapReference("B7", "seqNo", Integer.class)
+                .mapReference(Arrays.asList(
+                        ReferenceInfo.of("C8", "qty", Double.class),
+                        ReferenceInfo.of("D9", "name", String.class)
+                ), "data", CompositeData.Data.class)
+                .build()) {
+
+            CompositeData compositeData = reader.read();
+            Assert.assertEquals(compositeData.getSeqNo(), new Integer(1));
+            Assert.assertEquals(compositeData.getData().getQty(), new Double(1.3));
+            Assert.assertEquals(compositeData.getData().getName(), "Heisenberg");
+        }
+    }
+
+    @Test
+    public void testLazyRowsStopAtFirstMatch() throws IOException {
+        ExcelReader<Data> reader = ExcelReaderBuilder.mapTo(Data.class)
+                .wb(wb)
+                .mapReference(1, "seqNo", Integer.class)
+                .mapReference(3, "name", String.class)
+                .build();
+        List<String> names = reader.rows(2, 3).map(Data::getName).collect(Collectors.toList());
+        Assert.assertEquals(Arrays.asList("Heisenberg", "Pinkman"), names);
+
+        try (ExcelReader<Data> streamReader = ExcelReaderBuilder.mapTo(Data.class)
+                .stream(SAMPLE_FILE)
+                .mapReference(1, "seqNo", Integer.class)
+                .mapReference(3, "name", String.class)
+                .build();
+             Stream<Data> rows = streamReader.rows(2, Integer.MAX_VALUE)) {
+            Data pinkman = rows.filter(d -> "Pinkman".equals(d.getName())).findFirst().orElse(null);
+            Assert.assertNotNull(pinkman);
+            Assert.assertEquals(pinkman.getSeqNo(), new Integer(2));
+        }
+    }
+
+    @Test
+    public void testReadTypedValuesWithoutFormatting() throws IOException, CellConverterException {
+        try (Workbook typedWb = new XSSFWorkbook()) {
+            Row row = typedWb.createSheet().createRow(0);
+            row.createCell(0).setCellValue(1234567890123d);
+            row.createCell(1).setCellValue(1234.5);
+            row.createCell(2).setCellValue(LocalDate.of(2020, 2, 29));
+            row.createCell(3).setCellValue(true);
+            row.createCell(4).setCellValue("CLOSED");
+
+            TypedData data = ExcelReaderBuilder.mapTo(TypedData.class)
+                    .wb(typedWb)
+                    .mapReference(0, "id", Long.class)
+                    .mapReference(1, "amount", BigDecimal.class)
+                    .mapReference(2, "date", LocalDate.class)
+                    .mapReference(3, "active", Boolean.class)
+                    .mapReference(4, "status", TypedData.Status.class)
+                    .build()
+                    .readRow(0);
+
+            Assert.assertEquals(Long.valueOf(1234567890123L), data.getId());
+            Assert.assertEquals(new BigDecimal("1234.5"), data.getAmount());
+            Assert.assertEquals(LocalDate.of(2020, 2, 29), data.getDate());
+            Assert.assertEquals(Boolean.TRUE, data.getActive());
+            Assert.assertEquals(TypedData.Status.CLOSED, data.getStatus());
+        }
+    }
+
+    @Test
+    public void testResolveRegisteredConverters() throws IOException, CellConverterException {
+        try (Workbook typedWb = new XSSFWorkbook()) {
+            Row row = typedWb.createSheet().createRow(0);
+            row.createCell(3).setCellValue("Y");
+            row.createCell(4).setCellValue("closed");
+
+            ConverterRegistry converters = ConverterRegistry.create()
+                    .register(TypedData.Status.class, new CellDataConverter<TypedData.Status>() {
+                        @Override
+                        public TypedData.Status convert(Cell... cells) {
+                            return TypedData.Status.valueOf(cells[0].getStringCellValue().toUpperCase());
+                        }
+
+                        @Override
+                        public Class<TypedData.Status> getConvertedType() {
+                            return TypedData.Status.class;
+                        }
+                    });
+            TypedData data = ExcelReaderBuilder.mapTo(TypedData.class)
+                    .wb(typedWb)
+                    .mapReference(3, "active", Boolean.class)
+                    .mapReference(4, "status", TypedData.Status.class)
+                    .converters(converters)
+                    .converter(Boolean.class, new CellDataConverter<Boolean>() {
+                        @Override
+                        public Boolean convert(Cell... cells) {
+                            return "Y".equals(cells[0].getStringCellValue());
+                        }
+
+                        @Override
+                        public Class<Boolean> getConvertedType() {
+                            return Boolean.class;
+                        }
+                    })
+                    .build()
+                    .readRow(0);
+
+            Assert.assertEquals(Boolean.TRUE, data.getActive());
+            Assert.assertEquals(TypedData.Status.CLOSED, data.getStatus());
+            Assert.assertNotNull(converters.getRegistered(Boolean.class));
+            Assert.assertNull(ConverterRegistry.global().getRegistered(Boolean.class));
+            Assert.assertSame(ConverterRegistry.defaultConverter(Long.class), ConverterRegistry.global().resolve(Long.class));
+
+            try {
+                ExcelReaderBuilder.mapTo(TypedData.class).wb(typedWb).mapReference(0, "id", Object.class).build();
+                Assert.fail("A type without converter can not be mapped to one cell");
+            } catch (ExcelMappingException e) {
+                Assert.assertTrue(e.getMessage().contains("No converter registered"));
+            }
+        }
+    }
+
+    @Test
+    public void testReadPrimitiveFields() throws IOException, CellConverterException {
+        try (Workbook primitiveWb = new XSSFWorkbook()) {
+            Row row = primitiveWb.createSheet().createRow(0);
+            row.createCell(0).setCellValue(42);
+            row.createCell(1).setCellValue("9876543210");
+            row.createCell(2).setCellValue(0.25);
+
+            ExcelReader<PrimitiveData> reader = ExcelReaderBuilder.mapTo(PrimitiveData.class)
+                    .wb(primitiveWb)
+                    .mapReference(0, "count", int.class)
+                    .mapReference(1, "total", long.class)
+                    .mapReference(2, "ratio", double.class)
+                    .mapReference(3, "enabled", boolean.class)
+                    .build();
+            PrimitiveData data = reader.readRow(0);
+
+            Assert.assertEquals(42, data.getCount());
+            Assert.assertEquals(9876543210L, data.getTotal());
+            Assert.assertEquals(0.25, data.getRatio(), 0);
+            Assert.assertFalse(data.isEnabled());
+
+            row.getCell(0).setCellValue(4.5);
+            try {
+                reader.readRow(0);
+                Assert.fail("A decimal value can not be converted to int");
+            } catch (CellConverterException e) {
+                Assert.assertEquals("count", e.getFieldName());
+            }
+        }
+    }
+
+    @Test
+    public void testStreamColumns() throws IOException, CellConverterException {
+        try (ExcelReader<Data> reader = ExcelReaderBuilder.mapTo(Data.class)
+                .stream(SAMPLE_FILE)
+                .mapReference(1, "seqNo", Integer.class)
+                .mapReference(2, "qty", Double.class)
+                .mapReference(3, "name", String.class)
+                .build()) {
+
+            ColumnBatch batch = reader.readColumns(2, 4);
+            Assert.assertEquals(3, batch.size());
+            Assert.assertArrayEquals(new int[]{1, 2, 0}, batch.getInts("seqNo"));
+            Assert.assertArrayEquals(new double[]{1.3, 10.1, 0}, batch.getDoubles("qty"), 0);
+            Assert.assertArrayEquals(new String[]{"Heisenberg", "Pinkman"}, batch.getDictionary("name"));
+            Assert.assertEquals("Pinkman", batch.getString("name", 1));
+            Assert.assertTrue(batch.isNull("seqNo", 2));
+            Assert.assertNull(batch.getString("name", 2));
+        }
+    }
+
+    @Test
+    public void testStreamMultipleSheetsConcurrently() throws IOException, CellConverterException {
+        Path file = Files.createTempFile("multi-sheet", ".xlsx");
+        try (Workbook multiSheetWb = new XSSFWorkbook()) {
+            for (int i = 0; i < 4; i++) {
+                Sheet sheet = multiSheetWb.createSheet("Month" + i);
+                for (int rowNum = 0; rowNum <= i; rowNum++) {
+                    sheet.createRow(rowNum).createCell(1).setCellValue(i * 10 + rowNum);
+                }
+            }
+            multiSheetWb.setSheetHidden(2, true);
+            try (OutputStream out = Files.newOutputStream(file)) {
+                multiSheetWb.write(out);
+            }
+
+            try (MultiSheetReader<Data> reader = ExcelReaderBuilder.mapTo(Data.class)
+                    .stream(file)
+                    .mapReference(1, "seqNo", Integer.class)
+                    .buildMultiSheet(new ForkJoinPool(2))) {
+
+                Map<String, List<Data>> sheets = reader.readVisibleSheets(r -> r.rows().collect(Collectors.toList()));
+                Assert.assertEquals(Arrays.asList("Month0", "Month1", "Month3"), new ArrayList<>(sheets.keySet()));
+                Assert.assertEquals(4, sheets.get("Month3").size());
+                Assert.assertEquals(new Integer(33), sheets.get("Month3").get(3).getSeqNo());
+                Assert.assertEquals(new Integer(10), sheets.get("Month1").get(0).getSeqNo());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testPipelinedRowsKeepSheetOrder() throws IOException {
+        Path file = Files.createTempFile("pipelined", ".xlsx");
+        ExecutorService workers = Executors.newFixedThreadPool(4);
+        try (Workbook bigWb = new XSSFWorkbook()) {
+            Sheet sheet = bigWb.createSheet();
+            for (int rowNum = 0; rowNum < 5000; rowNum++) {
+                sheet.createRow(rowNum).createCell(1).setCellValue(rowNum);
+            }
+            try (OutputStream out = Files.newOutputStream(file)) {
+                bigWb.write(out);
+            }
+
+            try (ExcelReader<Data> reader = ExcelReaderBuilder.mapTo(Data.class)
+                    .stream(file)
+                    .mapReference(1, "seqNo", Integer.class)
+                    .build()) {
+
+                List<Integer> seqNos;
+                try (Stream<Data> rows = reader.pipelinedRows(workers)) {
+                    seqNos = rows.map(Data::getSeqNo).collect(Collectors.toList());
+                }
+                Assert.assertEquals(5000, seqNos.size());
+                for (int i = 0; i < seqNos.size(); i++) {
+                    Assert.assertEquals(new Integer(i), seqNos.get(i));
+                }
+
+                try (Stream<Data> rows = reader.pipelinedRows(10, 4000, workers)) {
+                    Assert.assertEquals(new Integer(10), rows.findFirst().get().getSeqNo());
+                }
+                // closing the stream waits for its parser, the reader can be closed right after
+                Assert.assertTrue(Thread.getAllStackTraces().keySet().stream()
+                        .noneMatch(thread -> thread.getName().equals("excel-reader-parser")));
+            }
+        } finally {
+            workers.shutdown();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testCanonicalizeRepeatedStrings() throws IOException, CellConverterException {
+        Path file = Files.createTempFile("canonical", ".xlsx");
+        try (Workbook repeatedWb = new XSSFWorkbook()) {
+            Sheet sheet = repeatedWb.createSheet();
+            for (int rowNum = 0; rowNum < 3; rowNum++) {
+                sheet.createRow(rowNum).createCell(3).setCellValue("Pinkman");
+            }
+            try (OutputStream out = Files.newOutputStream(file)) {
+                repeatedWb.write(out);
+            }
+
+            try (ExcelReader<Data> reader = ExcelReaderBuilder.mapTo(Data.class)
+                    .stream(file)
+                    .mapReference(3, "name", String.class)
+                    .canonicalizeStrings(16)
+                    .build()) {
+
+                List<Data> data = reader.readRow(0, 2);
+                Assert.assertEquals("Pinkman", data.get(0).getName());
+                Assert.assertSame(data.get(0).getName(), data.get(1).getName());
+                Assert.assertSame(data.get(0).getName(), data.get(2).getName());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testReadExcelFileUsingHeaderMapping() throws IOException, CellConverterException {
+        try (ExcelReader<Data> reader = ExcelReaderBuilder.mapTo(Data.class)
+                .stream(SAMPLE_FILE)
+                .headerRow(1)
+                .mapHeader("Name", "name", String.class)
+                .mapHeader("No.", "seqNo", Integer.class)
+                .mapHeader("Qty", "qty", Double.class)
+                .build()) {
+
+            Data data = reader.readRow(3);
+            Assert.assertEquals(data.getSeqNo(), new Integer(2));
+            Assert.assertEquals(data.getQty(), new Double(10.1));
+            Assert.assertEquals(data.getName(), "Pinkman");
+        }
+
+        try {
+            ExcelReaderBuilder.mapTo(Data.class)
+                    .wb(wb)
+                    .headerRow(1)
+                    .mapHeader("Name", "name", String.class)
+                    .mapHeader("Weight", "qty", Double.class)
+                    .mapHeader("Age", "seqNo", Integer.class)
+                    .build();
+            Assert.fail("Unknown headers must be reported");
+        } catch (ExcelMappingException e) {
+            Assert.assertTrue(e.getMessage().contains("[Weight, Age]"));
+        }
+    }
+
+    @Test
+    public void testLenientReadCollectsErrors() throws CellConverterException {
+        List<ReadError> errors = new ArrayList<>();
+        ExcelReader<Data> reader = ExcelReaderBuilder.mapTo(Data.class)
+                .wb(wb)
+                .mapReference(1, "seqNo", Integer.class)
+                .mapReference(2, "qty", Double.class)
+                .mapReference(3, "name", String.class)
+                .lenient(2, errors::add)
+                .build();
+
+        List<Data> data = reader.readRow(1, 3);
+        Assert.assertEquals(2, data.size());
+        Assert.assertEquals("Pinkman", data.get(1).getName());
+        Assert.assertEquals(2, errors.size());
+        Assert.assertEquals(1, errors.get(0).getRowNum());
+        Assert.assertEquals(1, errors.get(0).getColumnIndex());
+        Assert.assertEquals("No.", errors.get(0).getRawValue());
+        Assert.assertEquals(Double.class, errors.get(1).getTargetType());
+
+        try {
+            reader.readRow(1);
+            Assert.fail("Reading must stop above the maximum number of errors");
+        } catch (ExcelReadException e) {
+            Assert.assertEquals(2, errors.size());
+        }
+    }
+
+    @Test
+    public void testReadMetricsListener() throws IOException, CellConverterException {
+        ReadMetrics metrics = new ReadMetrics();
+        try (ExcelReader<Data> reader = ExcelReaderBuilder.mapTo(Data.class)
+                .stream(SAMPLE_FILE)
+                .mapReference(1, "seqNo", Integer.class)
+                .mapReference(2, "qty", Double.class)
+                .mapReference(3, "name", String.class)
+                .lenient(10, error -> {
+                })
+                .listener(metrics)
+                .build()) {
+
+            Assert.assertEquals(2, reader.readRow(1, 3).size());
+        }
+
+        Assert.assertEquals(3, metrics.getRowsRead());
+        Assert.assertEquals(1, metrics.getRowsSkipped());
+        Assert.assertTrue(metrics.getWorkbookOpenNanos() > 0);
+        Assert.assertTrue(metrics.getBytesParsed() > 0);
+        Assert.assertEquals(3, metrics.getFields().get("name").getCellsConverted());
+        Assert.assertEquals(1, metrics.getFields().get("qty").getConversionFailures());
+        Assert.assertEquals(0, metrics.getFields().get("name").getConversionFailures());
+    }
+
+    @Test
+    public void testReadInBatches() throws IOException, CellConverterException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (ExcelReader<Data> reader = ExcelReaderBuilder.mapTo(Data.class)
+                .stream(SAMPLE_FILE)
+                .mapReference(1, "seqNo", Integer.class)
+                .mapReference(3, "name", String.class)
+                .build()) {
+
+            List<List<String>> batches = new ArrayList<>();
+            reader.readInBatches(2, 4, 2, batch -> batches.add(batch.stream().map(Data::getName).collect(Collectors.toList())));
+            Assert.assertEquals(Arrays.asList(Arrays.asList("Heisenberg", "Pinkman"), Arrays.asList((String) null)), batches);
+
+            List<List<String>> asyncBatches = new ArrayList<>();
+            List<Thread> consumerThreads = new ArrayList<>();
+            reader.readInBatches(2, 4, 2, batch -> {
+                consumerThreads.add(Thread.currentThread());
+                asyncBatches.add(batch.stream().map(Data::getName).collect(Collectors.toList()));
+            }, executor);
+            Assert.assertEquals(batches, asyncBatches);
+            // the last, partial batch is consumed on the executor too
+            Assert.assertFalse(consumerThreads.contains(Thread.currentThread()));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testGeneratedRowMapper() throws CellConverterException {
+        ExcelReader<Data> reader = ExcelReaderBuilder.mapTo(Data.class)
+                .wb(wb)
+                .mapReference(1, "seqNo", Integer.class)
+                .mapReference(2, "qty", Double.class)
+                .mapReference(3, "name", String.class)
+                .generateRowMapper()
+                .build();
+
+        List<Data> data = reader.readRow(2, 3);
+        Assert.assertEquals(data.get(0).getSeqNo(), new Integer(1));
+        Assert.assertEquals(data.get(0).getQty(), new Double(1.3));
+        Assert.assertEquals(data.get(1).getName(), "Pinkman");
+
+        try {
+            reader.readRow(1);
+            Assert.fail("The header row can not be converted");
+        } catch (CellConverterException e) {
+            Assert.assertEquals("seqNo", e.getFieldName());
+            Assert.assertEquals(Data.class, e.getEntityClass());
+        }
+    }
+
+    @Test
+    public void testReadImmutableEntitiesByConstructor() throws CellConverterException {
+        ExcelReader<ImmutableData> reader = ExcelReaderBuilder.mapTo(ImmutableData.class)
+                .wb(wb)
+                .mapReference(1, "seqNo", Integer.class)
+                .mapReference(3, "name", String.class)
+                .build();
+
+        List<ImmutableData> data = reader.readRow(2, 3);
+        Assert.assertEquals(1, data.get(0).getSeqNo());
+        Assert.assertEquals("Heisenberg", data.get(0).getName());
+        Assert.assertEquals(2, data.get(1).getSeqNo());
+        Assert.assertEquals("Pinkman", data.get(1).getName());
+        Assert.assertNull(data.get(1).getDetail());
+
+        try {
+            reader.readRow(data.get(0), 2);
+            Assert.fail("An immutable entity can not be mapped again");
+        } catch (ExcelMappingException e) {
+            // expected
+        }
+
+        ImmutableData composite = ExcelReaderBuilder.mapTo(ImmutableData.class)
+                .wb(wb)
+                .mapReference("B7", "seqNo", Integer.class)
+                .mapReference(Arrays.asList(
+                        ReferenceInfo.of("C8", "qty", Double.class),
+                        ReferenceInfo.of("D9", "name", String.class)
+                ), "detail", ImmutableData.Detail.class)
+                .build()
+                .read();
+        Assert.assertEquals(1, composite.getSeqNo());
+        Assert.assertNull(composite.getName());
+        Assert.assertEquals(new Double(1.3), composite.getDetail().getQty());
+        Assert.assertEquals("Heisenberg", composite.getDetail().getName());
+    }
+
+    @Test
+    public void testSeekIndexedRowsAndResumeAtCheckpoint() throws IOException, CellConverterException {
+        Path file = Files.createTempFile("indexed", ".xlsx");
+        Path indexFile = Files.createTempFile("indexed", ".idx");
+        try {
+            writeNumberedRows(file, 5000);
+            ExcelMapping<Data> mapping = ExcelReaderBuilder.mapTo(Data.class)
+                    .mapReference(1, "seqNo", Integer.class)
+                    .mapReference(3, "name", String.class)
+                    .buildMapping();
+
+            String token;
+            try (ExcelReader<Data> reader = mapping.stream(file).indexRows(RowIndex.create(100))) {
+                Iterator<Data> rows = reader.iterator(0, 4999);
+                for (int i = 0; i < 300; i++) {
+                    rows.next();
+                }
+                token = reader.checkpoint().toToken();
+                while (rows.hasNext()) {
+                    rows.next();
+                }
+                Assert.assertEquals(50, reader.getRowIndex().size());
+                reader.getRowIndex().save(indexFile);
+            }
+
+            ReadMetrics metrics = new ReadMetrics();
+            try (ExcelReader<Data> reader = ExcelReaderBuilder.mapTo(Data.class)
+                    .stream(file)
+                    .mapReference(1, "seqNo", Integer.class)
+                    .mapReference(3, "name", String.class)
+                    .listener(metrics)
+                    .build()
+                    .indexRows(RowIndex.load(indexFile))) {
+                Assert.assertEquals("name4500", reader.readRow(4500).getName());
+                long seekBytes = metrics.getBytesParsed();
+
+                int resumeRow = reader.resume(RowCheckpoint.fromToken(token));
+                Assert.assertEquals(300, resumeRow);
+                Assert.assertEquals(new Integer(300), reader.readRow(resumeRow, resumeRow).get(0).getSeqNo());
+
+                reader.getRowIndex().save(indexFile);
+                reader.readRow(0, 4999);
+                Assert.assertTrue(seekBytes * 10 < metrics.getBytesParsed() - seekBytes);
+            }
+
+            writeNumberedRows(file, 6000);
+            try (ExcelReader<Data> reader = mapping.stream(file).indexRows(RowIndex.load(indexFile))) {
+                reader.readRow(10);
+                Assert.fail("The index was built for another version of the file");
+            } catch (ExcelReadException e) {
+                // expected
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(indexFile);
+        }
+    }
+
+    @Test
+    public void testReadToEndSkipsEmptyRows() throws IOException, CellConverterException {
+        Path file = Files.createTempFile("sparse", ".xlsx");
+        try (Workbook sparseWb = new XSSFWorkbook()) {
+            Sheet sheet = sparseWb.createSheet();
+            for (int i : new int[]{0, 1, 2, 3, 4, 7, 12}) {
+                Row row = sheet.createRow(i);
+                row.createCell(1).setCellValue(i);
+                row.createCell(3).setCellValue("name" + i);
+            }
+            sheet.createRow(6).createCell(3).setCellValue(" ");
+            sheet.createRow(11).createCell(3).setCellValue("Total");
+            try (OutputStream out = Files.newOutputStream(file)) {
+                sparseWb.write(out);
+            }
+
+            ExcelMapping<Data> mapping = ExcelReaderBuilder.mapTo(Data.class)
+                    .mapReference(1, "seqNo", Integer.class)
+                    .mapReference(3, "name", String.class)
+                    .buildMapping();
+            ExcelReader<Data> reader = mapping.on(sheet);
+
+            List<Data> data = reader.readToEnd(0, StopCondition.LAST_ROW);
+            Assert.assertEquals(8, data.size());
+            Assert.assertEquals("name7", data.get(5).getName());
+            Assert.assertEquals(5, reader.readToEnd(0, StopCondition.blankRows(2)).size());
+            Assert.assertEquals(6, reader.readToEnd(0, StopCondition.sentinel(3, "Total")).size());
+            Assert.assertEquals(2, reader.readToEnd(4, StopCondition.blankRows(5).or(StopCondition.sentinel(3, "Total"))).size());
+
+            try (ExcelReader<Data> streamingReader = mapping.stream(file)) {
+                data = streamingReader.readToEnd(1, StopCondition.sentinel(3, "Total"));
+                Assert.assertEquals(5, data.size());
+                Assert.assertEquals(new Integer(7), data.get(4).getSeqNo());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testStreamLegacyXlsFile() throws IOException, CellConverterException {
+        Path file = Files.createTempFile("legacy", ".xls");
+        try (Workbook legacyWb = new HSSFWorkbook()) {
+            legacyWb.createSheet("Draft").createRow(0).createCell(3).setCellValue("draft");
+            legacyWb.setSheetHidden(0, true);
+            Sheet sheet = legacyWb.createSheet("Data");
+            for (int i = 0; i < 300; i++) {
+                Row row = sheet.createRow(i == 299 ? 400 : i);
+                row.createCell(1).setCellValue(i);
+                row.createCell(2).setCellValue(i + 0.5);
+                row.createCell(3).setCellValue("name" + (i % 10));
+            }
+            sheet.getRow(1).getCell(3).setCellFormula("\"form\"&\"ula\"");
+            legacyWb.getCreationHelper().createFormulaEvaluator().evaluateAll();
+            try (OutputStream out = Files.newOutputStream(file)) {
+                legacyWb.write(out);
+            }
+        }
+
+        ExcelMapping<Data> mapping = ExcelReaderBuilder.mapTo(Data.class)
+                .mapReference(1, "seqNo", Integer.class)
+                .mapReference(2, "qty", Double.class)
+                .mapReference(3, "name", String.class)
+                .buildMapping();
+        try (ExcelReader<Data> reader = mapping.stream(file)) {
+            List<Data> data = reader.readRow(0, 2);
+            Assert.assertEquals("name0", data.get(0).getName());
+            Assert.assertEquals("formula", data.get(1).getName());
+            Assert.assertEquals(new Double(2.5), data.get(2).getQty());
+
+            data = reader.readToEnd(250, StopCondition.LAST_ROW);
+            Assert.assertEquals(50, data.size());
+            Assert.assertEquals(new Integer(299), data.get(49).getSeqNo());
+        }
+
+        try (InputStream in = Files.newInputStream(file);
+             ExcelReader<Data> reader = mapping.stream(in)) {
+            Assert.assertEquals("name7", reader.readRow(297).getName());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testReadSheetsFromSnapshotCache() throws IOException, CellConverterException {
+        Path file = Files.createTempFile("reference", ".xlsx");
+        Path otherFile = Files.createTempFile("other-reference", ".xlsx");
+        Path changedFile = Files.createTempFile("changed-reference", ".xlsx");
+        Path directory = Files.createTempDirectory("snapshots");
+        try {
+            writeNumberedRows(file, 5000);
+            writeNumberedRows(otherFile, 6000);
+            ExcelMapping<Data> mapping = ExcelReaderBuilder.mapTo(Data.class)
+                    .mapReference(1, "seqNo", Integer.class)
+                    .mapReference(3, "name", String.class)
+                    .buildMapping();
+            SnapshotCache cache = SnapshotCache.open(directory, 64L << 20);
+
+            List<Data> parsed;
+            try (ExcelReader<Data> reader = mapping.stream(file, cache)) {
+                parsed = reader.readToEnd(0, StopCondition.LAST_ROW);
+            }
+            long size = cache.size();
+            Assert.assertTrue(size > 0);
+
+            try (ExcelReader<Data> reader = mapping.stream(file, cache)) {
+                List<Data> snapshot = reader.readToEnd(0, StopCondition.LAST_ROW);
+                Assert.assertEquals(parsed.size(), snapshot.size());
+                for (int i = 0; i < parsed.size(); i += 997) {
+                    Assert.assertEquals(parsed.get(i).getSeqNo(), snapshot.get(i).getSeqNo());
+                    Assert.assertEquals(parsed.get(i).getName(), snapshot.get(i).getName());
+                }
+                Assert.assertEquals(parsed.get(4500).getName(), reader.readRow(4500).getName());
+            }
+
+            // the snapshots of the other file do not fit with those of the first one, which are the least recently used
+            SnapshotCache boundedCache = SnapshotCache.open(directory, size + 1024);
+            try (ExcelReader<Data> reader = mapping.stream(otherFile, boundedCache)) {
+                Assert.assertEquals(6000, reader.readToEnd(0, StopCondition.LAST_ROW).size());
+            }
+            Assert.assertTrue(boundedCache.size() <= boundedCache.getMaxBytes());
+            try (ExcelReader<Data> reader = mapping.stream(file, boundedCache)) {
+                Assert.assertEquals(parsed.get(10).getName(), reader.readRow(10).getName());
+            }
+
+            // a sheet without snapshot is only parsed from the content of the cache key
+            writeNumberedRows(changedFile, 10);
+            try (ExcelReader<Data> reader = mapping.stream(changedFile, cache)) {
+                Assert.assertEquals("name0", reader.readRow(0).getName());
+            }
+            try (ExcelReader<Data> reader = mapping.stream(changedFile, cache)) {
+                writeNumberedRows(changedFile, 20);
+                reader.readRow(0);
+                Assert.fail("The file was changed after it was hashed");
+            } catch (ExcelReadException e) {
+                Assert.assertTrue(e.getMessage().contains("changed"));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(otherFile);
+            Files.deleteIfExists(changedFile);
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path snapshot : files.collect(Collectors.toList())) {
+                    Files.deleteIfExists(snapshot);
+                }
+            }
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    @Test
+    public void testShareMappingAcrossThreads() throws Exception {
+        ExcelMapping<Data> mapping = ExcelReaderBuilder.mapTo(Data.class)
+                .mapReference(1, "seqNo", Integer.class)
+                .mapReference(3, "name", String.class)
+                .buildMapping();
+
+        Assert.assertEquals("Heisenberg", mapping.on(wb).readRow(2).getName());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Data>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    try (ExcelReader<Data> reader = mapping.stream(SAMPLE_FILE)) {
+                        return reader.readRow(2, 3);
+                    }
+                }));
+            }
+            for (Future<List<Data>> result : results) {
+                Assert.assertEquals("Pinkman", result.get().get(1).getName());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // write rows numbered from 0, with the number in column B and "name" followed by the number in column D
+    private static void writeNumberedRows(Path file, int rows) throws IOException {
+        try (Workbook numberedWb = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(file)) {
+            Sheet sheet = numberedWb.createSheet();
+            for (int i = 0; i < rows; i++) {
+                Row row = sheet.createRow(i);
+                row.createCell(1).setCellValue(i);
+                row.createCell(3).setCellValue("name" + i);
+            }
+            numberedWb.write(out);
+        }
     }
 }
@@ -0,0 +1,43 @@
+package vn.locdt.test;
+
+public class ImmutableData {
+    private final int seqNo;
+    private final String name;
+    private final Detail detail;
+
+    public ImmutableData(int seqNo, String name, Detail detail) {
+        this.seqNo = seqNo;
+        this.name = name;
+        this.detail = detail;
+    }
+
+    public int getSeqNo() {
+        return this.seqNo;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public Detail getDetail() {
+        return this.detail;
+    }
+
+    public static class Detail {
+        private final Double qty;
+        private final String name;
+
+        public Detail(Double qty, String name) {
+            this.qty = qty;
+            this.name = name;
+        }
+
+        public Double getQty() {
+            return this.qty;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+    }
+}
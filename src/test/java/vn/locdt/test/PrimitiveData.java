@@ -0,0 +1,36 @@
+package vn.locdt.test;
+
+public class PrimitiveData {
+    private int count;
+    private long total;
+    private double ratio;
+    private boolean enabled;
+
+    public int getCount() {
+        return this.count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public long getTotal() {
+        return this.total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public double getRatio() {
+        return this.ratio;
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+}
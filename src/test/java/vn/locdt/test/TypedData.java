@@ -0,0 +1,56 @@
+package vn.locdt.test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public class TypedData {
+    private Long id;
+    private BigDecimal amount;
+    private LocalDate date;
+    private Boolean active;
+    private Status status;
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public BigDecimal getAmount() {
+        return this.amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public LocalDate getDate() {
+        return this.date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public Boolean getActive() {
+        return this.active;
+    }
+
+    public void setActive(Boolean active) {
+        this.active = active;
+    }
+
+    public Status getStatus() {
+        return this.status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public enum Status {
+        OPEN, CLOSED
+    }
+}